@@ -14,7 +14,7 @@ echo.
 REM Compile C++ Module 1
 echo [*] Compiling C++ Module1...
 cd /d "e:\DSA\smart-code-snippet-manager\cpp\module1"
-g++ -o app.exe main.cpp hashmap.cpp trie.cpp 2>&1
+g++ -o app.exe main.cpp fulltext.cpp hashmap.cpp trie.cpp trigram.cpp wal.cpp 2>&1
 if %ERRORLEVEL% equ 0 (
     echo [✓] Module1 compiled successfully
 ) else (
@@ -26,7 +26,7 @@ if %ERRORLEVEL% equ 0 (
 REM Compile C++ Module 3
 echo [*] Compiling C++ Module3...
 cd /d "e:\DSA\smart-code-snippet-manager\cpp\module3"
-g++ -o app.exe main.cpp graph.cpp recommendations.cpp 2>&1
+g++ -o app.exe main.cpp graph.cpp trigram.cpp snapshot.cpp trending.cpp journal.cpp recommendations.cpp 2>&1
 if %ERRORLEVEL% equ 0 (
     echo [✓] Module3 compiled successfully
 ) else (
@@ -50,10 +50,36 @@ echo.
 
 javac -d bin ^
     com/snippetmanager/SmartCodeMain.java ^
+    com/snippetmanager/core/Language.java ^
+    com/snippetmanager/core/Snippet.java ^
+    com/snippetmanager/core/SnippetJsonReader.java ^
+    com/snippetmanager/core/BodyStore.java ^
+    com/snippetmanager/core/FuzzyTagIndex.java ^
+    com/snippetmanager/core/JsonBodyFile.java ^
+    com/snippetmanager/core/MappedFile.java ^
+    com/snippetmanager/core/SnapshotFile.java ^
+    com/snippetmanager/core/SnapshotWriter.java ^
+    com/snippetmanager/core/SnippetSnapshot.java ^
+    com/snippetmanager/core/SnippetStore.java ^
+    com/snippetmanager/core/SnippetDelta.java ^
+    com/snippetmanager/core/SnippetStoreWatcher.java ^
+    com/snippetmanager/core/TagRules.java ^
+    com/snippetmanager/backend/ProjectPaths.java ^
+    com/snippetmanager/backend/BackendResponse.java ^
+    com/snippetmanager/backend/BackendConnection.java ^
+    com/snippetmanager/backend/Module1Backend.java ^
+    com/snippetmanager/backend/Module3Backend.java ^
+    com/snippetmanager/backend/QueryCache.java ^
+    com/snippetmanager/backend/QueryExecutors.java ^
     com/snippetmanager/module1/SnippetManagerPanel.java ^
+    com/snippetmanager/module1/SnippetImporter.java ^
+    com/snippetmanager/module1/SnippetTitleIndex.java ^
+    com/snippetmanager/module1/TitleAutocomplete.java ^
     com/snippetmanager/module3/RecommendationPanelPro.java ^
     com/snippetmanager/module3/AnalyticsDashboardPro.java ^
     com/snippetmanager/module3/TagVisualization.java ^
+    com/snippetmanager/module3/TagNetwork.java ^
+    com/snippetmanager/module3/ForceLayout.java ^
     com/snippetmanager/module3/MetricsDashboard.java
 
 if %ERRORLEVEL% equ 0 (
@@ -21,11 +21,37 @@ if (-not (Test-Path $binPath)) {
 # List of files to compile
 $files = @(
     "com/snippetmanager/SmartCodeMain.java",
+    "com/snippetmanager/core/Language.java",
+    "com/snippetmanager/core/Snippet.java",
+    "com/snippetmanager/core/SnippetJsonReader.java",
+    "com/snippetmanager/core/BodyStore.java",
+    "com/snippetmanager/core/FuzzyTagIndex.java",
+    "com/snippetmanager/core/JsonBodyFile.java",
+    "com/snippetmanager/core/MappedFile.java",
+    "com/snippetmanager/core/SnapshotFile.java",
+    "com/snippetmanager/core/SnapshotWriter.java",
+    "com/snippetmanager/core/SnippetSnapshot.java",
+    "com/snippetmanager/core/SnippetStore.java",
+    "com/snippetmanager/core/SnippetDelta.java",
+    "com/snippetmanager/core/SnippetStoreWatcher.java",
+    "com/snippetmanager/core/TagRules.java",
+    "com/snippetmanager/backend/ProjectPaths.java",
+    "com/snippetmanager/backend/BackendResponse.java",
+    "com/snippetmanager/backend/BackendConnection.java",
+    "com/snippetmanager/backend/Module1Backend.java",
+    "com/snippetmanager/backend/Module3Backend.java",
+    "com/snippetmanager/backend/QueryCache.java",
+    "com/snippetmanager/backend/QueryExecutors.java",
     "com/snippetmanager/module1/SnippetManagerPanel.java",
+    "com/snippetmanager/module1/SnippetImporter.java",
+    "com/snippetmanager/module1/SnippetTitleIndex.java",
+    "com/snippetmanager/module1/TitleAutocomplete.java",
     "com/snippetmanager/module1/CodeSnippetApp.java",
     "com/snippetmanager/module3/RecommendationPanelPro.java",
     "com/snippetmanager/module3/AnalyticsDashboardPro.java",
     "com/snippetmanager/module3/TagVisualization.java",
+    "com/snippetmanager/module3/TagNetwork.java",
+    "com/snippetmanager/module3/ForceLayout.java",
     "com/snippetmanager/module3/MetricsDashboard.java"
 )
 
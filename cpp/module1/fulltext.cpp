@@ -0,0 +1,342 @@
+#include "fulltext.h"
+#include <algorithm>
+#include <cctype>
+#include <climits>
+#include <cmath>
+
+// Usual BM25 parameters: term-frequency saturation and length normalisation
+static const double K1 = 1.2;
+static const double B = 0.75;
+
+static bool isWordChar(unsigned char c) {
+    return isalnum(c) || c == '_' || c >= 0x80;
+}
+
+static void addWord(vector<string>& words, const string& text, size_t start, size_t end) {
+    if (end - start < 2)
+        return;
+    string word = text.substr(start, end - start);
+    for (char& c : word)
+        c = (char)tolower((unsigned char)c);
+    words.push_back(word);
+}
+
+vector<string> FullTextIndex::tokenize(const string& text) {
+    vector<string> words;
+    size_t n = text.size();
+    size_t i = 0;
+    while (i < n) {
+        if (!isWordChar(text[i])) {
+            i++;
+            continue;
+        }
+        size_t start = i;
+        while (i < n && isWordChar(text[i]))
+            i++;
+
+        // Parts end at '_', at a lower-to-upper step ("parseHttp") and
+        // before the last capital of an acronym ("HTTPHeader")
+        int parts = 0;
+        size_t partStart = start;
+        for (size_t j = start; j <= i; j++) {
+            bool cut = j == i || text[j] == '_';
+            if (!cut && j > partStart) {
+                unsigned char prev = text[j - 1], c = text[j];
+                cut = isupper(c) && (islower(prev) || isdigit(prev) ||
+                                     (isupper(prev) && j + 1 < i && islower((unsigned char)text[j + 1])));
+            }
+            if (!cut)
+                continue;
+            if (j > partStart) {
+                addWord(words, text, partStart, j);
+                parts++;
+            }
+            partStart = text[j] == '_' ? j + 1 : j;
+        }
+        if (parts > 1)
+            addWord(words, text, start, i);
+    }
+    return words;
+}
+
+FullTextIndex::FullTextIndex() : indexedDocs(0), totalLength(0), liveDocs(0) {
+}
+
+void FullTextIndex::put(const string& key, const string& title, const string& code) {
+    remove(key);
+
+    unordered_map<string, int> counts;
+    int length = 0;
+    for (const string& word : tokenize(title)) {
+        counts[word] += TITLE_WEIGHT;
+        length += TITLE_WEIGHT;
+    }
+    for (const string& word : tokenize(code)) {
+        counts[word]++;
+        length++;
+    }
+
+    // Ids only grow, so appending keeps every posting list sorted
+    int doc = (int)docKey.size();
+    docKey.push_back(key);
+    docLength.push_back(length);
+    docOf[key] = doc;
+    for (const auto& count : counts) {
+        PostingList& list = open.terms[count.first];
+        if (list.postings.empty() || length < list.minLength)
+            list.minLength = length;
+        list.maxTf = max(list.maxTf, count.second);
+        list.postings.push_back({doc, count.second});
+        postingsOf[count.first]++;
+    }
+    open.docs++;
+    indexedDocs++;
+    liveDocs++;
+    totalLength += length;
+
+    if (open.docs >= SEGMENT_DOCS)
+        seal();
+}
+
+void FullTextIndex::remove(const string& key) {
+    auto it = docOf.find(key);
+    if (it == docOf.end())
+        return;
+    int doc = it->second;
+    docKey[doc].clear();
+    totalLength -= docLength[doc];
+    liveDocs--;
+    docOf.erase(it);
+
+    int deadIds = (int)docKey.size() - liveDocs;
+    if (deadIds > SEGMENT_DOCS && deadIds > liveDocs)
+        renumber();
+}
+
+// Folds every segment into one, which drops all dead postings, then gives
+// the live documents ids 0..liveDocs-1 in their old order, so posting lists
+// stay sorted. Runs after at least liveDocs removals: O(1) amortized each.
+void FullTextIndex::renumber() {
+    open.endDoc = (int)docKey.size();
+    sealed.push_back(std::move(open));
+    while (sealed.size() >= 2) {
+        merge(sealed[sealed.size() - 2], sealed.back());
+        sealed.pop_back();
+    }
+    Segment rest;  // empty; merging it purges a lone segment too
+    rest.firstDoc = rest.endDoc = (int)docKey.size();
+    merge(sealed[0], rest);
+
+    vector<int> newId(docKey.size(), -1);
+    int next = 0;
+    for (int doc = 0; doc < (int)docKey.size(); doc++) {
+        if (docKey[doc].empty())
+            continue;
+        newId[doc] = next;
+        docOf[docKey[doc]] = next;
+        if (next != doc) {
+            docLength[next] = docLength[doc];
+            docKey[next] = std::move(docKey[doc]);
+        }
+        next++;
+    }
+    docKey.resize(next);
+    docKey.shrink_to_fit();
+    docLength.resize(next);
+    docLength.shrink_to_fit();
+    for (auto& term : sealed[0].terms)
+        for (Posting& posting : term.second.postings)
+            posting.doc = newId[posting.doc];
+
+    sealed[0].firstDoc = 0;
+    sealed[0].endDoc = next;
+    open = Segment();
+    open.firstDoc = open.endDoc = next;
+}
+
+// Segments merge like a binary counter: a segment joins the one before it
+// once it has as many documents, so each posting is copied O(log n) times
+void FullTextIndex::seal() {
+    open.endDoc = (int)docKey.size();
+    sealed.push_back(std::move(open));
+    open = Segment();
+    open.firstDoc = open.endDoc = (int)docKey.size();
+    while (sealed.size() >= 2 && sealed.back().docs >= sealed[sealed.size() - 2].docs) {
+        merge(sealed[sealed.size() - 2], sealed.back());
+        sealed.pop_back();
+    }
+}
+
+// Appends newer's postings to older's (newer ids are all larger) and drops
+// the postings of dead documents from both
+void FullTextIndex::merge(Segment& older, Segment& newer) {
+    for (auto& term : newer.terms) {
+        vector<Posting>& into = older.terms[term.first].postings;
+        into.insert(into.end(), term.second.postings.begin(), term.second.postings.end());
+    }
+    newer.terms.clear();
+
+    for (auto it = older.terms.begin(); it != older.terms.end();) {
+        PostingList& list = it->second;
+        size_t kept = 0;
+        list.maxTf = 0;
+        for (const Posting& posting : list.postings) {
+            if (docKey[posting.doc].empty())
+                continue;
+            int length = docLength[posting.doc];
+            if (kept == 0 || length < list.minLength)
+                list.minLength = length;
+            list.maxTf = max(list.maxTf, posting.tf);
+            list.postings[kept++] = posting;
+        }
+
+        int dropped = (int)(list.postings.size() - kept);
+        if (dropped > 0) {
+            auto count = postingsOf.find(it->first);
+            if ((count->second -= dropped) == 0)
+                postingsOf.erase(count);
+        }
+        if (kept == 0) {
+            it = older.terms.erase(it);
+        } else {
+            list.postings.resize(kept);
+            ++it;
+        }
+    }
+
+    int live = 0;
+    for (int doc = older.firstDoc; doc < newer.endDoc; doc++)
+        if (!docKey[doc].empty())
+            live++;
+    indexedDocs -= older.docs + newer.docs - live;
+    older.docs = live;
+    older.endDoc = newer.endDoc;
+}
+
+double FullTextIndex::idf(const string& term) const {
+    auto it = postingsOf.find(term);
+    double df = it == postingsOf.end() ? 0 : it->second;
+    return log(1.0 + (indexedDocs - df + 0.5) / (df + 0.5));
+}
+
+double FullTextIndex::termScore(double idf, int tf, int length, double averageLength) const {
+    return idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+}
+
+void FullTextIndex::searchSegment(const Segment& segment, const vector<string>& terms, double averageLength,
+                                  int k, vector<pair<double, int>>& heap) const {
+    struct Cursor {
+        const vector<Posting>* postings;
+        size_t pos;
+        double idf;
+        double bound;  // the most this term adds to any score in the segment
+    };
+    vector<Cursor> cursors;
+    for (const string& term : terms) {
+        auto it = segment.terms.find(term);
+        if (it == segment.terms.end())
+            continue;
+        double weight = idf(term);
+        cursors.push_back({&it->second.postings, 0, weight,
+                           termScore(weight, it->second.maxTf, it->second.minLength, averageLength)});
+    }
+    if (cursors.empty())
+        return;
+
+    sort(cursors.begin(), cursors.end(), [](const Cursor& a, const Cursor& b) { return a.bound < b.bound; });
+    vector<double> boundUpTo(cursors.size());  // bounds of cursors 0..i together
+    double sum = 0;
+    for (size_t i = 0; i < cursors.size(); i++)
+        boundUpTo[i] = sum += cursors[i].bound;
+
+    // Heap front is the weakest of the best k: lowest score, then latest doc
+    auto better = [](const pair<double, int>& a, const pair<double, int>& b) {
+        return a.first > b.first || (a.first == b.first && a.second < b.second);
+    };
+    auto threshold = [&]() { return (int)heap.size() < k ? 0.0 : heap.front().first; };
+    auto scoreAt = [&](const Cursor& cursor, int doc) {
+        return termScore(cursor.idf, (*cursor.postings)[cursor.pos].tf, docLength[doc], averageLength);
+    };
+
+    // Lists before `essential` cannot lift a document past the threshold on
+    // their own: candidates come from the others only. Documents arrive in
+    // ascending id, later than any already kept, so a tie never displaces.
+    size_t essential = 0;
+    while (true) {
+        while (essential < cursors.size() && boundUpTo[essential] <= threshold())
+            essential++;
+        if (essential == cursors.size())
+            return;
+
+        int doc = INT_MAX;
+        for (size_t i = essential; i < cursors.size(); i++) {
+            const Cursor& cursor = cursors[i];
+            if (cursor.pos < cursor.postings->size())
+                doc = min(doc, (*cursor.postings)[cursor.pos].doc);
+        }
+        if (doc == INT_MAX)
+            return;
+
+        bool live = !docKey[doc].empty();
+        double score = 0;
+        for (size_t i = essential; i < cursors.size(); i++) {
+            Cursor& cursor = cursors[i];
+            if (cursor.pos < cursor.postings->size() && (*cursor.postings)[cursor.pos].doc == doc) {
+                if (live)
+                    score += scoreAt(cursor, doc);
+                cursor.pos++;
+            }
+        }
+        if (!live)
+            continue;
+
+        for (size_t i = essential; i-- > 0;) {
+            if (score + boundUpTo[i] <= threshold())
+                break;
+            Cursor& cursor = cursors[i];
+            auto from = cursor.postings->begin() + cursor.pos;
+            cursor.pos = lower_bound(from, cursor.postings->end(), doc,
+                                     [](const Posting& p, int d) { return p.doc < d; }) -
+                         cursor.postings->begin();
+            if (cursor.pos < cursor.postings->size() && (*cursor.postings)[cursor.pos].doc == doc)
+                score += scoreAt(cursor, doc);
+        }
+
+        pair<double, int> hit(score, doc);
+        if ((int)heap.size() < k) {
+            heap.push_back(hit);
+            push_heap(heap.begin(), heap.end(), better);
+        } else if (better(hit, heap.front())) {
+            pop_heap(heap.begin(), heap.end(), better);
+            heap.back() = hit;
+            push_heap(heap.begin(), heap.end(), better);
+        }
+    }
+}
+
+vector<SearchHit> FullTextIndex::search(const string& query, int k) const {
+    vector<SearchHit> hits;
+    if (k <= 0 || liveDocs == 0)
+        return hits;
+
+    vector<string> terms = tokenize(query);
+    sort(terms.begin(), terms.end());
+    terms.erase(unique(terms.begin(), terms.end()), terms.end());
+
+    double averageLength = max(1.0, (double)totalLength / liveDocs);
+    vector<pair<double, int>> heap;
+    for (const Segment& segment : sealed)
+        searchSegment(segment, terms, averageLength, k, heap);
+    searchSegment(open, terms, averageLength, k, heap);
+
+    sort(heap.begin(), heap.end(), [](const pair<double, int>& a, const pair<double, int>& b) {
+        return a.first > b.first || (a.first == b.first && a.second < b.second);
+    });
+    for (const auto& hit : heap)
+        hits.push_back({docKey[hit.second], hit.first});
+    return hits;
+}
+
+int FullTextIndex::size() const {
+    return liveDocs;
+}
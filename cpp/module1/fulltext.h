@@ -0,0 +1,90 @@
+#ifndef FULLTEXT_H
+#define FULLTEXT_H
+
+#include <string>
+#include <unordered_map>
+#include <vector>
+using namespace std;
+
+struct SearchHit {
+    string key;    // lower-cased title
+    double score;
+};
+
+// Inverted index over snippet titles and code, ranked with BM25.
+//
+// Each snippet is one document; its title and code are split into words
+// (see tokenize) and a title word counts TITLE_WEIGHT times. Documents go
+// into an open segment whose posting lists are appended to, so an added
+// snippet is searchable at once. The open segment is sealed after
+// SEGMENT_DOCS documents, and sealed segments of similar size are merged,
+// so there are O(log n) of them. A replaced or removed snippet is only
+// marked dead; its postings are dropped when its segment is next merged.
+// As in Lucene, document frequencies count those dead postings until then.
+// Doc ids are not reused: once dead ids outnumber live ones, all segments
+// are merged into one and the live documents renumbered from 0.
+//
+// search() scores one segment at a time with MaxScore: the lists are ordered
+// by the most they can add to a score, and once the k-th best score so far
+// exceeds what the weakest lists can add together, documents found only in
+// those lists are skipped without being scored.
+class FullTextIndex {
+private:
+    static const int TITLE_WEIGHT = 3;
+    static const int SEGMENT_DOCS = 1024;
+
+    struct Posting {
+        int doc;
+        int tf;  // title occurrences * TITLE_WEIGHT + code occurrences
+    };
+
+    struct PostingList {
+        vector<Posting> postings;  // ascending doc
+        int maxTf = 0;
+        int minLength = 0;  // shortest document in the list
+    };
+
+    struct Segment {
+        unordered_map<string, PostingList> terms;
+        int firstDoc = 0;  // ids firstDoc..endDoc-1 (endDoc set when sealed)
+        int endDoc = 0;
+        int docs = 0;      // those not yet dropped by a merge, live or dead
+    };
+
+    vector<Segment> sealed;  // oldest first
+    Segment open;
+    vector<string> docKey;   // doc id -> key, "" once dead
+    vector<int> docLength;
+    unordered_map<string, int> docOf;      // key -> live doc id
+    unordered_map<string, int> postingsOf; // term -> postings in all segments
+    int indexedDocs;   // live and not yet merged away
+    long long totalLength;  // of live documents
+    int liveDocs;
+
+    double idf(const string& term) const;
+    double termScore(double idf, int tf, int length, double averageLength) const;
+    void seal();
+    void merge(Segment& older, Segment& newer);
+    void renumber();
+    void searchSegment(const Segment& segment, const vector<string>& terms, double averageLength,
+                       int k, vector<pair<double, int>>& heap) const;
+
+public:
+    FullTextIndex();
+
+    // Lower-cased words of letters, digits and '_'; an identifier also yields
+    // its camelCase and snake_case parts ("parseHTTPHeader_v2" -> parse, http,
+    // header, v2 and parsehttpheader_v2). One-character words are dropped.
+    static vector<string> tokenize(const string& text);
+
+    // Adds the snippet, replacing an earlier version under the same key
+    void put(const string& key, const string& title, const string& code);
+    void remove(const string& key);
+
+    // Up to k live snippets, best first; of equal scores, the one indexed first
+    vector<SearchHit> search(const string& query, int k) const;
+
+    int size() const;
+};
+
+#endif
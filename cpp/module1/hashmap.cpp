@@ -8,12 +8,13 @@ Node::Node(string k, string v) {
 }
 
 HashMap::HashMap() {
-    for (int i = 0; i < SIZE; i++)
-        table[i] = nullptr;
+    size = INITIAL_SIZE;
+    count = 0;
+    table = new Node*[size]();
 }
 
 HashMap::~HashMap() {
-    for (int i = 0; i < SIZE; i++) {
+    for (int i = 0; i < size; i++) {
         Node* curr = table[i];
         while (curr) {
             Node* temp = curr;
@@ -21,16 +22,39 @@ HashMap::~HashMap() {
             delete temp;
         }
     }
+    delete[] table;
 }
 
-int HashMap::hash(string key) {
-    int hashVal = 0;
-    for (char c : key)
-        hashVal = (hashVal + c) % SIZE;
-    return hashVal;
+// FNV-1a: unlike a plain sum of characters it does not send anagrams and
+// similar titles ("sort 1", "sort 2", ...) to neighbouring buckets
+int HashMap::hash(const string& key) const {
+    unsigned int hashVal = 2166136261u;
+    for (unsigned char c : key) {
+        hashVal ^= c;
+        hashVal *= 16777619u;
+    }
+    return (int)(hashVal & (unsigned int)(size - 1));
+}
+
+void HashMap::grow() {
+    Node** old = table;
+    int oldSize = size;
+    size *= 2;
+    table = new Node*[size]();
+    for (int i = 0; i < oldSize; i++) {
+        Node* curr = old[i];
+        while (curr) {
+            Node* next = curr->next;
+            int idx = hash(curr->key);
+            curr->next = table[idx];
+            table[idx] = curr;
+            curr = next;
+        }
+    }
+    delete[] old;
 }
 
-bool HashMap::contains(string key) {
+bool HashMap::contains(const string& key) {
     int idx = hash(key);
     Node* curr = table[idx];
     while (curr) {
@@ -40,7 +64,7 @@ bool HashMap::contains(string key) {
     return false;
 }
 
-void HashMap::insert(string key, string value) {
+void HashMap::insert(const string& key, const string& value) {
     int idx = hash(key);
     Node* curr = table[idx];
 
@@ -55,9 +79,11 @@ void HashMap::insert(string key, string value) {
     Node* newNode = new Node(key, value);
     newNode->next = table[idx];
     table[idx] = newNode;
+    if (++count > size)
+        grow();
 }
 
-string HashMap::find(string key) {
+string HashMap::find(const string& key) {
     int idx = hash(key);
     Node* curr = table[idx];
     while (curr) {
@@ -67,7 +93,7 @@ string HashMap::find(string key) {
     return "";
 }
 
-void HashMap::removeKey(string key) {
+void HashMap::removeKey(const string& key) {
     int idx = hash(key);
     Node* curr = table[idx];
     Node* prev = nullptr;
@@ -77,6 +103,7 @@ void HashMap::removeKey(string key) {
             if (prev) prev->next = curr->next;
             else table[idx] = curr->next;
             delete curr;
+            count--;
             return;
         }
         prev = curr;
@@ -12,20 +12,28 @@ struct Node {
     Node(string k, string v);
 };
 
+// Separate chaining; the table doubles once it holds more keys than buckets,
+// so chains stay O(1) long however many snippets are loaded.
 class HashMap {
 private:
-    static const int SIZE = 100;
-    Node* table[SIZE];
-    int hash(string key);
+    static const int INITIAL_SIZE = 128;
+    Node** table;
+    int size;   // buckets, always a power of two
+    int count;  // keys
+    int hash(const string& key) const;
+    void grow();
 
 public:
     HashMap();
     ~HashMap();
 
-    void insert(string key, string value);
-    string find(string key);
-    bool contains(string key);
-    void removeKey(string key);
+    HashMap(const HashMap&) = delete;
+    HashMap& operator=(const HashMap&) = delete;
+
+    void insert(const string& key, const string& value);
+    string find(const string& key);
+    bool contains(const string& key);
+    void removeKey(const string& key);
 };
 
 #endif
@@ -5,12 +5,31 @@
 #include <algorithm>
 #include <vector>
 #include <map>
+#include <chrono>
+#include <atomic>
+#include <condition_variable>
+#include <mutex>
+#include <thread>
 #include <cstdio> // for rename, remove
+#include <cstdlib>
+#ifdef _WIN32
+#include <io.h>
+#include <fcntl.h>
+#else
+#include <unistd.h>
+#endif
+#include "fulltext.h"
 #include "hashmap.h"
 #include "trie.h"
+#include "trigram.h"
+#include "wal.h"
 
 using namespace std;
 
+static const char *STORE_FILE = "snippets_large.json";
+static const char *WAL_BASE = "snippets_large.wal";
+static const int SEARCH_RESULTS = 10;
+
 // ================= DATA STRUCTURES =================
 struct Snippet
 {
@@ -156,6 +175,22 @@ bool saveJsonSafe(const string &filename, const map<string, Snippet> &data)
     }
     out << "}\n";
     out.close();
+    if (!out)
+        return false;
+
+    // The temp file must be on disk before it replaces the JSON: compaction
+    // deletes the write-ahead log right after this returns
+    FILE *written = fopen(temp.c_str(), "r+b");
+    if (!written)
+        return false;
+#ifdef _WIN32
+    bool synced = _commit(_fileno(written)) == 0;
+#else
+    bool synced = fsync(fileno(written)) == 0;
+#endif
+    fclose(written);
+    if (!synced)
+        return false;
 
     // backup old file
     remove(backup.c_str());
@@ -166,47 +201,171 @@ bool saveJsonSafe(const string &filename, const map<string, Snippet> &data)
     return true;
 }
 
-// ================= MAIN =================
-int main()
+// ================= SNIPPET STORE =================
+// Everything the backend keeps in memory between commands
+struct SnippetStore
 {
     HashMap snippets;
     Trie index;
-    map<string, Snippet> snippetData;
+    FullTextIndex text;
+    TrigramIndex titles;
+    map<string, Snippet> data;
+};
 
-    // -------- LOAD JSON SAFELY --------
-    if (!loadJson("snippets_large.json", snippetData))
+void indexSnippet(SnippetStore &store, const string &lowerKey)
+{
+    const Snippet &s = store.data[lowerKey];
+    store.snippets.insert(lowerKey, "Language: " + s.language + "\n\n" + s.code);
+    store.index.insert(lowerKey);
+    store.text.put(lowerKey, s.originalKey, s.code);
+    store.titles.insert(lowerKey);
+}
+
+void putSnippet(SnippetStore &store, const string &lowerKey, const Snippet &snippet)
+{
+    store.data[lowerKey] = snippet;
+    indexSnippet(store, lowerKey);
+}
+
+void removeSnippet(SnippetStore &store, const string &lowerKey)
+{
+    store.data.erase(lowerKey);
+    store.snippets.removeKey(lowerKey);
+    store.text.remove(lowerKey);
+    store.titles.remove(lowerKey);
+}
+
+// Loads the JSON, then replays the write-ahead log over it: edits that were
+// acknowledged but not yet compacted into the JSON are applied again
+bool loadStore(const string &filename, SnippetStore &store, WriteAheadLog &wal)
+{
+    if (!loadJson(filename, store.data))
+        return false;
+
+    // Load to memory (using lowercase keys for case-insensitive search)
+    for (auto &e : store.data)
+        indexSnippet(store, e.first);
+
+    return wal.open([&store](const WalRecord &record)
     {
-        ofstream out("output.txt");
-        out << "ERROR: Failed to load JSON. Data preserved.";
-        return 1;
+        if (record.op == 'P')
+            putSnippet(store, record.key, {record.language, record.code, record.title});
+        else
+            removeSnippet(store, record.key);
+    });
+}
+
+// ================= COMMANDS =================
+// A title must survive the JSON writer (which does not escape keys) and the
+// "COMMAND|TITLE|LANGUAGE" header of later commands
+bool validTitle(const string &title)
+{
+    return !title.empty() && title.find_first_of("\"\\|\r\n") == string::npos;
+}
+
+// Bulk import, all or nothing: after "IMPORT|<count>" come <count> records of
+//   "<title bytes> <language bytes> <code bytes>\n" + title + language + code
+// Every record is checked before any is applied, and the batch is logged as
+// one write-ahead record, so a 100k-snippet import costs one fsync.
+string importSnippets(SnippetStore &store, istream &in, size_t count, vector<WalRecord> &changes)
+{
+    vector<WalRecord> batch;
+    batch.reserve(count);
+    string sizes;
+    while (batch.size() < count && getline(in, sizes))
+    {
+        size_t titleBytes = 0, languageBytes = 0, codeBytes = 0;
+        stringstream ss(sizes);
+        if (!(ss >> titleBytes >> languageBytes >> codeBytes))
+            break;
+        string fields(titleBytes + languageBytes + codeBytes, '\0');
+        if (!fields.empty() && !in.read(&fields[0], fields.size()))
+            break;
+
+        string title = trim(fields.substr(0, titleBytes));
+        string language = trim(fields.substr(titleBytes, languageBytes));
+        string code = trim(fields.substr(titleBytes + languageBytes));
+        if (!validTitle(title) || code.empty())
+            return "ERROR: Invalid import record " + to_string(batch.size() + 1) + "; nothing imported";
+        batch.push_back({'P', toLower(title), title, language.empty() ? "Unknown" : language, code});
     }
+    if (batch.size() != count)
+        return "ERROR: Import truncated after " + to_string(batch.size()) + " of " + to_string(count) +
+               " records; nothing imported";
 
-    // Load to memory (using lowercase keys for case-insensitive search)
-    map<string, string> lowerToOriginal; // Map lowercase to original case for lookup
-    for (auto &e : snippetData)
+    for (const WalRecord &record : batch)
+        putSnippet(store, record.key, {record.language, record.code, record.title});
+    changes.insert(changes.end(), batch.begin(), batch.end());
+    return "SNIPPETS IMPORTED: " + to_string(count);
+}
+
+// The first match in full, then every match by title (with its note, if any)
+string describeMatches(SnippetStore &store, const vector<string> &keys, const vector<string> &notes,
+                       const string &heading)
+{
+    const Snippet &best = store.data[keys[0]];
+    ostringstream out;
+    out << "Best match: " << best.originalKey << "\nLanguage: " << best.language << "\n\n" << best.code;
+    if (keys.size() > 1)
     {
-        string lowerKey = toLower(e.second.originalKey);
-        lowerToOriginal[lowerKey] = e.first;
-        snippets.insert(lowerKey, "Language: " + e.second.language + "\n\n" + e.second.code);
-        index.insert(lowerKey);
+        out << "\n\n" << heading;
+        for (size_t i = 0; i < keys.size(); i++)
+        {
+            out << "\n  " << i + 1 << ". " << store.data[keys[i]].originalKey;
+            if (!notes.empty())
+                out << " (" << notes[i] << ")";
+        }
     }
+    return out.str();
+}
 
-    // -------- READ INPUT --------
-    ifstream in("input.txt");
-    ofstream out("output.txt");
-    if (!in.is_open())
+// Full-text matches, best first; "" when no snippet contains a word of the query
+string rankedSearch(SnippetStore &store, const string &query)
+{
+    vector<SearchHit> hits = store.text.search(query, SEARCH_RESULTS);
+    if (hits.empty())
+        return "";
+
+    vector<string> keys, scores;
+    char score[32];
+    for (const SearchHit &hit : hits)
     {
-        out << "ERROR: input.txt missing";
-        return 1;
+        snprintf(score, sizeof(score), "%.3f", hit.score);
+        keys.push_back(hit.key);
+        scores.push_back(score);
     }
+    return describeMatches(store, keys, scores, "Top " + to_string(hits.size()) + " matches:");
+}
+
+// Titles containing the fragment, in alphabetical order; "" when there are none
+string substringSearch(SnippetStore &store, const string &fragment)
+{
+    vector<string> keys = store.titles.find(fragment);
+    if (keys.empty())
+        return "";
+
+    size_t total = keys.size();
+    size_t shown = min(total, (size_t)SEARCH_RESULTS);
+    partial_sort(keys.begin(), keys.begin() + shown, keys.end());
+    keys.resize(shown);
+    string heading = to_string(total) + (total == 1 ? " title contains" : " titles contain") + " \"" + fragment + "\"";
+    if (total > shown)
+        heading += ", first " + to_string(shown);
+    return describeMatches(store, keys, {}, heading + ":");
+}
+
+// request: "COMMAND|TITLE|LANGUAGE" on the first line, code on the following lines.
+// A mutation is applied in memory and described in `changes` for the log.
+string executeCommand(SnippetStore &store, const string &request, vector<WalRecord> &changes)
+{
+
+    stringstream in(request);
+    ostringstream out;
 
     string header;
     getline(in, header);
-    if (header.empty())
-    {
-        out << "NO COMMAND";
-        return 0;
-    }
+    if (trim(header).empty())
+        return "NO COMMAND";
 
     string cmd, title, lang = "Unknown";
     stringstream ss(header);
@@ -218,6 +377,14 @@ int main()
     title = trim(title);
     lang = trim(lang);
 
+    if (cmd == "import")
+    {
+        long long count = atoll(title.c_str());
+        if (count <= 0)
+            return "ERROR: Import needs a record count";
+        return importSnippets(store, in, (size_t)count, changes);
+    }
+
     string code, line;
     while (getline(in, line))
     {
@@ -227,16 +394,15 @@ int main()
     }
     code = trim(code); // Trim code to remove trailing whitespace
 
-    bool modified = false;
     string titleLower = toLower(title);
+    map<string, Snippet> &snippetData = store.data;
 
-    // -------- COMMANDS --------
     if (cmd == "add")
     {
         if (!title.empty() && !code.empty())
         {
-            snippetData[titleLower] = {lang, code, title};
-            modified = true;
+            putSnippet(store, titleLower, {lang, code, title});
+            changes.push_back({'P', titleLower, title, lang, code});
             out << "SNIPPET ADDED";
         }
         else if (title.empty())
@@ -252,10 +418,12 @@ int main()
     {
         if (snippetData.count(titleLower) > 0)
         {
-            snippetData[titleLower].code = code;
+            Snippet updated = snippetData[titleLower];
+            updated.code = code;
             if (lang != "Unknown")
-                snippetData[titleLower].language = lang;
-            modified = true;
+                updated.language = lang;
+            putSnippet(store, titleLower, updated);
+            changes.push_back({'P', titleLower, updated.originalKey, updated.language, updated.code});
             out << "SNIPPET UPDATED";
         }
         else
@@ -267,8 +435,8 @@ int main()
     {
         if (snippetData.count(titleLower) > 0)
         {
-            snippetData.erase(titleLower);
-            modified = true;
+            removeSnippet(store, titleLower);
+            changes.push_back({'D', titleLower, "", "", ""});
             out << "SNIPPET DELETED";
         }
         else
@@ -284,29 +452,22 @@ int main()
         }
         else
         {
-            string result = snippets.find(titleLower);
+            string result = store.snippets.find(titleLower);
             if (!result.empty())
             {
                 out << result;
             }
+            else if (!(result = rankedSearch(store, title)).empty())
+            {
+                out << result;
+            }
+            else if (!(result = substringSearch(store, titleLower)).empty())
+            {
+                out << result;
+            }
             else
             {
-                // Try substring search if exact match fails
-                bool found = false;
-                for (auto &e : snippetData)
-                {
-                    if (toLower(e.second.originalKey).find(titleLower) != string::npos)
-                    {
-                        out << "Language: " << e.second.language << "\n\n"
-                            << e.second.code;
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found)
-                {
-                    out << "NOT FOUND";
-                }
+                out << "NOT FOUND";
             }
         }
     }
@@ -315,13 +476,170 @@ int main()
         out << "ERROR: Unknown command '" << cmd << "'";
     }
 
+    return out.str();
+}
+
+// ================= COMPACTION =================
+// Edits are acknowledged once their log record is fsynced; rewriting the JSON
+// is left to this background worker. It folds the log in when the log has
+// grown to half the JSON's size (so each edit pays O(1) amortized), or once
+// writes have paused for IDLE so that readers of the JSON (the Java store
+// watcher, module3) see edits shortly after a burst rather than never.
+struct Compactor
+{
+    static constexpr long long MIN_BYTES = 1 << 20;
+    static constexpr chrono::milliseconds IDLE{2000};
+
+    SnippetStore &store;
+    WriteAheadLog &wal;
+    mutex &storeLock; // guards store and wal
+    condition_variable wake;
+    chrono::steady_clock::time_point lastWrite;
+    long long edits = 0; // store version, under storeLock
+    bool stopping = false;
+    thread worker;
+
+    // Every JSON write goes through writeJson, under saveLock (taken after
+    // storeLock, never the other way round)
+    mutex saveLock;
+    long long savedEdits = 0;          // version the JSON on disk holds
+    atomic<long long> jsonBytes{0};
+
+    Compactor(SnippetStore &s, WriteAheadLog &w, mutex &m) : store(s), wal(w), storeLock(m)
+    {
+        ifstream json(STORE_FILE, ios::binary | ios::ate);
+        jsonBytes = json ? (long long)json.tellg() : 0;
+        worker = thread(&Compactor::run, this);
+    }
+
+    // Stops the worker and folds in whatever is left, so the JSON is current on exit
+    ~Compactor()
+    {
+        {
+            lock_guard<mutex> guard(storeLock);
+            stopping = true;
+        }
+        wake.notify_all();
+        worker.join();
+        unique_lock<mutex> guard(storeLock);
+        if (wal.pendingBytes() > 0)
+            compact(guard);
+    }
+
+    // Called with storeLock held after a record was appended
+    void noteWrite()
+    {
+        edits++;
+        lastWrite = chrono::steady_clock::now();
+        wake.notify_one();
+    }
+
+    // Called with storeLock held when an edit could not be logged: the JSON
+    // is rewritten at once, and the log segments it covers are dropped so
+    // their older records are not replayed over it
+    bool saveNow()
+    {
+        edits++;
+        return writeJson(store.data, edits, wal.rotate());
+    }
+
+    void run()
+    {
+        unique_lock<mutex> guard(storeLock);
+        while (!stopping)
+        {
+            if (wal.pendingBytes() == 0)
+            {
+                wake.wait(guard);
+                continue;
+            }
+            if (wal.pendingBytes() < max(MIN_BYTES, jsonBytes / 2))
+            {
+                wake.wait_until(guard, lastWrite + IDLE);
+                if (stopping || chrono::steady_clock::now() < lastWrite + IDLE)
+                    continue;
+            }
+            compact(guard);
+        }
+    }
+
+    // Copies the store and starts a new log segment under the lock, then
+    // writes the JSON without it; requests keep being served meanwhile
+    void compact(unique_lock<mutex> &guard)
+    {
+        map<string, Snippet> copy = store.data;
+        long long version = edits;
+        long long closed = wal.rotate();
+        guard.unlock();
+
+        if (!writeJson(copy, version, closed))
+            cerr << "WARNING: Compaction failed; edits stay in the write-ahead log" << endl;
+        guard.lock();
+    }
+
+    // Writes `data` (the store as of `version`) unless the JSON already holds
+    // a later version, then drops the log segments up to `closed`, which were
+    // closed when `data` was taken and are covered either way
+    bool writeJson(const map<string, Snippet> &data, long long version, long long closed)
+    {
+        lock_guard<mutex> guard(saveLock);
+        if (version > savedEdits)
+        {
+            if (!saveJsonSafe(STORE_FILE, data))
+                return false;
+            savedEdits = version;
+            ifstream json(STORE_FILE, ios::binary | ios::ate);
+            if (json)
+                jsonBytes = (long long)json.tellg();
+        }
+        wal.dropThrough(closed);
+        return true;
+    }
+};
+
+// ================= FILE HANDSHAKE =================
+// One command per launch: input.txt in, output.txt out
+int runFileCommand()
+{
+    SnippetStore store;
+    WriteAheadLog wal(WAL_BASE);
+
+    // -------- LOAD JSON SAFELY --------
+    if (!loadStore(STORE_FILE, store, wal))
+    {
+        ofstream out("output.txt");
+        out << "ERROR: Failed to load JSON. Data preserved.";
+        return 1;
+    }
+
+    // -------- READ INPUT --------
+    ifstream in("input.txt");
+    ofstream out("output.txt");
+    if (!in.is_open())
+    {
+        out << "ERROR: input.txt missing";
+        return 1;
+    }
+
+    stringstream request;
+    request << in.rdbuf();
     in.close();
-    out.close();
+
+    vector<WalRecord> changes;
+    string result = executeCommand(store, request.str(), changes);
 
     // -------- SAVE ONLY IF MODIFIED --------
-    if (modified)
+    // Logged first, so the edit survives even if the rewrite below is cut short
+    if (!changes.empty() && !wal.appendAll(changes) && !saveJsonSafe(STORE_FILE, store.data))
+        result = "ERROR: Failed to save snippets_large.json";
+    out << result;
+    out.close();
+
+    if (!changes.empty() || wal.pendingBytes() > 0)
     {
-        saveJsonSafe("snippets_large.json", snippetData);
+        long long closed = wal.rotate();
+        if (saveJsonSafe(STORE_FILE, store.data))
+            wal.dropThrough(closed);
     }
 
     // Clear input safely
@@ -330,3 +648,74 @@ int main()
 
     return 0;
 }
+
+// ================= SERVE MODE =================
+// Long-lived mode: "<id> <length>\n" + request in, "<id> <status> <length>\n" + output back.
+// Status is 0 on success and 1 when the output is an ERROR line.
+int serve()
+{
+#ifdef _WIN32
+    _setmode(_fileno(stdin), _O_BINARY);
+    _setmode(_fileno(stdout), _O_BINARY);
+#endif
+
+    SnippetStore store;
+    WriteAheadLog wal(WAL_BASE);
+    bool loaded = loadStore(STORE_FILE, store, wal);
+    if (!loaded)
+        cerr << "ERROR: Failed to load JSON. Data preserved." << endl;
+
+    mutex storeLock;
+    Compactor compactor(store, wal, storeLock);
+
+    string header;
+    while (getline(cin, header))
+    {
+        if (header.empty())
+            continue;
+
+        string id;
+        size_t length = 0;
+        stringstream hs(header);
+        hs >> id >> length;
+
+        string request(length, '\0');
+        if (length > 0 && !cin.read(&request[0], length))
+            break;
+
+        string body;
+        if (!loaded)
+        {
+            body = "ERROR: Failed to load JSON. Data preserved.";
+        }
+        else
+        {
+            lock_guard<mutex> guard(storeLock);
+            vector<WalRecord> changes;
+            body = executeCommand(store, request, changes);
+            // Persist before answering so an acknowledged write is on disk: one
+            // fsynced log record, or the whole JSON if the log cannot be written
+            if (!changes.empty())
+            {
+                if (wal.appendAll(changes))
+                    compactor.noteWrite();
+                else if (!compactor.saveNow())
+                    body = "ERROR: Failed to save snippets_large.json";
+            }
+        }
+
+        int status = body.compare(0, 6, "ERROR:") == 0 ? 1 : 0;
+        cout << id << " " << status << " " << body.size() << "\n";
+        cout.write(body.data(), body.size());
+        cout.flush();
+    }
+    return 0;
+}
+
+// ================= MAIN =================
+int main(int argc, char *argv[])
+{
+    if (argc > 1 && string(argv[1]) == "serve")
+        return serve();
+    return runFileCommand();
+}
@@ -0,0 +1,141 @@
+// FullTextIndex under churn: replacing and removing snippets leaves dead
+// postings behind, seals and merges segments, and renumbers the doc ids.
+// Throughout, MaxScore's top k must be the start of the exhaustive ranking
+// and every live matching snippet must be found. Once the dead postings are
+// purged, results must be those of an index built fresh from the same
+// snippets.
+#include "../fulltext.h"
+#include "check.h"
+#include <algorithm>
+#include <cmath>
+#include <map>
+#include <random>
+#include <set>
+
+static const char* WORDS[] = {"sort", "quick", "merge", "heap", "tree", "graph", "search", "binary",
+                              "node", "edge", "queue", "stack", "hash", "table", "insert", "remove"};
+static const int WORD_COUNT = sizeof(WORDS) / sizeof(WORDS[0]);
+
+static string randomWords(mt19937& rng, int count) {
+    string text;
+    for (int i = 0; i < count; i++)
+        text += string(WORDS[rng() % WORD_COUNT]) + " ";
+    return text;
+}
+
+struct Doc {
+    string title;
+    string code;
+};
+
+// Every live snippet sharing a word with the query
+static set<string> matching(const map<string, Doc>& docs, const string& query) {
+    vector<string> terms = FullTextIndex::tokenize(query);
+    set<string> keys;
+    for (const auto& doc : docs) {
+        vector<string> words = FullTextIndex::tokenize(doc.second.title);
+        vector<string> code = FullTextIndex::tokenize(doc.second.code);
+        words.insert(words.end(), code.begin(), code.end());
+        for (const string& term : terms)
+            if (find(words.begin(), words.end(), term) != words.end())
+                keys.insert(doc.first);
+    }
+    return keys;
+}
+
+// MaxScore adds a document's term scores in another order than a full scan
+static bool close(double a, double b) {
+    return fabs(a - b) <= 1e-9 * max(1.0, fabs(a));
+}
+
+static void checkAgainstScan(const FullTextIndex& index, const map<string, Doc>& docs, const string& query) {
+    vector<SearchHit> all = index.search(query, (int)docs.size() + 1);
+    set<string> found;
+    for (size_t i = 0; i < all.size(); i++) {
+        found.insert(all[i].key);
+        CHECK(all[i].score > 0);
+        CHECK(i == 0 || all[i - 1].score >= all[i].score);
+    }
+    CHECK(found.size() == all.size());
+    CHECK(found == matching(docs, query));
+
+    // The same scores rank by rank; a key may only differ within a tie
+    map<string, double> scoreOf;
+    for (const SearchHit& hit : all)
+        scoreOf[hit.key] = hit.score;
+    for (int k : {1, 3, 10}) {
+        vector<SearchHit> top = index.search(query, k);
+        CHECK(top.size() == min((size_t)k, all.size()));
+        for (size_t i = 0; i < top.size() && i < all.size(); i++) {
+            CHECK(close(top[i].score, all[i].score));
+            CHECK(top[i].key == all[i].key || close(scoreOf[top[i].key], all[i].score));
+        }
+    }
+}
+
+static bool sameHits(const vector<SearchHit>& a, const vector<SearchHit>& b) {
+    if (a.size() != b.size())
+        return false;
+    for (size_t i = 0; i < a.size(); i++)
+        if (a[i].key != b[i].key || !close(a[i].score, b[i].score))
+            return false;
+    return true;
+}
+
+int main() {
+    mt19937 rng(7);
+    const int LIVE = 300;
+    const vector<string> queries = {"sort", "quick sort", "binary search tree", "graph edge node",
+                                    "hash table insert", "stack queue", "missing"};
+
+    FullTextIndex index;
+    map<string, Doc> docs;
+    auto key = [](int i) { return "snippet " + to_string(i); };
+
+    // Many rounds of edits: enough dead ids to seal, merge and renumber
+    for (int round = 0; round < 12; round++) {
+        for (int i = 0; i < LIVE; i++) {
+            Doc doc = {key(i) + " " + randomWords(rng, 2), randomWords(rng, 5 + rng() % 20)};
+            index.put(key(i), doc.title, doc.code);
+            docs[key(i)] = doc;
+        }
+        for (int i = 0; i < 40; i++) {
+            string victim = key(rng() % LIVE);
+            index.remove(victim);
+            docs.erase(victim);
+        }
+        CHECK(index.size() == (int)docs.size());
+        for (const string& query : queries)
+            checkAgainstScan(index, docs, query);
+    }
+
+    // The final versions, in the order a fresh index will receive them
+    vector<pair<string, Doc>> latest;
+    for (int i = 0; i < LIVE; i++) {
+        Doc doc = {key(i) + " " + randomWords(rng, 2), randomWords(rng, 5 + rng() % 20)};
+        index.put(key(i), doc.title, doc.code);
+        latest.push_back(make_pair(key(i), doc));
+    }
+    docs = map<string, Doc>(latest.begin(), latest.end());
+    for (const string& query : queries)
+        checkAgainstScan(index, docs, query);
+
+    FullTextIndex fresh;
+    for (const auto& doc : latest)
+        fresh.put(doc.first, doc.second.title, doc.second.code);
+
+    // Scratch snippets with words no query uses add dead ids one at a time
+    // until the index purges them; from then on it must answer like the
+    // fresh one, scores included
+    bool purged = false;
+    for (int i = 0; i < 20000 && !purged; i++) {
+        index.put("scratch", "scratch", "zzz");
+        index.remove("scratch");
+        purged = true;
+        for (const string& query : queries)
+            purged = purged && sameHits(index.search(query, LIVE), fresh.search(query, LIVE));
+    }
+    CHECK(purged);
+    CHECK(index.size() == fresh.size());
+    return finish("fulltext_test");
+}
@@ -0,0 +1,65 @@
+// TrigramIndex::find against a scan of every live string, through enough
+// inserts and removals that the index renumbers its ids several times.
+#include "../trigram.h"
+#include "check.h"
+#include <algorithm>
+#include <random>
+
+static string randomText(mt19937& rng, size_t minLength, size_t maxLength) {
+    // A small alphabet, so fragments match often and trigrams are shared
+    static const string alphabet = "abcd ";
+    size_t length = minLength + rng() % (maxLength - minLength + 1);
+    string text;
+    for (size_t i = 0; i < length; i++)
+        text += alphabet[rng() % alphabet.size()];
+    return text;
+}
+
+static vector<string> scan(const vector<string>& live, const string& fragment) {
+    vector<string> matches;
+    if (fragment.empty())
+        return matches;
+    for (const string& text : live)
+        if (text.find(fragment) != string::npos)
+            matches.push_back(text);
+    return matches;
+}
+
+int main() {
+    mt19937 rng(20240611);
+    TrigramIndex index;
+    vector<string> live;  // insertion order, as find() reports
+
+    for (int step = 0; step < 20000; step++) {
+        if (live.empty() || rng() % 3 != 0) {
+            string text = randomText(rng, 1, 14);
+            index.insert(text);
+            if (find(live.begin(), live.end(), text) == live.end())
+                live.push_back(text);
+        } else {
+            size_t victim = rng() % live.size();
+            index.remove(live[victim]);
+            live.erase(live.begin() + victim);
+        }
+        if (step % 97 == 0) {
+            for (int q = 0; q < 8; q++) {
+                string fragment = randomText(rng, 1, 6);
+                CHECK(index.find(fragment) == scan(live, fragment));
+            }
+        }
+    }
+
+    // Removing most strings forces a compaction; order must survive it
+    while (live.size() > 10) {
+        index.remove(live.front());
+        live.erase(live.begin());
+    }
+    for (const char* fragment : {"a", "ab", "abc", "abcd", "d a", " "})
+        CHECK(index.find(fragment) == scan(live, fragment));
+
+    CHECK(index.find("").empty());
+    index.remove("not indexed");
+    index.clear();
+    CHECK(index.find("a").empty());
+    return finish("trigram_test");
+}
@@ -0,0 +1,142 @@
+// A crash can leave a half-written frame at the end of a segment. Replay must
+// apply every intact record before it, drop the torn frame (a torn batch as a
+// whole), and cut it off so that later appends are not glued onto it.
+#include "../wal.h"
+#include "check.h"
+#include <filesystem>
+#include <fstream>
+#include <iterator>
+
+namespace fs = std::filesystem;
+
+static WalRecord put(const string& title, const string& code) {
+    WalRecord record;
+    record.op = 'P';
+    record.key = title;
+    record.title = title;
+    record.language = "C++";
+    record.code = code;
+    return record;
+}
+
+static WalRecord del(const string& key) {
+    WalRecord record;
+    record.op = 'D';
+    record.key = key;
+    return record;
+}
+
+static vector<WalRecord> replay(const string& base) {
+    vector<WalRecord> records;
+    WriteAheadLog wal(base);
+    CHECK(wal.open([&records](const WalRecord& r) { records.push_back(r); }));
+    return records;
+}
+
+static string readAll(const string& path) {
+    ifstream in(path, ios::binary);
+    return string(istreambuf_iterator<char>(in), istreambuf_iterator<char>());
+}
+
+static void appendBytes(const string& path, const string& bytes) {
+    ofstream out(path, ios::binary | ios::app);
+    out.write(bytes.data(), (streamsize)bytes.size());
+}
+
+// The bytes append() would write for these records, taken from a scratch log
+static string framed(const string& dir, const vector<WalRecord>& records) {
+    string base = dir + "/frames.wal";
+    {
+        WriteAheadLog wal(base);
+        wal.open([](const WalRecord&) {});
+        CHECK(wal.appendAll(records));
+    }
+    string bytes = readAll(base + ".1");
+    fs::remove(base + ".1");
+    return bytes;
+}
+
+static void tornRecord(const string& dir) {
+    string base = dir + "/torn.wal";
+    {
+        WriteAheadLog wal(base);
+        CHECK(wal.open([](const WalRecord&) {}));
+        CHECK(wal.append(put("quick sort", "void qs() {}\nint x;")));
+        CHECK(wal.append(del("bubble sort")));
+    }
+    uintmax_t intact = fs::file_size(base + ".1");
+    string frame = framed(dir, {put("heap sort", "void hs() {}")});
+    appendBytes(base + ".1", frame.substr(0, frame.size() / 2));
+
+    vector<WalRecord> records = replay(base);
+    CHECK(records.size() == 2);
+    CHECK(records.size() == 2 && records[0].op == 'P' && records[0].key == "quick sort" &&
+          records[0].code == "void qs() {}\nint x;");
+    CHECK(records.size() == 2 && records[1].op == 'D' && records[1].key == "bubble sort");
+    CHECK(fs::file_size(base + ".1") == intact);
+
+    // The next append starts on a clean frame boundary
+    {
+        WriteAheadLog wal(base);
+        CHECK(wal.open([](const WalRecord&) {}));
+        CHECK(wal.append(put("merge sort", "void ms() {}")));
+    }
+    records = replay(base);
+    CHECK(records.size() == 3 && records[2].key == "merge sort" && records[2].code == "void ms() {}");
+}
+
+static void tornBatch(const string& dir) {
+    string base = dir + "/batch.wal";
+    {
+        WriteAheadLog wal(base);
+        CHECK(wal.open([](const WalRecord&) {}));
+        CHECK(wal.append(put("gcd", "int gcd();")));
+    }
+    string batch = framed(dir, {put("a", "1"), put("b", "2"), del("gcd")});
+    CHECK(batch[0] == 'B');
+    appendBytes(base + ".1", batch.substr(0, batch.size() - 1));  // only the final newline missing
+
+    vector<WalRecord> records = replay(base);
+    CHECK(records.size() == 1 && records[0].key == "gcd");
+}
+
+static void damagedChecksum(const string& dir) {
+    string base = dir + "/damaged.wal";
+    {
+        WriteAheadLog wal(base);
+        CHECK(wal.open([](const WalRecord&) {}));
+        CHECK(wal.append(put("lcm", "int lcm();")));
+    }
+    string frame = framed(dir, {put("fib", "int fib();")});
+    frame[frame.size() - 3] ^= 1;  // a flipped bit in the code
+    appendBytes(base + ".1", frame);
+
+    vector<WalRecord> records = replay(base);
+    CHECK(records.size() == 1 && records[0].key == "lcm");
+}
+
+// Segments replay oldest first, and a torn tail only costs its own segment
+static void segments(const string& dir) {
+    string base = dir + "/rotate.wal";
+    {
+        WriteAheadLog wal(base);
+        CHECK(wal.open([](const WalRecord&) {}));
+        CHECK(wal.append(put("one", "1")));
+        CHECK(wal.rotate() == 1);
+        CHECK(wal.append(put("two", "2")));
+    }
+    appendBytes(base + ".1", "P 40 deadbeef\nhalf");
+
+    vector<WalRecord> records = replay(base);
+    CHECK(records.size() == 2 && records[0].key == "one" && records[1].key == "two");
+}
+
+int main() {
+    string dir = scratchDir("wal");
+    tornRecord(dir);
+    tornBatch(dir);
+    damagedChecksum(dir);
+    segments(dir);
+    fs::remove_all(dir);
+    return finish("wal_test");
+}
@@ -0,0 +1,119 @@
+#include "trigram.h"
+#include <algorithm>
+
+// Length in the top byte, so "ab" and "ab\0" stay apart
+static uint32_t gramAt(const string& text, size_t start, size_t length) {
+    uint32_t gram = (uint32_t)length << 24;
+    for (size_t i = 0; i < length; i++)
+        gram |= (uint32_t)(unsigned char)text[start + i] << (8 * i);
+    return gram;
+}
+
+vector<uint32_t> TrigramIndex::gramsOf(const string& text) {
+    vector<uint32_t> grams;
+    for (size_t start = 0; start < text.size(); start++)
+        for (size_t length = 1; length <= 3 && start + length <= text.size(); length++)
+            grams.push_back(gramAt(text, start, length));
+    sort(grams.begin(), grams.end());
+    grams.erase(unique(grams.begin(), grams.end()), grams.end());
+    return grams;
+}
+
+void TrigramIndex::insert(const string& text) {
+    if (text.empty() || idOf.count(text))
+        return;
+    // Ids only grow, so appending keeps every list sorted
+    int id = (int)texts.size();
+    texts.push_back(text);
+    idOf[text] = id;
+    for (uint32_t gram : gramsOf(text))
+        postings[gram].push_back(id);
+}
+
+void TrigramIndex::remove(const string& text) {
+    auto it = idOf.find(text);
+    if (it == idOf.end())
+        return;
+    int id = it->second;
+    for (uint32_t gram : gramsOf(text)) {
+        auto list = postings.find(gram);
+        vector<int>& ids = list->second;
+        ids.erase(lower_bound(ids.begin(), ids.end(), id));
+        if (ids.empty())
+            postings.erase(list);
+    }
+    texts[id].clear();
+    idOf.erase(it);
+
+    // Ids are not reused, so the slots of removed strings are reclaimed by
+    // renumbering once they are the majority: O(1) amortized per removal
+    if (++removed > 64 && removed * 2 > (int)texts.size())
+        compact();
+}
+
+// Rebuilds the lists with the live strings numbered from 0, in their order
+void TrigramIndex::compact() {
+    vector<string> live;
+    live.reserve(texts.size() - removed);
+    for (string& text : texts)
+        if (!text.empty())
+            live.push_back(std::move(text));
+    clear();
+    for (const string& text : live)
+        insert(text);
+}
+
+vector<string> TrigramIndex::find(const string& fragment) const {
+    vector<string> matches;
+    if (fragment.empty())
+        return matches;
+
+    if (fragment.size() <= 3) {
+        auto it = postings.find(gramAt(fragment, 0, fragment.size()));
+        if (it != postings.end())
+            for (int id : it->second)
+                matches.push_back(texts[id]);
+        return matches;
+    }
+
+    vector<const vector<int>*> lists;
+    for (size_t start = 0; start + 3 <= fragment.size(); start++) {
+        auto it = postings.find(gramAt(fragment, start, 3));
+        if (it == postings.end())
+            return matches;
+        lists.push_back(&it->second);
+    }
+    sort(lists.begin(), lists.end(), [](const vector<int>* a, const vector<int>* b) { return a->size() < b->size(); });
+    lists.erase(unique(lists.begin(), lists.end()), lists.end());
+
+    // Candidates only shrink; each is looked up in the longer lists by
+    // binary search from where the previous one was found
+    vector<int> candidates = *lists[0];
+    for (size_t i = 1; i < lists.size() && !candidates.empty(); i++) {
+        const vector<int>& ids = *lists[i];
+        auto from = ids.begin();
+        size_t kept = 0;
+        for (int id : candidates) {
+            from = lower_bound(from, ids.end(), id);
+            if (from == ids.end())
+                break;
+            if (*from == id)
+                candidates[kept++] = id;
+        }
+        candidates.resize(kept);
+    }
+
+    // Holding every trigram does not make a substring ("abcxbcd" has those
+    // of "abcd"), so each candidate is checked
+    for (int id : candidates)
+        if (texts[id].find(fragment) != string::npos)
+            matches.push_back(texts[id]);
+    return matches;
+}
+
+void TrigramIndex::clear() {
+    postings.clear();
+    idOf.clear();
+    texts.clear();
+    removed = 0;
+}
@@ -0,0 +1,206 @@
+#include "wal.h"
+#include <algorithm>
+#include <cstdlib>
+#include <filesystem>
+#include <fstream>
+#include <iostream>
+#include <sstream>
+#include <vector>
+#ifdef _WIN32
+#include <io.h>
+#else
+#include <unistd.h>
+#endif
+
+namespace fs = std::filesystem;
+
+static bool syncFile(FILE* f) {
+    if (fflush(f) != 0)
+        return false;
+#ifdef _WIN32
+    return _commit(_fileno(f)) == 0;
+#else
+    return fsync(fileno(f)) == 0;
+#endif
+}
+
+// FNV-1a; enough to tell a torn or half-written record from a whole one
+static unsigned long checksum(const string& data) {
+    unsigned long h = 2166136261UL;
+    for (unsigned char c : data) {
+        h ^= c;
+        h = (h * 16777619UL) & 0xffffffffUL;
+    }
+    return h;
+}
+
+WriteAheadLog::WriteAheadLog(const string& b) {
+    base = b;
+    file = nullptr;
+    segment = 0;
+    bytes = 0;
+}
+
+WriteAheadLog::~WriteAheadLog() {
+    if (file)
+        fclose(file);
+}
+
+string WriteAheadLog::segmentPath(long long number) const {
+    return base + "." + to_string(number);
+}
+
+bool WriteAheadLog::open(const function<void(const WalRecord&)>& apply) {
+    fs::path p(base);
+    fs::path dir = p.has_parent_path() ? p.parent_path() : fs::path(".");
+    string prefix = p.filename().string() + ".";
+    vector<long long> numbers;
+    error_code ec;
+    for (const auto& item : fs::directory_iterator(dir, ec)) {
+        string name = item.path().filename().string();
+        if (name.size() <= prefix.size() || name.compare(0, prefix.size(), prefix) != 0)
+            continue;
+        string digits = name.substr(prefix.size());
+        if (digits.find_first_not_of("0123456789") == string::npos)
+            numbers.push_back(atoll(digits.c_str()));
+    }
+    sort(numbers.begin(), numbers.end());
+
+    for (long long number : numbers)
+        replaySegment(segmentPath(number), apply);
+
+    // Everything replayed still has to reach the JSON
+    bytes = 0;
+    for (long long number : numbers)
+        bytes += (long long)fs::file_size(segmentPath(number), ec);
+    return openSegment(numbers.empty() ? 1 : numbers.back());
+}
+
+// Reads one frame; false at the end of the data or at a damaged frame
+static bool readFrame(istream& in, char& op, string& payload) {
+    string header;
+    if (!getline(in, header))
+        return false;
+    size_t length = 0;
+    unsigned long sum = 0;
+    stringstream hs(header);
+    if (!(hs >> op >> length >> hex >> sum) || (op != 'P' && op != 'D' && op != 'B'))
+        return false;
+
+    payload.assign(length, '\0');
+    char end = 0;
+    if ((length > 0 && !in.read(&payload[0], length)) || !in.get(end) || end != '\n')
+        return false;
+    return checksum(payload) == sum;
+}
+
+static WalRecord decodeRecord(char op, const string& payload) {
+    WalRecord record;
+    record.op = op;
+    stringstream ps(payload);
+    getline(ps, record.key);
+    if (op == 'P') {
+        getline(ps, record.title);
+        getline(ps, record.language);
+        record.code = payload.substr(min(payload.size(), (size_t)ps.tellg()));
+    }
+    return record;
+}
+
+static string frame(char op, const string& payload) {
+    char header[64];
+    snprintf(header, sizeof(header), "%c %zu %lx\n", op, payload.size(), checksum(payload));
+    return header + payload + "\n";
+}
+
+static string frame(const WalRecord& record) {
+    string payload = record.key + "\n";
+    if (record.op == 'P')
+        payload += record.title + "\n" + record.language + "\n" + record.code;
+    return frame(record.op, payload);
+}
+
+void WriteAheadLog::replaySegment(const string& path, const function<void(const WalRecord&)>& apply) {
+    ifstream in(path, ios::binary);
+    if (!in)
+        return;
+
+    long long intact = 0;
+    char op = 0;
+    string payload;
+    while (readFrame(in, op, payload)) {
+        if (op == 'B') {
+            // The batch checksum already vouches for the records inside
+            stringstream batch(payload);
+            char inner = 0;
+            string innerPayload;
+            while (readFrame(batch, inner, innerPayload))
+                apply(decodeRecord(inner, innerPayload));
+        } else {
+            apply(decodeRecord(op, payload));
+        }
+        intact = in.tellg();
+    }
+    in.close();
+
+    // Anything after the last intact record was torn by a crash
+    error_code ec;
+    if ((long long)fs::file_size(path, ec) > intact && !ec) {
+        cerr << "WARNING: Dropping torn tail of " << path << endl;
+        fs::resize_file(path, intact, ec);
+    }
+}
+
+bool WriteAheadLog::openSegment(long long number) {
+    FILE* next = fopen(segmentPath(number).c_str(), "ab");
+    if (!next)
+        return false;
+    if (file)
+        fclose(file);
+    file = next;
+    segment = number;
+    return true;
+}
+
+bool WriteAheadLog::write(const string& framed) {
+    if (!file)
+        return false;
+    if (fwrite(framed.data(), 1, framed.size(), file) != framed.size() || !syncFile(file))
+        return false;
+    bytes += (long long)framed.size();
+    return true;
+}
+
+bool WriteAheadLog::append(const WalRecord& record) {
+    return write(frame(record));
+}
+
+bool WriteAheadLog::appendAll(const vector<WalRecord>& records) {
+    if (records.size() == 1)
+        return append(records[0]);
+    string batch;
+    for (const WalRecord& record : records)
+        batch += frame(record);
+    return write(frame('B', batch));
+}
+
+long long WriteAheadLog::rotate() {
+    long long closed = segment;
+    if (openSegment(segment + 1))
+        bytes = 0;
+    else
+        closed = segment - 1;  // keep appending here; nothing may be dropped yet
+    return closed;
+}
+
+void WriteAheadLog::dropThrough(long long number) {
+    error_code ec;
+    for (long long n = number; n >= 1; n--) {
+        if (!fs::remove(segmentPath(n), ec))
+            break;  // older ones went with an earlier compaction
+    }
+}
+
+long long WriteAheadLog::pendingBytes() const {
+    return bytes;
+}
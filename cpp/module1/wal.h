@@ -0,0 +1,62 @@
+#ifndef WAL_H
+#define WAL_H
+
+#include <cstdio>
+#include <functional>
+#include <string>
+#include <vector>
+using namespace std;
+
+// One logged mutation. A put carries the whole snippet, so replaying a
+// record twice, or over a JSON file that already contains it, is harmless.
+struct WalRecord {
+    char op;          // 'P' = put, 'D' = delete
+    string key;       // lower-cased title
+    string title;     // original title (put only)
+    string language;  // put only
+    string code;      // put only
+};
+
+// Write-ahead log for the snippet store, kept as numbered segment files
+// ("snippets_large.wal.3"). Every record is framed as
+//   "<op> <payload length> <checksum>\n" + payload + "\n"
+// and fsynced before append() returns. A batch is one 'B' frame whose
+// payload is the framed records, so a torn batch is dropped as a whole. A compaction rotates to a new
+// segment, writes the JSON from memory, then drops the older segments.
+class WriteAheadLog {
+private:
+    string base;
+    FILE* file;
+    long long segment;
+    long long bytes;  // appended since the last rotate
+
+    string segmentPath(long long number) const;
+    bool openSegment(long long number);
+    void replaySegment(const string& path, const function<void(const WalRecord&)>& apply);
+    bool write(const string& framed);
+
+public:
+    explicit WriteAheadLog(const string& base);
+    ~WriteAheadLog();
+
+    // Applies every intact record of every segment, oldest first, and cuts a
+    // torn tail off; then opens the newest segment for appending
+    bool open(const function<void(const WalRecord&)>& apply);
+
+    // Durable once this returns true
+    bool append(const WalRecord& record);
+
+    // All of the records, or none of them after a crash; one fsync
+    bool appendAll(const vector<WalRecord>& records);
+
+    // Starts a new segment; returns the number of the last closed one
+    long long rotate();
+
+    // Deletes segments up to and including `number` (safe from another thread)
+    void dropThrough(long long number);
+
+    // Bytes appended since the last rotate, i.e. not yet in the JSON
+    long long pendingBytes() const;
+};
+
+#endif
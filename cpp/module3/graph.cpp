@@ -8,18 +8,225 @@ void TagGraph::addTag(const string &tag)
 {
     if (adjList.find(tag) == adjList.end())
     {
-        adjList[tag] = unordered_set<string>();
+        adjList[tag] = unordered_map<string, int>();
         tagFrequency[tag] = 0;
+        tagIndex.insert(tag);
     }
 }
 
-// Adds an undirected edge between two tags
+// Adds one co-occurrence to the undirected, weighted edge between two tags
 void TagGraph::addEdge(const string &tag1, const string &tag2)
 {
+    if (tag1 == tag2)
+        return;
     addTag(tag1);
     addTag(tag2);
-    adjList[tag1].insert(tag2);
-    adjList[tag2].insert(tag1); // Undirected graph
+    adjList[tag1][tag2]++;
+    adjList[tag2][tag1]++; // Undirected graph
+    if (batchDepth == 0)
+    {
+        changed[tag1].insert(tag2);
+        changed[tag2].insert(tag1);
+        refreshRankings();
+    }
+}
+
+void TagGraph::addTagSet(const string &snippetId, const vector<string> &tags)
+{
+    vector<string> unique; // a tag listed twice still counts once
+    for (const string &tag : tags)
+    {
+        if (find(unique.begin(), unique.end(), tag) == unique.end())
+            unique.push_back(tag);
+    }
+
+    snippetCount++;
+    for (const string &tag : unique)
+    {
+        addTag(tag);
+        tagToSnippets[tag].push_back(snippetId);
+        tagFrequency[tag]++;
+    }
+    for (size_t i = 0; i < unique.size(); i++)
+    {
+        for (size_t j = i + 1; j < unique.size(); j++)
+        {
+            adjList[unique[i]][unique[j]]++;
+            adjList[unique[j]][unique[i]]++;
+        }
+    }
+
+    if (batchDepth > 0)
+        return;
+    // Each tag here gained a co-occurrence with the others, and a higher
+    // frequency, which lowers its key in every other list
+    for (const string &tag : unique)
+    {
+        for (const string &other : unique)
+        {
+            if (other != tag)
+                changed[tag].insert(other);
+        }
+        noteChanged(tag);
+    }
+    refreshRankings();
+}
+
+void TagGraph::beginBatch()
+{
+    batchDepth++;
+}
+
+void TagGraph::endBatch()
+{
+    if (batchDepth == 0 || --batchDepth > 0)
+        return;
+    changed.clear();
+    rankings.clear();
+    for (const auto &row : adjList)
+        rank(row.first);
+}
+
+// ================= RANKING =================
+// Orders neighbours within one tag's list; see the class comment
+double TagGraph::rankKey(const string &tag, const string &neighbor) const
+{
+    return getCooccurrenceCount(tag, neighbor) / (getTagFrequency(neighbor) + PMI_PRIOR);
+}
+
+bool TagGraph::stronger(double keyA, const string &a, double keyB, const string &b) const
+{
+    return keyA != keyB ? keyA > keyB : a < b;
+}
+
+// Full rescan of one tag's neighbours; only tags with more than
+// TOP_NEIGHBORS of them keep a ranking
+void TagGraph::rank(const string &tag)
+{
+    auto it = adjList.find(tag);
+    if (it == adjList.end() || it->second.size() <= (size_t)TOP_NEIGHBORS)
+        return;
+
+    vector<pair<double, const string *>> scored;
+    scored.reserve(it->second.size());
+    for (const auto &entry : it->second)
+        scored.push_back({entry.second / (getTagFrequency(entry.first) + PMI_PRIOR), &entry.first});
+
+    partial_sort(scored.begin(), scored.begin() + TOP_NEIGHBORS, scored.end(),
+                 [this](const pair<double, const string *> &a, const pair<double, const string *> &b)
+                 {
+                     return stronger(a.first, *a.second, b.first, *b.second);
+                 });
+
+    Ranking &ranking = rankings[tag];
+    ranking.top.clear();
+    for (int i = 0; i < TOP_NEIGHBORS; i++)
+        ranking.top.push_back(scored[i].second);
+    ranking.cutoff = scored[TOP_NEIGHBORS - 1].first;
+    ranking.cutoffTag = scored[TOP_NEIGHBORS - 1].second;
+}
+
+// Moves the neighbours whose key changed; false when a member fell below the
+// cutoff, because an outsider might now belong in the list
+bool TagGraph::rerank(const string &tag, const unordered_set<string> &moved)
+{
+    Ranking &ranking = rankings[tag];
+    const auto &row = adjList.at(tag);
+
+    vector<const string *> kept;
+    kept.reserve(ranking.top.size());
+    for (const string *member : ranking.top)
+    {
+        if (!moved.count(*member))
+            kept.push_back(member);
+    }
+
+    size_t removed = ranking.top.size() - kept.size();
+    size_t readmitted = 0;
+    for (const string &neighbor : moved)
+    {
+        double key = rankKey(tag, neighbor);
+        if (stronger(ranking.cutoff, *ranking.cutoffTag, key, neighbor))
+            continue;
+        const string *name = &row.find(neighbor)->first;
+        auto at = lower_bound(kept.begin(), kept.end(), name,
+                              [&](const string *a, const string *b)
+                              {
+                                  return stronger(rankKey(tag, *a), *a, rankKey(tag, *b), *b);
+                              });
+        kept.insert(at, name);
+        readmitted++;
+    }
+    if (readmitted < removed)
+        return false;
+
+    kept.resize(TOP_NEIGHBORS);
+    ranking.top = std::move(kept);
+    ranking.cutoffTag = ranking.top.back();
+    ranking.cutoff = rankKey(tag, *ranking.cutoffTag);
+    return true;
+}
+
+// `tag`'s key moved in the lists of its neighbours: queue it for the ranked ones
+void TagGraph::noteChanged(const string &tag)
+{
+    const auto &row = adjList.at(tag);
+    if (row.size() <= rankings.size())
+    {
+        for (const auto &entry : row)
+        {
+            if (rankings.count(entry.first))
+                changed[entry.first].insert(tag);
+        }
+    }
+    else
+    {
+        for (const auto &ranking : rankings)
+        {
+            if (row.count(ranking.first))
+                changed[ranking.first].insert(tag);
+        }
+    }
+}
+
+void TagGraph::refreshRankings()
+{
+    if (batchDepth > 0)
+        return;
+    for (const auto &entry : changed)
+    {
+        if (adjList.at(entry.first).size() <= (size_t)TOP_NEIGHBORS)
+            continue; // ordered when read
+        if (!rankings.count(entry.first) || !rerank(entry.first, entry.second))
+            rank(entry.first);
+    }
+    changed.clear();
+}
+
+// Strongest first: the stored ranking, or a sort of a short list
+void TagGraph::orderedNeighbors(const string &tag, vector<const string *> &out) const
+{
+    out.clear();
+    auto ranking = rankings.find(tag);
+    if (ranking != rankings.end())
+    {
+        out = ranking->second.top;
+        return;
+    }
+    auto row = adjList.find(tag);
+    if (row == adjList.end())
+        return;
+
+    vector<pair<double, const string *>> scored;
+    for (const auto &entry : row->second)
+        scored.push_back({entry.second / (getTagFrequency(entry.first) + PMI_PRIOR), &entry.first});
+    sort(scored.begin(), scored.end(),
+         [this](const pair<double, const string *> &a, const pair<double, const string *> &b)
+         {
+             return stronger(a.first, *a.second, b.first, *b.second);
+         });
+    for (const auto &entry : scored)
+        out.push_back(entry.second);
 }
 
 // Associates a snippet ID with a given tag
@@ -34,6 +241,27 @@ void TagGraph::incrementTagFrequency(const string &tag)
 {
     addTag(tag);
     tagFrequency[tag]++;
+    if (batchDepth == 0)
+    {
+        noteChanged(tag);
+        refreshRankings();
+    }
+}
+
+vector<string> TagGraph::findTagsBySubstring(const string &text) const
+{
+    vector<string> tags = tagIndex.find(text);
+    unordered_set<string> seen(tags.begin(), tags.end());
+    for (size_t start = 0; start < text.size(); start++)
+    {
+        for (size_t length = 1; start + length <= text.size(); length++)
+        {
+            string part = text.substr(start, length);
+            if (adjList.count(part) && seen.insert(part).second)
+                tags.push_back(part);
+        }
+    }
+    return tags;
 }
 
 // Returns a list of all tags in the graph
@@ -54,9 +282,9 @@ vector<string> TagGraph::getNeighbors(const string &tag) const
     auto it = adjList.find(tag);
     if (it != adjList.end())
     {
-        for (const string &neighbor : it->second)
+        for (const auto &neighbor : it->second)
         {
-            neighbors.push_back(neighbor);
+            neighbors.push_back(neighbor.first);
         }
     }
     return neighbors;
@@ -84,6 +312,51 @@ int TagGraph::getTagFrequency(const string &tag) const
     return 0;
 }
 
+int TagGraph::getCooccurrenceCount(const string &tag1, const string &tag2) const
+{
+    auto row = adjList.find(tag1);
+    if (row == adjList.end())
+        return 0;
+    auto cell = row->second.find(tag2);
+    return cell != row->second.end() ? cell->second : 0;
+}
+
+static double smoothedPmi(int count, int frequency1, int frequency2, long long snippets)
+{
+    if (count <= 0 || frequency1 <= 0)
+        return 0.0;
+    return log((double)count * max(snippets, 1LL) / (frequency1 * (frequency2 + TagGraph::PMI_PRIOR)));
+}
+
+double TagGraph::pmi(const string &tag1, const string &tag2) const
+{
+    return smoothedPmi(getCooccurrenceCount(tag1, tag2), getTagFrequency(tag1), getTagFrequency(tag2),
+                       snippetCount);
+}
+
+vector<TagAssociation> TagGraph::strongestNeighbors(const string &tag, int limit) const
+{
+    vector<TagAssociation> result;
+    auto it = adjList.find(tag);
+    if (it == adjList.end())
+        return result;
+
+    vector<const string *> ordered;
+    orderedNeighbors(tag, ordered);
+    const auto &row = it->second;
+    int frequency = getTagFrequency(tag);
+    for (const string *neighbor : ordered)
+    {
+        if ((int)result.size() >= limit)
+            break;
+        int count = row.at(*neighbor);
+        int neighborFrequency = getTagFrequency(*neighbor);
+        result.push_back({*neighbor, neighborFrequency, count,
+                          smoothedPmi(count, frequency, neighborFrequency, snippetCount)});
+    }
+    return result;
+}
+
 // Performs a breadth-first traversal starting from a tag
 vector<string> TagGraph::bfsTraversal(const string &startTag, int maxDepth) const
 {
@@ -110,12 +383,12 @@ vector<string> TagGraph::bfsTraversal(const string &startTag, int maxDepth) cons
 
         if (depth < maxDepth)
         {
-            for (const string &neighbor : adjList.at(currentTag))
+            for (const auto &neighbor : adjList.at(currentTag))
             {
-                if (visited.find(neighbor) == visited.end())
+                if (visited.find(neighbor.first) == visited.end())
                 {
-                    visited.insert(neighbor);
-                    q.push(make_pair(neighbor, depth + 1));
+                    visited.insert(neighbor.first);
+                    q.push(make_pair(neighbor.first, depth + 1));
                 }
             }
         }
@@ -124,6 +397,80 @@ vector<string> TagGraph::bfsTraversal(const string &startTag, int maxDepth) cons
     return result;
 }
 
+// Breadth-first walk capped by depth, per-tag fan-out and total size; each
+// tag's candidates are read off its ranking, so no neighbour list is sorted
+vector<NeighborhoodNode> TagGraph::boundedNeighborhood(const string &startTag, int maxDepth, int fanout,
+                                                       int maxNodes) const
+{
+    vector<NeighborhoodNode> result;
+    if (adjList.find(startTag) == adjList.end() || maxNodes <= 0)
+    {
+        return result;
+    }
+
+    unordered_set<string> visited;
+    visited.insert(startTag);
+    result.push_back({startTag, 0, getTagFrequency(startTag)});
+    vector<const string *> ordered;
+
+    // result doubles as the BFS queue
+    for (size_t head = 0; head < result.size() && (int)result.size() < maxNodes; head++)
+    {
+        if (result[head].depth >= maxDepth)
+            break; // BFS order: everything after this is at least as deep
+
+        orderedNeighbors(result[head].tag, ordered);
+        int depth = result[head].depth + 1;
+        int taken = 0;
+        for (const string *neighbor : ordered)
+        {
+            if (taken >= fanout || (int)result.size() >= maxNodes)
+                break;
+            if (!visited.insert(*neighbor).second)
+                continue;
+            result.push_back({*neighbor, depth, getTagFrequency(*neighbor)});
+            taken++;
+        }
+    }
+    return result;
+}
+
+// Each tag checks whichever is smaller: its own adjacency or the other tags
+vector<TagEdge> TagGraph::edgesWithin(const vector<string> &tags) const
+{
+    unordered_map<string, int> index;
+    for (size_t i = 0; i < tags.size(); i++)
+        index[tags[i]] = (int)i;
+
+    vector<TagEdge> edges;
+    for (size_t i = 0; i < tags.size(); i++)
+    {
+        auto it = adjList.find(tags[i]);
+        if (it == adjList.end())
+            continue;
+
+        if (it->second.size() <= tags.size())
+        {
+            for (const auto &neighbor : it->second)
+            {
+                auto j = index.find(neighbor.first);
+                if (j != index.end() && j->second > (int)i)
+                    edges.push_back({(int)i, j->second, neighbor.second});
+            }
+        }
+        else
+        {
+            for (size_t j = i + 1; j < tags.size(); j++)
+            {
+                auto cell = it->second.find(tags[j]);
+                if (cell != it->second.end())
+                    edges.push_back({(int)i, (int)j, cell->second});
+            }
+        }
+    }
+    return edges;
+}
+
 // Helper function for depth-first traversal
 void TagGraph::dfsHelper(const string &tag, unordered_set<string> &visited,
                          vector<string> &result, int depth, int maxDepth) const
@@ -136,11 +483,11 @@ void TagGraph::dfsHelper(const string &tag, unordered_set<string> &visited,
         auto it = adjList.find(tag);
         if (it != adjList.end())
         {
-            for (const string &neighbor : it->second)
+            for (const auto &neighbor : it->second)
             {
-                if (visited.find(neighbor) == visited.end())
+                if (visited.find(neighbor.first) == visited.end())
                 {
-                    dfsHelper(neighbor, visited, result, depth + 1, maxDepth);
+                    dfsHelper(neighbor.first, visited, result, depth + 1, maxDepth);
                 }
             }
         }
@@ -201,12 +548,12 @@ vector<pair<string, double>> TagGraph::findRelatedTags(const string &tag, int ma
 
         if (depth < 3)
         {
-            for (const string &neighbor : adjList.at(currentTag))
+            for (const auto &neighbor : adjList.at(currentTag))
             {
-                if (visited.find(neighbor) == visited.end())
+                if (visited.find(neighbor.first) == visited.end())
                 {
-                    visited.insert(neighbor);
-                    q.push({neighbor, depth + 1});
+                    visited.insert(neighbor.first);
+                    q.push({neighbor.first, depth + 1});
                 }
             }
         }
@@ -271,9 +618,9 @@ double TagGraph::calculateSimilarity(const string &tag1, const string &tag2) con
     const auto &neighbors2 = it2->second;
 
     int common = 0;
-    for (const string &neighbor : neighbors1)
+    for (const auto &neighbor : neighbors1)
     {
-        if (neighbors2.find(neighbor) != neighbors2.end())
+        if (neighbors2.find(neighbor.first) != neighbors2.end())
         {
             common++;
         }
@@ -293,6 +640,10 @@ void TagGraph::clear()
     adjList.clear();
     tagFrequency.clear();
     tagToSnippets.clear();
+    tagIndex.clear();
+    rankings.clear();
+    changed.clear();
+    snippetCount = 0;
 }
 
 // Prints the graph structure with tag frequencies
@@ -303,9 +654,9 @@ void TagGraph::printGraph() const
     for (const auto &pair : adjList)
     {
         cout << pair.first << " (freq: " << tagFrequency.at(pair.first) << ") -> ";
-        for (const string &neighbor : pair.second)
+        for (const auto &neighbor : pair.second)
         {
-            cout << neighbor << " ";
+            cout << neighbor.first << "(" << neighbor.second << ") ";
         }
         cout << endl;
     }
@@ -10,6 +10,7 @@
 #include <string>
 #include <cctype>
 #include <algorithm>
+#include "trigram.h"
 
 using namespace std;
 
@@ -21,12 +22,58 @@ inline string toLowercase(const string &str)
     return result;
 }
 
+// One tag reached by a bounded neighbourhood walk
+struct NeighborhoodNode
+{
+    string tag;
+    int depth;
+    int frequency;
+};
+
+// A link between two tags of a neighbourhood, as indexes into it
+struct TagEdge
+{
+    int from;
+    int to;
+    int count; // snippets carrying both tags
+};
+
+// How strongly a neighbour is associated with a tag
+struct TagAssociation
+{
+    string tag;
+    int frequency; // snippets carrying the neighbour
+    int count;     // snippets carrying both
+    double pmi;    // smoothed pointwise mutual information, see TagGraph
+};
+
 // Level-2 DSA: Graph for tag relationships
+//
+// The adjacency lists form a sparse, symmetric co-occurrence matrix: the
+// weight of a-b is the number of snippets carrying both tags. Neighbours are
+// scored by smoothed PMI,
+//   log( count(a,b) * N / (freq(a) * (freq(b) + PMI_PRIOR)) )
+// where N is the number of snippets; the prior keeps a tag seen once or twice
+// from outranking a well-established one on a single co-occurrence. Within
+// one tag's list N and freq(a) are constant, so the order depends only on
+// count(a,b) / (freq(b) + PMI_PRIOR) and does not shift as N grows.
+//
+// A tag with more than TOP_NEIGHBORS neighbours keeps its best TOP_NEIGHBORS
+// ranked. An insert changes the keys of the snippet's tags in exactly those
+// ranked lists that contain them, so only those entries are moved; a full
+// rescan of a list is needed only when one of its members falls below the
+// list's cutoff. Tags with fewer neighbours than that are ordered when read,
+// which is bounded by TOP_NEIGHBORS entries. Inside beginBatch()/endBatch()
+// the rankings are built once at the end.
 class TagGraph
 {
+public:
+    static const int TOP_NEIGHBORS = 128;
+    static constexpr double PMI_PRIOR = 2.0;
+
 private:
-    // Adjacency list representation
-    unordered_map<string, unordered_set<string>> adjList;
+    // Weighted adjacency: tag -> neighbour -> co-occurrence count
+    unordered_map<string, unordered_map<string, int>> adjList;
 
     // Store tag weights/frequencies
     unordered_map<string, int> tagFrequency;
@@ -34,13 +81,45 @@ private:
     // Store snippet IDs associated with each tag
     unordered_map<string, vector<string>> tagToSnippets;
 
+    // Every tag, for substring lookups
+    TrigramIndex tagIndex;
+
+    // Strongest neighbours first; pointers to adjList keys, which are stable.
+    // Every neighbour left out ranks below the last entry (`cutoff`)
+    struct Ranking
+    {
+        vector<const string *> top;
+        double cutoff = 0;
+        const string *cutoffTag = nullptr;
+    };
+    unordered_map<string, Ranking> rankings;          // tags with > TOP_NEIGHBORS neighbours
+    unordered_map<string, unordered_set<string>> changed; // ranked tag -> neighbours whose key moved
+    long long snippetCount = 0;
+    int batchDepth = 0;
+
+    double rankKey(const string &tag, const string &neighbor) const;
+    bool stronger(double keyA, const string &a, double keyB, const string &b) const;
+    void rank(const string &tag);
+    bool rerank(const string &tag, const unordered_set<string> &moved);
+    void noteChanged(const string &tag);
+    void refreshRankings();
+    void orderedNeighbors(const string &tag, vector<const string *> &out) const;
+
 public:
     // Add a tag node
     void addTag(const string &tag);
 
-    // Add edge between two tags (co-occurrence)
+    // Add one co-occurrence of two tags
     void addEdge(const string &tag1, const string &tag2);
 
+    // Records one snippet: links it to its tags, counts them, adds one
+    // co-occurrence per pair and keeps the rankings current
+    void addTagSet(const string &snippetId, const vector<string> &tags);
+
+    // Defers ranking across many inserts (nestable); endBatch ranks every tag once
+    void beginBatch();
+    void endBatch();
+
     // Associate snippet with tag
     void addSnippetToTag(const string &tag, const string &snippetId);
 
@@ -56,15 +135,39 @@ public:
     // Get snippets associated with a tag
     vector<string> getSnippetsForTag(const string &tag) const;
 
+    // Tags that contain `text` or that `text` contains, each once. The first
+    // come from the trigram index, the second from looking up each substring
+    // of `text`; neither walks the whole tag set
+    vector<string> findTagsBySubstring(const string &text) const;
+
     // Get tag frequency
     int getTagFrequency(const string &tag) const;
 
+    // Snippets carrying both tags
+    int getCooccurrenceCount(const string &tag1, const string &tag2) const;
+
+    // Smoothed PMI of the pair; 0 when they never co-occur
+    double pmi(const string &tag1, const string &tag2) const;
+
+    // Up to `limit` (at most TOP_NEIGHBORS) neighbours, most associated first;
+    // a lookup in the precomputed ranking
+    vector<TagAssociation> strongestNeighbors(const string &tag, int limit = TOP_NEIGHBORS) const;
+
     // BFS traversal from a starting tag
     vector<string> bfsTraversal(const string &startTag, int maxDepth = 2) const;
 
     // DFS traversal from a starting tag
     vector<string> dfsTraversal(const string &startTag, int maxDepth = 2) const;
 
+    // Bounded BFS for the network view: every visited tag contributes at most
+    // `fanout` unvisited neighbours (strongest first, from the ranking), and the
+    // walk stops after maxDepth hops or maxNodes tags, so a hub cannot blow it up
+    vector<NeighborhoodNode> boundedNeighborhood(const string &startTag, int maxDepth, int fanout,
+                                                 int maxNodes) const;
+
+    // Edges among the given tags, as index pairs into `tags` with their counts
+    vector<TagEdge> edgesWithin(const vector<string> &tags) const;
+
     // Find related tags using BFS (for recommendations)
     vector<pair<string, double>> findRelatedTags(const string &tag, int maxResults = 10) const;
 
@@ -0,0 +1,373 @@
+#include "journal.h"
+#include <algorithm>
+#include <cstdlib>
+#include <ctime>
+#include <filesystem>
+#include <fstream>
+#include <iostream>
+#include <memory>
+#include <sstream>
+#ifdef _WIN32
+#include <io.h>
+#include <windows.h>
+#else
+#include <unistd.h>
+#endif
+
+namespace fs = std::filesystem;
+
+static const char *FOLD_HEADER = "USAGE_FOLD 1";
+
+static bool syncFile(FILE *f)
+{
+    if (fflush(f) != 0)
+        return false;
+#ifdef _WIN32
+    return _commit(_fileno(f)) == 0;
+#else
+    return fsync(fileno(f)) == 0;
+#endif
+}
+
+static bool replaceFile(const string &from, const string &to)
+{
+#ifdef _WIN32
+    return MoveFileExA(from.c_str(), to.c_str(), MOVEFILE_REPLACE_EXISTING | MOVEFILE_WRITE_THROUGH) != 0;
+#else
+    return rename(from.c_str(), to.c_str()) == 0;
+#endif
+}
+
+// ================= LEDGER =================
+void UsageLedger::recordUse(const string &snippetId, long long when)
+{
+    Entry &entry = snippets[snippetId];
+    entry.count++;
+    entry.lastUsed = max(entry.lastUsed, when);
+    recent.add(snippetId, 1, (double)when);
+}
+
+void UsageLedger::recordFeedback(bool wasClicked)
+{
+    recommendations++;
+    if (wasClicked)
+        clicked++;
+}
+
+// ================= JOURNAL =================
+UsageJournal::UsageJournal(const string &journalBase, const string &foldPath, double halfLifeSeconds)
+    : journalBase(journalBase), foldPath(foldPath), state(halfLifeSeconds)
+{
+}
+
+UsageJournal::~UsageJournal()
+{
+    {
+        lock_guard<mutex> guard(lock);
+        stopping = true;
+    }
+    queued.notify_all();
+    if (flusher.joinable())
+        flusher.join(); // drains the buffer first
+    if (file)
+        fclose(file);
+}
+
+string UsageJournal::journalPath(long long number) const
+{
+    return journalBase + "." + to_string(number);
+}
+
+bool UsageJournal::open()
+{
+    long long folded = readFold();
+
+    // Journals numbered above the fold are replayed in order; the rest are
+    // already in the fold and only left over from an interrupted cleanup
+    fs::path base(journalBase);
+    fs::path dir = base.has_parent_path() ? base.parent_path() : fs::path(".");
+    string prefix = base.filename().string() + ".";
+    vector<long long> numbers;
+    error_code ec;
+    for (const auto &item : fs::directory_iterator(dir, ec))
+    {
+        string name = item.path().filename().string();
+        if (name.size() <= prefix.size() || name.compare(0, prefix.size(), prefix) != 0)
+            continue;
+        string digits = name.substr(prefix.size());
+        if (digits.find_first_not_of("0123456789") == string::npos)
+            numbers.push_back(atoll(digits.c_str()));
+    }
+    sort(numbers.begin(), numbers.end());
+
+    generation = folded;
+    for (long long number : numbers)
+    {
+        if (number <= folded)
+        {
+            fs::remove(journalPath(number), ec);
+            continue;
+        }
+        replay(journalPath(number));
+        generation = number;
+    }
+
+    bool ok;
+    if (generation > folded)
+    {
+        // Keep appending to the newest journal
+        file = fopen(journalPath(generation).c_str(), "ab");
+        journalBytes = file ? ftell(file) : 0;
+        ok = file != nullptr;
+    }
+    else
+    {
+        ok = startJournal(generation + 1);
+    }
+    if (!ok)
+    {
+        cerr << "Warning: cannot write usage journal " << journalPath(generation + 1)
+             << "; usage is not saved" << endl;
+        return false;
+    }
+
+    opened = true;
+    flusher = thread(&UsageJournal::flushLoop, this);
+    return true;
+}
+
+// Returns the number of the last journal the fold covers, 0 without a fold
+long long UsageJournal::readFold()
+{
+    ifstream in(foldPath, ios::binary);
+    string line;
+    if (!in || !getline(in, line) || line != FOLD_HEADER)
+        return 0;
+
+    long long covers = 0;
+    double asOf = 0;
+    while (getline(in, line))
+    {
+        istringstream fields(line);
+        string kind;
+        fields >> kind;
+        if (kind == "covers")
+            fields >> covers;
+        else if (kind == "as_of")
+            fields >> asOf;
+        else if (kind == "feedback")
+            fields >> state.recommendations >> state.clicked;
+        else if (kind == "S")
+        {
+            // S <count> <last_used> <recent> <snippet id to end of line>
+            UsageLedger::Entry entry;
+            double recent = 0;
+            string id;
+            if (!(fields >> entry.count >> entry.lastUsed >> recent))
+                continue;
+            fields.get();
+            getline(fields, id);
+            if (!id.empty())
+            {
+                UsageLedger::Entry &target = state.snippets[id];
+                target.count += entry.count;
+                target.lastUsed = max(target.lastUsed, entry.lastUsed);
+                state.recent.add(id, recent, asOf);
+            }
+        }
+    }
+    return covers;
+}
+
+// Applies every complete line; a torn last line is cut off so that appending
+// does not glue the next event onto it
+bool UsageJournal::replay(const string &path)
+{
+    ifstream in(path, ios::binary);
+    if (!in)
+        return false;
+
+    string line;
+    long long complete = 0;
+    long long offset = 0;
+    while (getline(in, line))
+    {
+        offset += (long long)line.size() + 1;
+        if (in.eof())
+            break; // no newline: torn by a crash
+        complete = offset;
+
+        if (line.size() > 2 && line[0] == 'U' && line[1] == ' ')
+        {
+            // U <epoch seconds> <snippet id>
+            size_t space = line.find(' ', 2);
+            if (space != string::npos)
+                state.recordUse(line.substr(space + 1), atoll(line.c_str() + 2));
+        }
+        else if (line.size() == 3 && line[0] == 'F' && line[1] == ' ')
+        {
+            state.recordFeedback(line[2] == '1');
+        }
+    }
+    in.close();
+
+    error_code ec;
+    if ((long long)fs::file_size(path, ec) > complete && !ec)
+        fs::resize_file(path, complete, ec);
+    return true;
+}
+
+bool UsageJournal::startJournal(long long number)
+{
+    FILE *next = fopen(journalPath(number).c_str(), "ab");
+    if (!next)
+        return false;
+    string header = "# usage journal " + to_string(number) + "\n";
+    if (fwrite(header.data(), 1, header.size(), next) != header.size() || !syncFile(next))
+    {
+        fclose(next);
+        return false;
+    }
+    if (file)
+        fclose(file);
+    file = next;
+    generation = number;
+    journalBytes = (long)header.size();
+    return true;
+}
+
+bool UsageJournal::writeFold(const UsageLedger &ledger, long long covers) const
+{
+    string tmp = foldPath + ".tmp";
+    FILE *out = fopen(tmp.c_str(), "wb");
+    if (!out)
+        return false;
+
+    double asOf = (double)time(nullptr);
+    fprintf(out, "%s\ncovers %lld\nas_of %.0f\nfeedback %lld %lld\n", FOLD_HEADER, covers, asOf,
+            ledger.recommendations, ledger.clicked);
+    for (const auto &p : ledger.snippets)
+        fprintf(out, "S %lld %lld %.17g %s\n", p.second.count, p.second.lastUsed,
+                ledger.recent.value(p.first, asOf), p.first.c_str());
+
+    bool ok = !ferror(out) && syncFile(out);
+    fclose(out);
+    return ok && replaceFile(tmp, foldPath);
+}
+
+long long UsageJournal::append(const string &line)
+{
+    long long sequence = ++appended;
+    if (!opened)
+    {
+        durable = sequence; // nothing will write it; do not keep it either
+        return sequence;
+    }
+    buffer += line;
+    queued.notify_one();
+    return sequence;
+}
+
+long long UsageJournal::recordUse(const string &snippetId, long long when)
+{
+    lock_guard<mutex> guard(lock);
+    state.recordUse(snippetId, when);
+    return append("U " + to_string(when) + " " + snippetId + "\n");
+}
+
+long long UsageJournal::recordFeedback(bool wasClicked)
+{
+    lock_guard<mutex> guard(lock);
+    state.recordFeedback(wasClicked);
+    return append(wasClicked ? "F 1\n" : "F 0\n");
+}
+
+void UsageJournal::flushLoop()
+{
+    unique_lock<mutex> guard(lock);
+    while (true)
+    {
+        queued.wait(guard, [this] { return stopping || !buffer.empty(); });
+        if (buffer.empty())
+            return;
+
+        // Everything queued so far goes out with one fsync
+        string batch;
+        batch.swap(buffer);
+        long long upTo = appended;
+        long long current = generation;
+
+        // The ledger now holds exactly what this journal will hold once the
+        // batch is written: the moment to capture it for a fold
+        unique_ptr<UsageLedger> snapshot;
+        if (journalBytes + (long)batch.size() > FOLD_BYTES)
+            snapshot = make_unique<UsageLedger>(state);
+        guard.unlock();
+
+        bool ok = fwrite(batch.data(), 1, batch.size(), file) == batch.size() && syncFile(file);
+        if (!ok)
+            cerr << "Warning: usage journal write failed" << endl;
+        bool switched = snapshot && startJournal(current + 1);
+        if (switched)
+        {
+            if (writeFold(*snapshot, current))
+            {
+                error_code ec;
+                fs::remove(journalPath(current), ec);
+            }
+            else
+            {
+                cerr << "Warning: usage fold failed; keeping " << journalPath(current) << endl;
+            }
+        }
+
+        guard.lock();
+        if (!switched)
+            journalBytes += (long)batch.size();
+        durable = upTo;
+        vector<function<void()>> ready;
+        auto split = stable_partition(waiters.begin(), waiters.end(),
+                                      [this](const pair<long long, function<void()>> &w) { return w.first > durable; });
+        for (auto it = split; it != waiters.end(); ++it)
+            ready.push_back(std::move(it->second));
+        waiters.erase(split, waiters.end());
+
+        // sync() waits for these too: once it returns, no callback is left
+        // to touch what the caller is about to tear down
+        delivering = true;
+        guard.unlock();
+        for (auto &done : ready)
+            done();
+        guard.lock();
+        delivering = false;
+        flushed.notify_all();
+    }
+}
+
+void UsageJournal::whenDurable(long long sequence, function<void()> done)
+{
+    {
+        lock_guard<mutex> guard(lock);
+        if (opened && sequence > durable)
+        {
+            waiters.push_back(make_pair(sequence, std::move(done)));
+            return;
+        }
+    }
+    done();
+}
+
+long long UsageJournal::lastSequence() const
+{
+    lock_guard<mutex> guard(lock);
+    return appended;
+}
+
+void UsageJournal::sync()
+{
+    unique_lock<mutex> guard(lock);
+    if (!opened)
+        return;
+    long long target = appended;
+    flushed.wait(guard, [this, target] { return durable >= target && !delivering; });
+}
@@ -0,0 +1,115 @@
+#ifndef JOURNAL_H
+#define JOURNAL_H
+
+#include "trending.h"
+#include <condition_variable>
+#include <cstdio>
+#include <functional>
+#include <mutex>
+#include <string>
+#include <thread>
+#include <unordered_map>
+#include <utility>
+#include <vector>
+
+using namespace std;
+
+// Everything the journal has recorded, folded per snippet. It is what gets
+// applied to a freshly loaded engine, and what a fold writes to disk.
+struct UsageLedger
+{
+    struct Entry
+    {
+        long long count = 0;
+        long long lastUsed = 0;
+    };
+
+    unordered_map<string, Entry> snippets;
+    DecayedCounters recent; // same half-life as the engine's trend counters
+    long long recommendations = 0;
+    long long clicked = 0;
+
+    explicit UsageLedger(double halfLifeSeconds) : recent(halfLifeSeconds) {}
+
+    void recordUse(const string &snippetId, long long when);
+    void recordFeedback(bool wasClicked);
+};
+
+// Durable, append-only log of usage and recommendation-feedback events.
+//
+// Events are applied in memory at once and queued; one flusher thread writes
+// whatever has queued up and fsyncs it, so events that arrive while a sync is
+// in progress share the next one (group commit). Callers that must not answer
+// before an event is durable register with whenDurable().
+//
+// Journals are numbered files ("usage.journal.7"), one line per event. Once
+// the current one passes FOLD_BYTES the flusher starts the next number and
+// writes the fold: the whole ledger as of the end of the previous journal,
+// via a temp file and a rename. Older journals are then deleted. At startup
+// the fold is read, then every journal numbered above it; a line torn by a
+// crash is dropped. A crash at any step therefore loses nothing and counts
+// nothing twice.
+class UsageJournal
+{
+private:
+    static const long FOLD_BYTES = 1L << 20;
+
+    string journalBase;
+    string foldPath;
+    UsageLedger state;
+
+    mutable mutex lock;
+    condition_variable queued;
+    condition_variable flushed;
+    string buffer; // lines not yet written
+    vector<pair<long long, function<void()>>> waiters;
+    long long appended = 0; // events recorded
+    long long durable = 0;  // events known to be on disk
+    bool delivering = false; // the flusher is running whenDurable callbacks
+    long long generation = 0;
+    long journalBytes = 0;
+    FILE *file = nullptr;
+    bool stopping = false;
+    bool opened = false; // the flusher runs; otherwise events are not queued
+    thread flusher;
+
+    string journalPath(long long number) const;
+    long long readFold();
+    bool replay(const string &path);
+    bool startJournal(long long number);
+    bool writeFold(const UsageLedger &ledger, long long covers) const;
+    long long append(const string &line);
+    void flushLoop();
+
+public:
+    UsageJournal(const string &journalBase, const string &foldPath, double halfLifeSeconds);
+    ~UsageJournal();
+    UsageJournal(const UsageJournal &) = delete;
+    UsageJournal &operator=(const UsageJournal &) = delete;
+
+    // Reads the fold and the journals, then starts the flusher; false when
+    // the journal cannot be written (events are then kept in memory only)
+    bool open();
+
+    // Whether events are being written; false before or after a failed open()
+    bool isOpen() const { return opened; }
+
+    // Call only from the thread that records events
+    const UsageLedger &ledger() const { return state; }
+
+    // Both return the event's sequence number, for whenDurable()
+    long long recordUse(const string &snippetId, long long when);
+    long long recordFeedback(bool wasClicked);
+
+    // Runs done once event `sequence` is on disk: right away when it already
+    // is (or the journal is not open), otherwise on the flusher thread
+    void whenDurable(long long sequence, function<void()> done);
+
+    long long lastSequence() const;
+
+    // Blocks until every recorded event is on disk and every whenDurable
+    // callback for it has returned
+    void sync();
+};
+
+#endif
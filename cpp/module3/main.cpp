@@ -1,45 +1,52 @@
 #include "recommendations.h"
 #include <iostream>
 #include <fstream>
+#include <sstream>
 #include <cmath>
 #include <vector>
+#include <cstdlib>
+#include <mutex>
+#ifdef _WIN32
+#include <io.h>
+#include <fcntl.h>
+#endif
 
 using namespace std;
 
-void printHelp()
+void printHelp(ostream &out)
 {
-    cout << "Smart Code Snippet Manager - Module 3: Recommendations & Analytics" << endl;
-    cout << "Database: snippets.json (JSON-based DSA code snippets)" << endl;
-    cout << "Usage: ./module3 <command> [args]" << endl;
-    cout << "Commands:" << endl;
-    cout << "  load <filename>                    - Load snippets from JSON file" << endl;
-    cout << "  rec_tag <tag> [limit]              - Get recommendations by tag" << endl;
-    cout << "  rec_snippet <id> [limit]           - Get recommendations by snippet" << endl;
-    cout << "  top_snippets [n]                   - Get top used snippets" << endl;
-    cout << "  trending_tags [n]                  - Get trending tags" << endl;
-    cout << "  lang_dist                          - Get language distribution" << endl;
-    cout << "  tag_cooccur <tag>                  - Get tag co-occurrence" << endl;
-    cout << "  stats                              - Get system statistics" << endl;
-    cout << "  export <tag> <output_file>         - Export recommendations to file" << endl;
+    out << "Smart Code Snippet Manager - Module 3: Recommendations & Analytics" << endl;
+    out << "Database: snippets_large.json, else snippets.json (read via snippets_large.snap when up to date)" << endl;
+    out << "Usage: ./module3 <command> [args]" << endl;
+    out << "Commands:" << endl;
+    out << "  load <filename>                    - Load snippets from JSON file" << endl;
+    out << "  rec_tag <tag> [limit] [lang] [min] - Get recommendations by tag, language, min usage" << endl;
+    out << "  rec_snippet <id> [limit]           - Get recommendations by snippet" << endl;
+    out << "  top_snippets [n]                   - Get top used snippets" << endl;
+    out << "  trending_tags [n]                  - Get trending tags (decayed recent activity)" << endl;
+    out << "  trending_snippets [n]              - Get trending snippets (decayed recent usage)" << endl;
+    out << "  use <id> [epoch_seconds]           - Record one use of a snippet (journaled)" << endl;
+    out << "  feedback <0|1>                     - Record whether a recommendation was taken (journaled)" << endl;
+    out << "  lang_dist                          - Get language distribution" << endl;
+    out << "  tag_cooccur <tag> [limit]          - Most associated tags (PMI), precomputed" << endl;
+    out << "  tag_neighborhood <tag> [depth] [fanout] [max_nodes]" << endl;
+    out << "                                     - Bounded multi-hop tag network" << endl;
+    out << "  stats                              - Get system statistics" << endl;
+    out << "  export <tag> <output_file>         - Export recommendations to file" << endl;
+    out << "  serve                              - Answer framed requests on stdin/stdout" << endl;
 }
 
-int main(int argc, char *argv[])
-{
-    if (argc < 2)
-    {
-        printHelp();
-        return 1;
-    }
+// ================= DATABASE =================
+// Usage and feedback events live next to the store (Data/ for the Java UI)
+static const char *USAGE_JOURNAL = "usage.journal";
+static const char *USAGE_FOLD = "usage.fold";
 
-    RecommendationEngine engine;
-    string command = argv[1];
-
-    // Auto-load snippets.json - search in multiple locations
-    string defaultDatabasePath = "snippets.json";
-    bool dbLoaded = false;
-
-    // Try different paths
+bool loadDefaultDatabase(RecommendationEngine &engine)
+{
+    // Auto-load the shared store first (Data/ is the working directory when
+    // the Java UI starts us), then snippets.json - search in multiple locations
     vector<string> possiblePaths = {
+        "snippets_large.json",
         "snippets.json",
         "./snippets.json",
         "../snippets.json",
@@ -54,274 +61,444 @@ int main(int argc, char *argv[])
     {
         if (engine.loadSnippetsFromFile(path))
         {
-            dbLoaded = true;
-            defaultDatabasePath = path;
-            break;
+            return true;
         }
     }
+    return false;
+}
 
-    if (!dbLoaded)
+// ================= COMMANDS =================
+// args[0] is the command name, the rest are its arguments (argv without the program name)
+int runCommand(RecommendationEngine &engine, const vector<string> &args, bool dbLoaded, ostream &out, ostream &err)
+{
+    if (args.empty())
     {
-        cerr << "WARNING: Could not load default database from snippets.json" << endl;
+        printHelp(err);
+        return 1;
     }
 
+    const string &command = args[0];
+
     if (command == "load")
     {
-        if (argc < 3)
+        if (args.size() < 2)
         {
             // Use default snippets.json if no filename specified
             if (!dbLoaded)
             {
-                cerr << "Error: snippets.json not found and no alternative file specified" << endl;
+                err << "Error: snippets.json not found and no alternative file specified" << endl;
                 return 1;
             }
-            cout << "SUCCESS: Using default snippets.json" << endl;
+            out << "SUCCESS: Using default snippets.json" << endl;
         }
         else
         {
-            string filename = argv[2];
+            string filename = args[1];
             if (engine.loadSnippetsFromFile(filename))
             {
-                cout << "SUCCESS: Loaded snippets from " << filename << endl;
+                out << "SUCCESS: Loaded snippets from " << filename << endl;
             }
             else
             {
-                cout << "ERROR: Failed to load snippets" << endl;
+                out << "ERROR: Failed to load snippets" << endl;
                 return 1;
             }
         }
     }
     else if (command == "rec_tag")
     {
-        if (argc < 4)
+        if (args.size() < 2)
         {
-            cerr << "Error: Missing tag" << endl;
+            err << "Error: Missing tag" << endl;
             return 1;
         }
 
-        // Use database already loaded (snippets.json), or optionally load from specified file
-        if (argc >= 5)
-        {
-            // If user specifies a different data file
-            if (!engine.loadSnippetsFromFile(argv[4]))
-            {
-                cerr << "ERROR: Failed to load data file" << endl;
-                return 1;
-            }
-        }
-
-        string tag = argv[2];
-        int limit = argc >= 5 ? atoi(argv[4]) : 10;
+        // rec_tag <tag> [limit] [language|All] [min_usage]; filters are applied while ranking
+        string tag = args[1];
+        int limit = args.size() >= 3 ? atoi(args[2].c_str()) : 10;
+        RecommendationFilter filter;
+        if (args.size() >= 4)
+            filter.language = args[3];
+        if (args.size() >= 5)
+            filter.minUsage = atoi(args[4].c_str());
 
-        auto recommendations = engine.getRecommendationsByTag(tag, limit);
+        auto recommendations = engine.getRecommendationsByTag(tag, limit, filter);
 
-        cout << "RECOMMENDATIONS_START" << endl;
+        out << "RECOMMENDATIONS_START" << endl;
         for (const auto &p : recommendations)
         {
             string snippetId = p.first;
             double score = p.second;
             auto snippet = engine.getSnippet(snippetId);
-            cout << snippetId << "|" << snippet.title << "|" << score << "|";
+            out << snippetId << "|" << snippet.title << "|" << score << "|";
             for (size_t i = 0; i < snippet.tags.size(); i++)
             {
-                cout << snippet.tags[i];
+                out << snippet.tags[i];
                 if (i < snippet.tags.size() - 1)
-                    cout << ";";
+                    out << ";";
             }
-            cout << "|" << snippet.language << "|" << snippet.code << endl;
+            out << "|" << snippet.language << "|" << snippet.code << endl;
         }
-        cout << "RECOMMENDATIONS_END" << endl;
+        out << "RECOMMENDATIONS_END" << endl;
     }
     else if (command == "rec_snippet")
     {
-        if (argc < 3)
+        if (args.size() < 2)
         {
-            cerr << "Error: Missing snippet ID" << endl;
+            err << "Error: Missing snippet ID" << endl;
             return 1;
         }
 
-        string snippetId = argv[2];
-        int limit = argc >= 4 ? atoi(argv[3]) : 10;
+        string snippetId = args[1];
+        int limit = args.size() >= 3 ? atoi(args[2].c_str()) : 10;
 
         auto recommendations = engine.getRecommendationsBySnippet(snippetId, limit);
 
-        cout << "RECOMMENDATIONS_START" << endl;
+        out << "RECOMMENDATIONS_START" << endl;
         for (const auto &p : recommendations)
         {
             string id = p.first;
             double score = p.second;
             auto snippet = engine.getSnippet(id);
-            cout << id << "|" << snippet.title << "|" << score << "|";
+            out << id << "|" << snippet.title << "|" << score << "|";
             for (size_t i = 0; i < snippet.tags.size(); i++)
             {
-                cout << snippet.tags[i];
+                out << snippet.tags[i];
                 if (i < snippet.tags.size() - 1)
-                    cout << ";";
+                    out << ";";
             }
-            cout << "|" << snippet.language << "|" << snippet.code << endl;
+            out << "|" << snippet.language << "|" << snippet.code << endl;
         }
-        cout << "RECOMMENDATIONS_END" << endl;
+        out << "RECOMMENDATIONS_END" << endl;
     }
     else if (command == "top_snippets")
     {
-        int n = argc >= 3 ? atoi(argv[2]) : 10;
+        int n = args.size() >= 2 ? atoi(args[1].c_str()) : 10;
         auto topSnippets = engine.getTopUsedSnippets(n);
 
-        cout << "TOP_SNIPPETS_START" << endl;
+        out << "TOP_SNIPPETS_START" << endl;
         for (const auto &p : topSnippets)
         {
             string id = p.first;
             int count = p.second;
             auto snippet = engine.getSnippet(id);
-            cout << id << "|" << snippet.title << "|" << count << "|" << snippet.language << endl;
+            out << id << "|" << snippet.title << "|" << count << "|" << snippet.language << endl;
         }
-        cout << "TOP_SNIPPETS_END" << endl;
+        out << "TOP_SNIPPETS_END" << endl;
     }
     else if (command == "trending_tags")
     {
-        int n = argc >= 3 ? atoi(argv[2]) : 10;
+        int n = args.size() >= 2 ? atoi(args[1].c_str()) : 10;
         auto trendingTags = engine.getTrendingTags(n);
 
-        cout << "TRENDING_TAGS_START" << endl;
+        out << "TRENDING_TAGS_START" << endl;
         for (const auto &p : trendingTags)
         {
-            string tag = p.first;
-            int freq = p.second;
-            cout << tag << "|" << freq << endl;
+            out << p.first << "|" << p.second << endl;
         }
-        cout << "TRENDING_TAGS_END" << endl;
+        out << "TRENDING_TAGS_END" << endl;
     }
     else if (command == "lang_dist")
     {
         auto langDist = engine.getLanguageDistribution();
 
-        cout << "LANG_DIST_START" << endl;
+        out << "LANG_DIST_START" << endl;
         for (const auto &p : langDist)
         {
             string lang = p.first;
             int count = p.second;
-            cout << lang << "|" << count << endl;
+            out << lang << "|" << count << endl;
         }
-        cout << "LANG_DIST_END" << endl;
+        out << "LANG_DIST_END" << endl;
     }
     else if (command == "tag_cooccur")
     {
-        if (argc < 3)
+        if (args.size() < 2)
         {
-            cerr << "Error: Missing tag" << endl;
+            err << "Error: Missing tag" << endl;
             return 1;
         }
 
-        string tag = argv[2];
-        auto cooccur = engine.getTagCooccurrence(tag);
+        string tag = args[1];
+        int limit = args.size() >= 3 ? atoi(args[2].c_str()) : TagGraph::TOP_NEIGHBORS;
+        auto cooccur = engine.getTagCooccurrence(tag, max(1, limit));
 
-        cout << "TAG_COOCCUR_START" << endl;
-        for (const auto &p : cooccur)
+        // tag|frequency|co-occurrences|pmi, most associated first
+        out << "TAG_COOCCUR_START" << endl;
+        for (const auto &a : cooccur)
         {
-            string t = p.first;
-            int freq = p.second;
-            cout << t << "|" << freq << endl;
+            char pmi[32];
+            snprintf(pmi, sizeof(pmi), "%.3f", a.pmi);
+            out << a.tag << "|" << a.frequency << "|" << a.count << "|" << pmi << endl;
         }
-        cout << "TAG_COOCCUR_END" << endl;
+        out << "TAG_COOCCUR_END" << endl;
+    }
+    else if (command == "tag_neighborhood")
+    {
+        if (args.size() < 2)
+        {
+            err << "Error: Missing tag" << endl;
+            return 1;
+        }
+
+        // Every bound is clamped, so no request can walk the whole graph
+        int depth = args.size() >= 3 ? atoi(args[2].c_str()) : 2;
+        int fanout = args.size() >= 4 ? atoi(args[3].c_str()) : 12;
+        int maxNodes = args.size() >= 5 ? atoi(args[4].c_str()) : 300;
+        depth = max(1, min(depth, 4));
+        fanout = max(1, min(fanout, 50));
+        maxNodes = max(1, min(maxNodes, 2000));
+
+        vector<TagEdge> edges;
+        auto nodes = engine.getTagNeighborhood(args[1], depth, fanout, maxNodes, edges);
+
+        out << "NEIGHBORHOOD_START" << endl;
+        for (const auto &node : nodes)
+        {
+            out << "NODE|" << node.tag << "|" << node.depth << "|" << node.frequency << endl;
+        }
+        for (const auto &edge : edges)
+        {
+            out << "EDGE|" << edge.from << "|" << edge.to << "|" << edge.count << endl;
+        }
+        out << "NEIGHBORHOOD_END" << endl;
     }
     else if (command == "top_snippets_lang")
     {
-        if (argc < 4)
+        if (args.size() < 3)
         {
-            cerr << "Error: Missing language and data file" << endl;
+            err << "Error: Missing language and data file" << endl;
             return 1;
         }
 
-        if (!engine.loadSnippetsFromFile(argv[3]))
+        if (!engine.loadSnippetsFromFile(args[2]))
         {
-            cerr << "ERROR: Failed to load data" << endl;
+            err << "ERROR: Failed to load data" << endl;
             return 1;
         }
 
-        string language = argv[2];
-        int n = argc >= 5 ? atoi(argv[4]) : 10;
+        string language = args[1];
+        int n = args.size() >= 4 ? atoi(args[3].c_str()) : 10;
         auto topSnippets = engine.getTopSnippetsByLanguage(language, n);
 
-        cout << "TOP_SNIPPETS_LANG_START" << endl;
+        out << "TOP_SNIPPETS_LANG_START" << endl;
         for (const auto &p : topSnippets)
         {
             string id = p.first;
             int count = p.second;
             auto snippet = engine.getSnippet(id);
-            cout << id << "|" << snippet.title << "|" << count << "|" << snippet.language << endl;
+            out << id << "|" << snippet.title << "|" << count << "|" << snippet.language << endl;
         }
-        cout << "TOP_SNIPPETS_LANG_END" << endl;
+        out << "TOP_SNIPPETS_LANG_END" << endl;
     }
     else if (command == "trending_tags_lang")
     {
-        if (argc < 3)
+        if (args.size() < 2)
         {
-            cerr << "Error: Missing language" << endl;
+            err << "Error: Missing language" << endl;
             return 1;
         }
 
-        string language = argv[2];
-        int n = argc >= 4 ? atoi(argv[3]) : 10;
+        string language = args[1];
+        int n = args.size() >= 3 ? atoi(args[2].c_str()) : 10;
         auto trendingTags = engine.getTrendingTagsByLanguage(language, n);
 
-        cout << "TRENDING_TAGS_LANG_START" << endl;
+        out << "TRENDING_TAGS_LANG_START" << endl;
         for (const auto &p : trendingTags)
         {
-            cout << p.first << "|" << p.second << endl;
+            out << p.first << "|" << p.second << endl;
         }
-        cout << "TRENDING_TAGS_LANG_END" << endl;
+        out << "TRENDING_TAGS_LANG_END" << endl;
     }
     else if (command == "trending_snippets")
     {
-        int n = argc >= 3 ? atoi(argv[2]) : 10;
+        int n = args.size() >= 2 ? atoi(args[1].c_str()) : 10;
         auto trendingSnippets = engine.getTrendingSnippets(n);
 
-        cout << "TRENDING_SNIPPETS_START" << endl;
+        out << "TRENDING_SNIPPETS_START" << endl;
         for (const auto &p : trendingSnippets)
         {
             auto snippet = engine.getSnippet(p.first);
-            cout << p.first << "|" << snippet.title << "|" << p.second << "|" << snippet.language << endl;
+            out << p.first << "|" << snippet.title << "|" << p.second << "|" << snippet.language << endl;
         }
-        cout << "TRENDING_SNIPPETS_END" << endl;
+        out << "TRENDING_SNIPPETS_END" << endl;
+    }
+    else if (command == "use")
+    {
+        // use <snippet_id> [epoch_seconds]; feeds usage counts and trending scores
+        if (args.size() < 2)
+        {
+            err << "Error: Missing snippet ID" << endl;
+            return 1;
+        }
+        long long when = args.size() >= 3 ? atoll(args[2].c_str()) : 0;
+        if (!engine.updateSnippetUsage(args[1], when))
+        {
+            err << "Error: Unknown snippet: " << args[1] << endl;
+            return 1;
+        }
+        out << "USED|" << args[1] << "|" << engine.getSnippet(args[1]).usageCount << endl;
+        if (!engine.isJournaled())
+            out << "WARNING: Usage journal unavailable; this use is kept in memory only" << endl;
+    }
+    else if (command == "feedback")
+    {
+        // feedback <0|1>: a page of recommendations was shown; 1 = the user took one
+        if (args.size() < 2 || (args[1] != "0" && args[1] != "1"))
+        {
+            err << "Error: Expected feedback 0 or 1" << endl;
+            return 1;
+        }
+        engine.trackRecommendation(args[1] == "1");
+        out << "FEEDBACK|" << args[1] << endl;
+        if (!engine.isJournaled())
+            out << "WARNING: Usage journal unavailable; this feedback is kept in memory only" << endl;
     }
     else if (command == "metrics")
     {
-        cout << engine.getRecommendationMetrics();
+        out << engine.getRecommendationMetrics();
     }
     else if (command == "stats")
     {
-        cout << "STATS_START" << endl;
-        cout << "total_tags|" << engine.getTotalTags() << endl;
-        cout << "total_snippets|" << engine.getTotalSnippets() << endl;
-        cout << "STATS_END" << endl;
+        out << "STATS_START" << endl;
+        out << "total_tags|" << engine.getTotalTags() << endl;
+        out << "total_snippets|" << engine.getTotalSnippets() << endl;
+        out << "STATS_END" << endl;
     }
     else if (command == "export")
     {
-        if (argc < 4)
+        if (args.size() < 3)
         {
-            cerr << "Error: Missing tag and output file" << endl;
+            err << "Error: Missing tag and output file" << endl;
             return 1;
         }
 
-        string tag = argv[2];
-        string outputFile = argv[3];
+        string tag = args[1];
+        string outputFile = args[2];
 
         if (engine.exportRecommendations(tag, outputFile))
         {
-            cout << "SUCCESS: Exported recommendations to " << outputFile << endl;
+            out << "SUCCESS: Exported recommendations to " << outputFile << endl;
         }
         else
         {
-            cout << "ERROR: Failed to export recommendations" << endl;
+            out << "ERROR: Failed to export recommendations" << endl;
             return 1;
         }
     }
     else
     {
-        cerr << "Error: Unknown command '" << command << "'" << endl;
-        printHelp();
+        err << "Error: Unknown command '" << command << "'" << endl;
+        printHelp(err);
         return 1;
     }
 
     return 0;
-}
\ No newline at end of file
+}
+
+// ================= SERVE MODE =================
+// Long-lived mode: the store is loaded once and many requests are answered over the
+// process pipes. Every message is a header line followed by a raw payload:
+//   request:  "<id> <length>\n" + <length> bytes, one argument per line
+//   response: "<id> <status> <length>\n" + <length> bytes of command output
+// The id is echoed back so the client can match responses to callers, which
+// also lets a request that journaled an event be answered once it is durable
+// while later requests are answered straight away.
+//
+// Those answers come from the journal's flusher thread, so the mutex that
+// orders writes to stdout lives at file scope rather than in serve()'s frame.
+static mutex serveOutput;
+
+int serve(RecommendationEngine &engine, UsageJournal &journal, bool dbLoaded)
+{
+    auto respond = [](const string &id, int status, const string &body)
+    {
+        lock_guard<mutex> guard(serveOutput);
+        cout << id << " " << status << " " << body.size() << "\n";
+        cout.write(body.data(), body.size());
+        cout.flush();
+    };
+
+#ifdef _WIN32
+    _setmode(_fileno(stdin), _O_BINARY);
+    _setmode(_fileno(stdout), _O_BINARY);
+#endif
+
+    string header;
+    while (getline(cin, header))
+    {
+        if (header.empty())
+            continue;
+
+        string id;
+        size_t length = 0;
+        stringstream hs(header);
+        hs >> id >> length;
+
+        string payload(length, '\0');
+        if (length > 0 && !cin.read(&payload[0], length))
+            break;
+
+        vector<string> args;
+        stringstream ps(payload);
+        string arg;
+        while (getline(ps, arg))
+            args.push_back(arg);
+
+        ostringstream result;
+        int status;
+        long long journaled = journal.lastSequence();
+        if (!args.empty() && args[0] == "reload")
+        {
+            engine.clear();
+            dbLoaded = loadDefaultDatabase(engine);
+            engine.applyUsage(journal.ledger());
+            result << (dbLoaded ? "SUCCESS: Reloaded database" : "ERROR: Failed to reload database") << endl;
+            status = dbLoaded ? 0 : 1;
+        }
+        else
+        {
+            status = runCommand(engine, args, dbLoaded, result, result);
+        }
+
+        string body = result.str();
+        if (journal.lastSequence() > journaled)
+            journal.whenDurable(journal.lastSequence(), [respond, id, status, body] { respond(id, status, body); });
+        else
+            respond(id, status, body);
+    }
+    journal.sync();
+    return 0;
+}
+
+int main(int argc, char *argv[])
+{
+    if (argc < 2)
+    {
+        printHelp(cout);
+        return 1;
+    }
+
+    RecommendationEngine engine;
+    bool dbLoaded = loadDefaultDatabase(engine);
+
+    if (!dbLoaded)
+    {
+        cerr << "WARNING: Could not load default database from snippets.json" << endl;
+    }
+
+    UsageJournal journal(USAGE_JOURNAL, USAGE_FOLD, RecommendationEngine::TREND_HALF_LIFE_SECONDS);
+    journal.open(); // warns itself; events are then kept in memory only
+    engine.applyUsage(journal.ledger());
+    engine.attachJournal(&journal);
+
+    if (string(argv[1]) == "serve")
+    {
+        return serve(engine, journal, dbLoaded);
+    }
+
+    vector<string> args(argv + 1, argv + argc);
+    int status = runCommand(engine, args, dbLoaded, cout, cerr);
+    journal.sync();
+    return status;
+}
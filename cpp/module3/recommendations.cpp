@@ -4,9 +4,147 @@
 #include <algorithm>
 #include <iostream>
 #include <cmath>
+#include <climits>
+#include <cstdlib>
+
+// Same rule as Language.detect on the Java side, over the same input: the
+// first 2048 bytes of the JSON-escaped body, unescaped. The snapshot carries
+// the language Java detected, so both load paths must agree with it.
+static string detectLanguage(const string &escapedCode)
+{
+    const size_t HEAD_BYTES = 2048;
+    string raw = escapedCode.substr(0, HEAD_BYTES);
+    string code;
+    for (size_t i = 0; i < raw.size(); i++)
+    {
+        if (raw[i] != '\\' || i + 1 >= raw.size())
+        {
+            code += raw[i];
+            continue;
+        }
+        char esc = raw[++i];
+        switch (esc)
+        {
+        case 'n': code += '\n'; break;
+        case 't': code += '\t'; break;
+        case 'r': code += '\r'; break;
+        case 'b': code += '\b'; break;
+        case 'f': code += '\f'; break;
+        case 'u':
+            if (i + 4 < raw.size())
+            {
+                // The markers are ASCII; anything else only needs to not match
+                long value = strtol(raw.substr(i + 1, 4).c_str(), nullptr, 16);
+                code += value > 0 && value < 0x80 ? (char)value : '?';
+                i += 4;
+            }
+            else
+            {
+                code += esc;
+            }
+            break;
+        default: code += esc;
+        }
+    }
+
+    auto has = [&code](const char *marker) { return code.find(marker) != string::npos; };
+    if (has("#include"))
+        return "C++";
+    if (has("public class") || has("System.out."))
+        return "Java";
+    if (has("package main") || has("fmt.Print"))
+        return "Go";
+    if (has("fn main") || has("let mut "))
+        return "Rust";
+    if (has("console.log") || has("function ") || has("=> {"))
+        return "JavaScript";
+    if (has("def ") || has("print("))
+        return "Python";
+    return "C++";
+}
+
+static void appendUtf8(string &out, unsigned long cp)
+{
+    if (cp < 0x80)
+        out += (char)cp;
+    else if (cp < 0x800)
+    {
+        out += (char)(0xC0 | (cp >> 6));
+        out += (char)(0x80 | (cp & 0x3F));
+    }
+    else if (cp < 0x10000)
+    {
+        out += (char)(0xE0 | (cp >> 12));
+        out += (char)(0x80 | ((cp >> 6) & 0x3F));
+        out += (char)(0x80 | (cp & 0x3F));
+    }
+    else
+    {
+        out += (char)(0xF0 | (cp >> 18));
+        out += (char)(0x80 | ((cp >> 12) & 0x3F));
+        out += (char)(0x80 | ((cp >> 6) & 0x3F));
+        out += (char)(0x80 | (cp & 0x3F));
+    }
+}
+
+// Titles are decoded in full, as the Java reader and the snapshot have them;
+// only code stays escaped
+static string decodeTitle(const string &escaped)
+{
+    string title;
+    for (size_t i = 0; i < escaped.size(); i++)
+    {
+        if (escaped[i] != '\\' || i + 1 >= escaped.size())
+        {
+            title += escaped[i];
+            continue;
+        }
+        char esc = escaped[++i];
+        switch (esc)
+        {
+        case 'n': title += '\n'; break;
+        case 't': title += '\t'; break;
+        case 'r': title += '\r'; break;
+        case 'b': title += '\b'; break;
+        case 'f': title += '\f'; break;
+        case 'u':
+        {
+            if (i + 4 >= escaped.size())
+                break;
+            unsigned long cp = strtoul(escaped.substr(i + 1, 4).c_str(), nullptr, 16);
+            i += 4;
+            if (cp >= 0xD800 && cp < 0xDC00 && i + 6 < escaped.size() && escaped[i + 1] == '\\' &&
+                escaped[i + 2] == 'u')
+            {
+                unsigned long low = strtoul(escaped.substr(i + 3, 4).c_str(), nullptr, 16);
+                if (low >= 0xDC00 && low < 0xE000)
+                {
+                    cp = 0x10000 + ((cp - 0xD800) << 10) + (low - 0xDC00);
+                    i += 6;
+                }
+            }
+            appendUtf8(title, cp);
+            break;
+        }
+        default: title += esc; // \" \\ \/
+        }
+    }
+    return title;
+}
 
 bool RecommendationEngine::loadSnippetsFromFile(const string &filename)
 {
+    // Prefer the binary snapshot the Java data layer keeps next to the JSON;
+    // it is only used while it matches the JSON, which stays the source of truth
+    StoreSnapshot snapshot;
+    string snapPath = snapshotPathFor(filename);
+    if (snapshot.open(snapPath, filename))
+    {
+        int count = loadSnippetsFromSnapshot(snapshot); // ranks the tag graph once, at the end
+        cerr << "Successfully loaded " << count << " snippets from " << snapPath << endl;
+        return true;
+    }
+
     // Load snippets from JSON file (key-value format)
     ifstream file(filename);
     if (!file.is_open())
@@ -31,6 +169,8 @@ bool RecommendationEngine::loadSnippetsFromFile(const string &filename)
 
     pos++;
 
+    // Tag rankings are built once after the whole file rather than per snippet
+    tagGraph.beginBatch();
     while (pos < jsonContent.length())
     {
         // Find next quote (key start)
@@ -39,11 +179,13 @@ bool RecommendationEngine::loadSnippetsFromFile(const string &filename)
             break;
 
         pos++;
-        size_t keyEnd = jsonContent.find("\"", pos);
-        if (keyEnd == string::npos)
+        size_t keyEnd = pos;
+        while (keyEnd < jsonContent.length() && jsonContent[keyEnd] != '"')
+            keyEnd += jsonContent[keyEnd] == '\\' ? 2 : 1;
+        if (keyEnd >= jsonContent.length())
             break;
 
-        string key = jsonContent.substr(pos, keyEnd - pos);
+        string key = decodeTitle(jsonContent.substr(pos, keyEnd - pos));
         pos = keyEnd + 1;
 
         // Skip to colon
@@ -90,10 +232,9 @@ bool RecommendationEngine::loadSnippetsFromFile(const string &filename)
         SnippetMetadata snippet;
         snippet.id = key;
         snippet.title = key;
-        snippet.language = "C++";
+        snippet.language = detectLanguage(value);
         snippet.code = value; // Store the actual code
         snippet.usageCount = 0;
-        snippet.lastModified = "2024-12-25";
 
         // Auto-generate tags based on key
         string normalizedTitle = toLowercase(key);
@@ -129,11 +270,67 @@ bool RecommendationEngine::loadSnippetsFromFile(const string &filename)
         addSnippet(snippet);
         snippetCount++;
     }
+    tagGraph.endBatch();
 
-    cout << "Successfully loaded " << snippetCount << " snippets from " << filename << endl;
+    cerr << "Successfully loaded " << snippetCount << " snippets from " << filename << endl;
     return true;
 }
 
+// Snapshot bodies are decoded; the JSON path keeps code in its escaped form,
+// which is what the line-based command output relies on
+static string escapeCode(const string &code)
+{
+    string out;
+    out.reserve(code.size() + code.size() / 8);
+    for (unsigned char c : code)
+    {
+        switch (c)
+        {
+        case '"': out += "\\\""; break;
+        case '\\': out += "\\\\"; break;
+        case '\n': out += "\\n"; break;
+        case '\r': out += "\\r"; break;
+        case '\t': out += "\\t"; break;
+        case '\b': out += "\\b"; break;
+        case '\f': out += "\\f"; break;
+        default:
+            if (c < 0x20)
+            {
+                const char *hex = "0123456789abcdef";
+                out += "\\u00";
+                out += hex[c >> 4];
+                out += hex[c & 0xf];
+            }
+            else
+            {
+                out += (char)c;
+            }
+        }
+    }
+    return out;
+}
+
+int RecommendationEngine::loadSnippetsFromSnapshot(const StoreSnapshot &snapshot)
+{
+    // Tags and language were already derived by the writer with the same rules
+    // as the JSON path above, so records go straight into the store
+    tagGraph.beginBatch();
+    for (uint32_t i = 0; i < snapshot.snippetCount(); i++)
+    {
+        SnapshotRecord record = snapshot.record(i);
+        SnippetMetadata snippet;
+        snippet.id = record.title;
+        snippet.title = record.title;
+        snippet.language = record.language;
+        snippet.code = escapeCode(record.code);
+        snippet.tags = std::move(record.tags);
+        snippet.usageCount = record.usageCount;
+        addSnippet(snippet);
+    }
+    tagGraph.endBatch();
+    return (int)snapshot.snippetCount();
+}
+
 void RecommendationEngine::addSnippet(const SnippetMetadata &snippet)
 {
     snippetStore[snippet.id] = snippet;
@@ -141,81 +338,78 @@ void RecommendationEngine::addSnippet(const SnippetMetadata &snippet)
     // Update language distribution
     languageDistribution[snippet.language]++;
 
-    // Build tag graph
-    for (const string &tag : snippet.tags)
-    {
-        tagGraph.addTag(tag);
-        tagGraph.addSnippetToTag(tag, snippet.id);
-        tagGraph.incrementTagFrequency(tag);
-    }
+    // Stored counts are all-time totals without timestamps, so they stay out
+    // of the trend counters; only dated uses (use, the journal) feed those
 
-    // Create edges between co-occurring tags
-    for (size_t i = 0; i < snippet.tags.size(); i++)
-    {
-        for (size_t j = i + 1; j < snippet.tags.size(); j++)
-        {
-            tagGraph.addEdge(snippet.tags[i], snippet.tags[j]);
-        }
-    }
+    // Build tag graph: frequencies, weighted co-occurrences and rankings
+    tagGraph.addTagSet(snippet.id, snippet.tags);
+}
+
+bool RecommendationFilter::matches(const SnippetMetadata &snippet) const
+{
+    if (snippet.usageCount < minUsage)
+        return false;
+    if (language.empty())
+        return true;
+    string wanted = toLowercase(language);
+    return wanted == "all" || wanted == toLowercase(snippet.language);
 }
 
-vector<pair<string, double>> RecommendationEngine::getRecommendationsByTag(const string &tag, int limit)
+vector<pair<string, double>> RecommendationEngine::getRecommendationsByTag(const string &tag, int limit,
+                                                                           const RecommendationFilter &filter)
 {
     vector<pair<string, double>> recommendations;
+    if (limit <= 0)
+        return recommendations;
 
     // Convert tag to lowercase for case-insensitive search
     string normalizedTag = toLowercase(tag);
 
-    // FIRST: Try exact match
-    auto relatedTags = tagGraph.findRelatedTags(normalizedTag, limit * 2);
+    // FIRST: Try exact match (every related tag, best first; the window is cut below)
+    auto relatedTags = tagGraph.findRelatedTags(normalizedTag, INT_MAX);
 
     // SECOND: If no exact match, find tags containing the search term (substring match)
     if (relatedTags.empty())
     {
-        // Find all tags that CONTAIN the search term
+        // Find all tags that CONTAIN the search term, or that it contains
         vector<pair<string, int>> matchingTags;
-        vector<string> allTags = tagGraph.getAllTags();
-
-        for (const string &graphTag : allTags)
+        for (const string &graphTag : tagGraph.findTagsBySubstring(normalizedTag))
         {
-            if (graphTag.find(normalizedTag) != string::npos ||
-                normalizedTag.find(graphTag) != string::npos) // Also match if search term contains tag
-            {
-                int freq = tagGraph.getTagFrequency(graphTag);
-                matchingTags.push_back({graphTag, freq});
-            }
+            int freq = tagGraph.getTagFrequency(graphTag);
+            matchingTags.push_back({graphTag, freq});
         }
 
         // Sort by frequency
         sort(matchingTags.begin(), matchingTags.end(),
              [](const pair<string, int> &a, const pair<string, int> &b)
              {
-                 return a.second > b.second;
+                 return a.second > b.second || (a.second == b.second && a.first < b.first);
              });
 
         // Convert to double scores
-        if (!matchingTags.empty())
+        for (const auto &p : matchingTags)
         {
-            for (const auto &p : matchingTags)
-            {
-                relatedTags.push_back({p.first, (double)p.second});
-            }
+            relatedTags.push_back({p.first, (double)p.second});
         }
     }
 
-    // Get snippets for related tags
+    // Score snippets of the best related tags. The window is the top limit*2
+    // tags, widened only until `limit` snippets have passed the filter, so a
+    // narrow filter still fills its page without scoring the whole graph
     unordered_map<string, double> snippetScores;
+    size_t window = (size_t)limit * 2;
 
-    for (const auto &p : relatedTags)
+    for (size_t i = 0; i < relatedTags.size(); i++)
     {
-        string relatedTag = p.first;
-        double score = p.second;
-        auto snippets = tagGraph.getSnippetsForTag(relatedTag);
+        if (i >= window && snippetScores.size() >= (size_t)limit)
+            break;
 
-        for (const string &snippetId : snippets)
+        const string &relatedTag = relatedTags[i].first;
+        double score = relatedTags[i].second;
+        for (const string &snippetId : tagGraph.getSnippetsForTag(relatedTag))
         {
             auto it = snippetStore.find(snippetId);
-            if (it != snippetStore.end())
+            if (it != snippetStore.end() && filter.matches(it->second))
             {
                 // FIXED: Prioritize TAG RELEVANCE (80%) over usage count (20%)
                 // This ensures accurate tag-based recommendations
@@ -226,22 +420,15 @@ vector<pair<string, double>> RecommendationEngine::getRecommendationsByTag(const
         }
     }
 
-    // Convert to vector and sort
-    for (const auto &pair : snippetScores)
-    {
-        recommendations.push_back(pair);
-    }
-
-    sort(recommendations.begin(), recommendations.end(),
-         [](const pair<string, double> &a, const pair<string, double> &b)
-         {
-             return a.second > b.second;
-         });
-
-    if (recommendations.size() > limit)
-    {
-        recommendations.resize(limit);
-    }
+    // Only the page is ordered: partial sort of the qualifying candidates
+    recommendations.assign(snippetScores.begin(), snippetScores.end());
+    size_t page = min(recommendations.size(), (size_t)limit);
+    partial_sort(recommendations.begin(), recommendations.begin() + page, recommendations.end(),
+                 [](const pair<string, double> &a, const pair<string, double> &b)
+                 {
+                     return a.second != b.second ? a.second > b.second : a.first < b.first;
+                 });
+    recommendations.resize(page);
 
     return recommendations;
 }
@@ -330,9 +517,9 @@ vector<pair<string, int>> RecommendationEngine::getTopUsedSnippets(int n)
     return snippets;
 }
 
-vector<pair<string, int>> RecommendationEngine::getTrendingTags(int n)
+vector<pair<string, double>> RecommendationEngine::getTrendingTags(int n)
 {
-    return tagGraph.getTopTags(n);
+    return tagTrend.top(n, (double)time(nullptr));
 }
 
 vector<pair<string, int>> RecommendationEngine::getLanguageDistribution()
@@ -353,40 +540,78 @@ vector<pair<string, int>> RecommendationEngine::getLanguageDistribution()
     return distribution;
 }
 
-void RecommendationEngine::updateSnippetUsage(const string &snippetId)
+void RecommendationEngine::attachJournal(UsageJournal *usageJournal)
 {
-    auto it = snippetStore.find(snippetId);
-    if (it != snippetStore.end())
-    {
-        it->second.usageCount++;
+    journal = usageJournal;
+}
 
-        // Update recent activity
-        recentActivity.push_back({snippetId, it->second.usageCount});
-        if (recentActivity.size() > 100)
-        {
-            recentActivity.erase(recentActivity.begin());
-        }
+void RecommendationEngine::applyUsage(const UsageLedger &ledger)
+{
+    // The ledger's decayed counts are exact as of now, so they enter the trend
+    // counters as that many uses happening now
+    double now = (double)time(nullptr);
+    for (const auto &p : ledger.snippets)
+    {
+        auto it = snippetStore.find(p.first);
+        if (it == snippetStore.end())
+            continue; // deleted since
+        it->second.usageCount += (int)p.second.count;
+        it->second.lastUsed = max(it->second.lastUsed, p.second.lastUsed);
+
+        double recent = ledger.recent.value(p.first, now);
+        snippetTrend.add(p.first, recent, now);
+        for (const string &tag : it->second.tags)
+            tagTrend.add(tag, recent, now);
     }
+
+    metrics.totalRecommendations += (int)ledger.recommendations;
+    metrics.clickedRecommendations += (int)ledger.clicked;
+    metrics.accuracy = (metrics.totalRecommendations > 0) ? (double)metrics.clickedRecommendations / metrics.totalRecommendations : 0.0;
 }
 
-vector<pair<string, int>> RecommendationEngine::getTagCooccurrence(const string &tag)
+bool RecommendationEngine::updateSnippetUsage(const string &snippetId, long long when)
 {
-    vector<pair<string, int>> cooccurrence;
-    auto neighbors = tagGraph.getNeighbors(tag);
+    auto it = snippetStore.find(snippetId);
+    if (it == snippetStore.end())
+        return false;
 
-    for (const string &neighbor : neighbors)
+    if (when <= 0)
+        when = (long long)time(nullptr);
+    it->second.usageCount++;
+    it->second.lastUsed = max(it->second.lastUsed, when);
+
+    // One counter per snippet and per tag; nothing else is rescored
+    snippetTrend.add(snippetId, 1, (double)when);
+    for (const string &tag : it->second.tags)
+        tagTrend.add(tag, 1, (double)when);
+    if (journal)
+        journal->recordUse(snippetId, when);
+
+    // Update recent activity
+    recentActivity.push_back({snippetId, it->second.usageCount});
+    if (recentActivity.size() > 100)
     {
-        int freq = tagGraph.getTagFrequency(neighbor);
-        cooccurrence.push_back(make_pair(neighbor, freq));
+        recentActivity.erase(recentActivity.begin());
     }
+    return true;
+}
 
-    sort(cooccurrence.begin(), cooccurrence.end(),
-         [](const pair<string, int> &a, const pair<string, int> &b)
-         {
-             return a.second > b.second;
-         });
+vector<TagAssociation> RecommendationEngine::getTagCooccurrence(const string &tag, int limit) const
+{
+    return tagGraph.strongestNeighbors(toLowercase(tag), limit);
+}
 
-    return cooccurrence;
+vector<NeighborhoodNode> RecommendationEngine::getTagNeighborhood(const string &tag, int depth, int fanout,
+                                                                  int maxNodes, vector<TagEdge> &edges) const
+{
+    vector<NeighborhoodNode> nodes = tagGraph.boundedNeighborhood(toLowercase(tag), depth, fanout, maxNodes);
+
+    vector<string> tags;
+    tags.reserve(nodes.size());
+    for (const auto &node : nodes)
+        tags.push_back(node.tag);
+    edges = tagGraph.edgesWithin(tags);
+    return nodes;
 }
 
 bool RecommendationEngine::exportRecommendations(const string &tag, const string &outputFile)
@@ -440,6 +665,9 @@ void RecommendationEngine::clear()
     snippetStore.clear();
     languageDistribution.clear();
     recentActivity.clear();
+    snippetTrend.clear();
+    tagTrend.clear();
+    metrics = RecommendationMetrics{};
 }
 
 // NEW METHODS FOR ENHANCED FEATURES
@@ -507,39 +735,10 @@ vector<pair<string, int>> RecommendationEngine::getTrendingTagsByLanguage(const
     return result;
 }
 
-// Time-decay scoring for trending snippets
-double calculateTimeDecay(const string &lastModified)
-{
-    // Simple calculation: newer = higher score
-    // In production, parse actual date
-    return 1.0; // Placeholder
-}
-
+// Decayed usage as of now, read straight off the ordered counters
 vector<pair<string, double>> RecommendationEngine::getTrendingSnippets(int n)
 {
-    vector<pair<string, double>> trendingSnippets;
-
-    for (const auto &p : snippetStore)
-    {
-        double usageScore = log(p.second.usageCount + 1);
-        double timeDecay = calculateTimeDecay(p.second.lastModified);
-        double trendScore = usageScore * timeDecay;
-
-        trendingSnippets.push_back(make_pair(p.first, trendScore));
-    }
-
-    sort(trendingSnippets.begin(), trendingSnippets.end(),
-         [](const pair<string, double> &a, const pair<string, double> &b)
-         {
-             return a.second > b.second;
-         });
-
-    if (trendingSnippets.size() > n)
-    {
-        trendingSnippets.resize(n);
-    }
-
-    return trendingSnippets;
+    return snippetTrend.top(n, (double)time(nullptr));
 }
 
 // Track recommendation metrics
@@ -551,6 +750,8 @@ void RecommendationEngine::trackRecommendation(bool clicked)
         metrics.clickedRecommendations++;
     }
     metrics.accuracy = (metrics.totalRecommendations > 0) ? (double)metrics.clickedRecommendations / metrics.totalRecommendations : 0.0;
+    if (journal)
+        journal->recordFeedback(clicked);
 }
 
 // Get recommendation metrics as formatted string
@@ -2,6 +2,9 @@
 #define RECOMMENDATIONS_H
 
 #include "graph.h"
+#include "snapshot.h"
+#include "trending.h"
+#include "journal.h"
 #include <vector>
 #include <string>
 #include <unordered_map>
@@ -21,7 +24,17 @@ struct SnippetMetadata
     string language;
     string code;
     int usageCount;
-    string lastModified;
+    long long lastUsed = 0; // seconds since the epoch of the latest usage event, 0 = none recorded
+};
+
+// Predicates applied while recommendations are ranked, so a page of `limit`
+// results only ever contains qualifying snippets
+struct RecommendationFilter
+{
+    string language; // empty or "all" = any language (case-insensitive)
+    int minUsage = 0;
+
+    bool matches(const SnippetMetadata &snippet) const;
 };
 
 // Metrics tracking for recommendation quality
@@ -36,27 +49,40 @@ struct RecommendationMetrics
 
 class RecommendationEngine
 {
+public:
+    // Activity this old counts half as much towards trending scores
+    static constexpr double TREND_HALF_LIFE_SECONDS = 7 * 24 * 3600.0;
+
 private:
     TagGraph tagGraph;
     unordered_map<string, SnippetMetadata> snippetStore; // Level-1: HashMap
 
     // Analytics data
     unordered_map<string, int> languageDistribution;
+    DecayedCounters snippetTrend{TREND_HALF_LIFE_SECONDS};
+    DecayedCounters tagTrend{TREND_HALF_LIFE_SECONDS};
     vector<pair<string, int>> recentActivity; // Last 100 activities
 
     // Metrics tracking
-    RecommendationMetrics metrics;
+    RecommendationMetrics metrics{};
     int totalSnippets;
 
+    // Where usage and feedback events are made durable; null = memory only
+    UsageJournal *journal = nullptr;
+
 public:
-    // Initialize from data file
+    // Initialize from data file (uses the binary snapshot next to it when it is up to date)
     bool loadSnippetsFromFile(const string &filename);
 
+    // Initialize from a mapped binary snapshot of the store
+    int loadSnippetsFromSnapshot(const StoreSnapshot &snapshot);
+
     // Add snippet and update graph
     void addSnippet(const SnippetMetadata &snippet);
 
-    // Get recommendations based on tag
-    vector<pair<string, double>> getRecommendationsByTag(const string &tag, int limit = 10);
+    // Get recommendations based on tag, keeping only snippets that pass the filter
+    vector<pair<string, double>> getRecommendationsByTag(const string &tag, int limit = 10,
+                                                         const RecommendationFilter &filter = RecommendationFilter());
 
     // Get recommendations based on snippet ID
     vector<pair<string, double>> getRecommendationsBySnippet(const string &snippetId, int limit = 10);
@@ -66,25 +92,41 @@ public:
 
     // Analytics functions
     vector<pair<string, int>> getTopUsedSnippets(int n = 10);
-    vector<pair<string, int>> getTrendingTags(int n = 10);
+    vector<pair<string, double>> getTrendingTags(int n = 10);
     vector<pair<string, int>> getLanguageDistribution();
 
     // NEW: Language-specific analytics
     vector<pair<string, int>> getTopSnippetsByLanguage(const string &language, int n = 10);
     vector<pair<string, int>> getTrendingTagsByLanguage(const string &language, int n = 10);
 
-    // NEW: Time-decay based scoring
+    // Forward-decayed usage: recent activity outweighs old, no rescan per query
     vector<pair<string, double>> getTrendingSnippets(int n = 10);
 
     // NEW: Recommendation metrics
     string getRecommendationMetrics();
     void trackRecommendation(bool clicked);
 
-    // Update usage count
-    void updateSnippetUsage(const string &snippetId);
+    // Records one use of a snippet at `when` (seconds since the epoch, 0 = now);
+    // false when the id is unknown
+    bool updateSnippetUsage(const string &snippetId, long long when = 0);
+
+    // Events recorded from now on are also appended to `usageJournal`
+    void attachJournal(UsageJournal *usageJournal);
+
+    // Whether recorded events survive a restart (a journal is attached and open)
+    bool isJournaled() const { return journal && journal->isOpen(); }
+
+    // Adds journaled usage and feedback to the loaded store (after every load)
+    void applyUsage(const UsageLedger &ledger);
+
+    // The tag's most strongly associated neighbours (smoothed PMI), looked up
+    // in the graph's precomputed ranking
+    vector<TagAssociation> getTagCooccurrence(const string &tag, int limit = TagGraph::TOP_NEIGHBORS) const;
 
-    // Get tag co-occurrence statistics
-    vector<pair<string, int>> getTagCooccurrence(const string &tag);
+    // Bounded multi-hop neighbourhood of a tag; `edges` receives the links
+    // among the returned tags as index pairs into the result, with their counts
+    vector<NeighborhoodNode> getTagNeighborhood(const string &tag, int depth, int fanout, int maxNodes,
+                                                vector<TagEdge> &edges) const;
 
     // Export recommendations to file
     bool exportRecommendations(const string &tag, const string &outputFile);
@@ -0,0 +1,205 @@
+#include "snapshot.h"
+#include <cstring>
+#include <sys/stat.h>
+#ifdef _WIN32
+#define WIN32_LEAN_AND_MEAN
+#define NOMINMAX
+#include <windows.h>
+#else
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <unistd.h>
+#endif
+
+// Must match SnapshotFile.java
+static const uint32_t SNAPSHOT_MAGIC = 0x50414E53; // "SNAP"
+static const uint32_t SNAPSHOT_VERSION = 1;
+static const size_t HEADER_SIZE = 96;
+static const size_t RECORD_SIZE = 40;
+static const size_t TAG_SIZE = 12;
+
+string snapshotPathFor(const string &jsonPath)
+{
+    size_t slash = jsonPath.find_last_of("/\\");
+    size_t dot = jsonPath.rfind('.');
+    if (dot == string::npos || (slash != string::npos && dot < slash))
+        return jsonPath + ".snap";
+    return jsonPath.substr(0, dot) + ".snap";
+}
+
+StoreSnapshot::~StoreSnapshot()
+{
+    close();
+}
+
+// ================= MAPPING =================
+bool StoreSnapshot::open(const string &snapPath, const string &jsonPath)
+{
+    close();
+
+    struct stat source;
+    if (stat(jsonPath.c_str(), &source) != 0)
+        return false;
+
+#ifdef _WIN32
+    HANDLE file = CreateFileA(snapPath.c_str(), GENERIC_READ, FILE_SHARE_READ | FILE_SHARE_DELETE, nullptr,
+                              OPEN_EXISTING, FILE_ATTRIBUTE_NORMAL, nullptr);
+    if (file == INVALID_HANDLE_VALUE)
+        return false;
+    LARGE_INTEGER size;
+    if (!GetFileSizeEx(file, &size) || size.QuadPart < (LONGLONG)HEADER_SIZE)
+    {
+        CloseHandle(file);
+        return false;
+    }
+    HANDLE mapping = CreateFileMappingA(file, nullptr, PAGE_READONLY, 0, 0, nullptr);
+    void *view = mapping ? MapViewOfFile(mapping, FILE_MAP_READ, 0, 0, 0) : nullptr;
+    if (!view)
+    {
+        if (mapping)
+            CloseHandle(mapping);
+        CloseHandle(file);
+        return false;
+    }
+    fileHandle = file;
+    mappingHandle = mapping;
+    base = static_cast<const unsigned char *>(view);
+    length = (size_t)size.QuadPart;
+#else
+    int fd = ::open(snapPath.c_str(), O_RDONLY);
+    if (fd < 0)
+        return false;
+    struct stat info;
+    if (fstat(fd, &info) != 0 || info.st_size < (off_t)HEADER_SIZE)
+    {
+        ::close(fd);
+        return false;
+    }
+    void *view = mmap(nullptr, (size_t)info.st_size, PROT_READ, MAP_PRIVATE, fd, 0);
+    ::close(fd); // the mapping stays valid
+    if (view == MAP_FAILED)
+        return false;
+    base = static_cast<const unsigned char *>(view);
+    length = (size_t)info.st_size;
+#endif
+
+    // The header stamps the JSON it was built from: size exactly, modification
+    // time in milliseconds (compared at the one-second resolution stat gives)
+    int64_t sourceSize = (int64_t)u64(8);
+    int64_t sourceModified = (int64_t)u64(16);
+    if (u32(0) != SNAPSHOT_MAGIC || u32(4) != SNAPSHOT_VERSION || u64(72) != length ||
+        sourceSize != (int64_t)source.st_size || sourceModified / 1000 != (int64_t)source.st_mtime)
+    {
+        close();
+        return false;
+    }
+
+    snippets = u32(24);
+    tags = u32(28);
+    stringsOffset = u64(32);
+    recordsOffset = u64(40);
+    tagsOffset = u64(48);
+    snippetTagsOffset = u64(56);
+    tagSnippetsOffset = u64(64);
+    if (!validate())
+    {
+        close();
+        return false;
+    }
+    return true;
+}
+
+void StoreSnapshot::close()
+{
+    if (!base)
+        return;
+#ifdef _WIN32
+    UnmapViewOfFile(base);
+    CloseHandle((HANDLE)mappingHandle);
+    CloseHandle((HANDLE)fileHandle);
+    mappingHandle = fileHandle = nullptr;
+#else
+    munmap(const_cast<unsigned char *>(base), length);
+#endif
+    base = nullptr;
+    length = 0;
+    snippets = tags = 0;
+}
+
+// Section bounds only; string and code spans are checked as they are read
+bool StoreSnapshot::validate() const
+{
+    auto fits = [this](uint64_t offset, uint64_t size)
+    { return offset <= length && size <= length - offset; };
+    if (!fits(recordsOffset, (uint64_t)snippets * RECORD_SIZE) || !fits(tagsOffset, (uint64_t)tags * TAG_SIZE) ||
+        !fits(snippetTagsOffset, 4ull * (snippets + 1)) || !fits(tagSnippetsOffset, 4ull * (tags + 1)))
+        return false;
+    uint64_t snippetEdges = u32(snippetTagsOffset + 4ull * snippets);
+    uint64_t tagEdges = u32(tagSnippetsOffset + 4ull * tags);
+    return fits(snippetTagsOffset + 4ull * (snippets + 1), 4 * snippetEdges) &&
+           fits(tagSnippetsOffset + 4ull * (tags + 1), 4 * tagEdges);
+}
+
+// ================= ACCESS =================
+uint32_t StoreSnapshot::u32(uint64_t pos) const
+{
+    unsigned char b[4];
+    memcpy(b, base + pos, 4);
+    return (uint32_t)b[0] | (uint32_t)b[1] << 8 | (uint32_t)b[2] << 16 | (uint32_t)b[3] << 24;
+}
+
+uint64_t StoreSnapshot::u64(uint64_t pos) const
+{
+    return (uint64_t)u32(pos) | (uint64_t)u32(pos + 4) << 32;
+}
+
+string StoreSnapshot::text(uint64_t pos, uint32_t len) const
+{
+    if (pos > length || len > length - pos)
+        return "";
+    return string(reinterpret_cast<const char *>(base + pos), len);
+}
+
+string StoreSnapshot::tagName(uint32_t tag) const
+{
+    uint64_t at = tagsOffset + (uint64_t)tag * TAG_SIZE;
+    return text(stringsOffset + u32(at), u32(at + 4));
+}
+
+SnapshotRecord StoreSnapshot::record(uint32_t index) const
+{
+    uint64_t at = recordsOffset + (uint64_t)index * RECORD_SIZE;
+    SnapshotRecord r;
+    r.code = text(u64(at), u32(at + 8));
+    r.title = text(stringsOffset + u32(at + 12), u32(at + 16));
+    r.language = text(stringsOffset + u32(at + 20), u32(at + 24));
+    r.usageCount = (int)u32(at + 28);
+
+    uint32_t first = u32(snippetTagsOffset + 4ull * index);
+    uint32_t end = u32(snippetTagsOffset + 4ull * (index + 1));
+    uint64_t ids = snippetTagsOffset + 4ull * (snippets + 1);
+    if (first > end || ids + 4ull * end > length)
+        return r;
+    for (uint32_t k = first; k < end; k++)
+    {
+        uint32_t tag = u32(ids + 4ull * k);
+        if (tag < tags)
+            r.tags.push_back(tagName(tag));
+    }
+    return r;
+}
+
+vector<uint32_t> StoreSnapshot::snippetsForTag(uint32_t tag) const
+{
+    vector<uint32_t> result;
+    if (tag >= tags)
+        return result;
+    uint32_t first = u32(tagSnippetsOffset + 4ull * tag);
+    uint32_t end = u32(tagSnippetsOffset + 4ull * (tag + 1));
+    uint64_t ids = tagSnippetsOffset + 4ull * (tags + 1);
+    if (first > end || ids + 4ull * end > length)
+        return result;
+    for (uint32_t k = first; k < end; k++)
+        result.push_back(u32(ids + 4ull * k));
+    return result;
+}
@@ -0,0 +1,69 @@
+#ifndef SNAPSHOT_H
+#define SNAPSHOT_H
+
+#include <cstddef>
+#include <cstdint>
+#include <string>
+#include <vector>
+
+using namespace std;
+
+// Read side of the binary store snapshot written by the Java data layer
+// (java/src/com/snippetmanager/core/SnapshotFile.java documents the layout).
+// The whole file is mapped once; records are decoded on request.
+struct SnapshotRecord
+{
+    string title;
+    string language;
+    string code;
+    vector<string> tags;
+    int usageCount;
+};
+
+class StoreSnapshot
+{
+private:
+    const unsigned char *base = nullptr;
+    size_t length = 0;
+#ifdef _WIN32
+    void *fileHandle = nullptr;
+    void *mappingHandle = nullptr;
+#endif
+
+    uint32_t snippets = 0;
+    uint32_t tags = 0;
+    uint64_t stringsOffset = 0;
+    uint64_t recordsOffset = 0;
+    uint64_t tagsOffset = 0;
+    uint64_t snippetTagsOffset = 0;
+    uint64_t tagSnippetsOffset = 0;
+
+    uint32_t u32(uint64_t pos) const;
+    uint64_t u64(uint64_t pos) const;
+    string text(uint64_t pos, uint32_t len) const;
+    bool validate() const;
+
+public:
+    StoreSnapshot() = default;
+    StoreSnapshot(const StoreSnapshot &) = delete;
+    StoreSnapshot &operator=(const StoreSnapshot &) = delete;
+    ~StoreSnapshot();
+
+    // Maps snapPath; false when it is missing, damaged, or was not built
+    // from the current contents of jsonPath (the JSON is newer)
+    bool open(const string &snapPath, const string &jsonPath);
+    void close();
+
+    uint32_t snippetCount() const { return snippets; }
+    uint32_t tagCount() const { return tags; }
+    SnapshotRecord record(uint32_t index) const;
+    string tagName(uint32_t tag) const;
+
+    // Tag -> snippet adjacency (CSR row of snippet indices)
+    vector<uint32_t> snippetsForTag(uint32_t tag) const;
+};
+
+// "Data/snippets_large.json" -> "Data/snippets_large.snap"
+string snapshotPathFor(const string &jsonPath);
+
+#endif
@@ -0,0 +1,40 @@
+#ifndef CHECK_H
+#define CHECK_H
+
+#include <filesystem>
+#include <iostream>
+#include <string>
+
+// Minimal assertions for the test programs: every failed check is reported
+// with its location, and the program exits non-zero if any failed.
+inline int failures = 0;
+
+#define CHECK(cond)                                                                             \
+    do                                                                                          \
+    {                                                                                           \
+        if (!(cond))                                                                            \
+        {                                                                                       \
+            std::cerr << __FILE__ << ":" << __LINE__ << ": check failed: " #cond << std::endl; \
+            failures++;                                                                         \
+        }                                                                                       \
+    } while (0)
+
+// An empty directory of its own under the system temp directory
+inline std::string scratchDir(const std::string &name)
+{
+    std::filesystem::path dir = std::filesystem::temp_directory_path() / ("snippet-tests-" + name);
+    std::filesystem::remove_all(dir);
+    std::filesystem::create_directories(dir);
+    return dir.string();
+}
+
+inline int finish(const char *name)
+{
+    if (failures)
+        std::cerr << name << ": " << failures << " check(s) failed" << std::endl;
+    else
+        std::cout << name << ": ok" << std::endl;
+    return failures ? 1 : 0;
+}
+
+#endif
@@ -0,0 +1,149 @@
+// UsageJournal across restarts: enough events to fold, a crash that leaves a
+// journal the fold already covers, and a torn last line. Every reopen must
+// rebuild exactly the ledger of the events recorded, none lost or doubled.
+#include "../journal.h"
+#include "check.h"
+#include <cmath>
+#include <ctime>
+#include <filesystem>
+#include <fstream>
+
+namespace fs = std::filesystem;
+
+static const double HALF_LIFE = 7 * 24 * 3600.0;
+
+static bool sameLedger(const UsageLedger &actual, const UsageLedger &expected, double now)
+{
+    if (actual.snippets.size() != expected.snippets.size() || actual.recommendations != expected.recommendations ||
+        actual.clicked != expected.clicked)
+        return false;
+    for (const auto &p : expected.snippets)
+    {
+        auto it = actual.snippets.find(p.first);
+        if (it == actual.snippets.end() || it->second.count != p.second.count ||
+            it->second.lastUsed != p.second.lastUsed)
+            return false;
+        double want = expected.recent.value(p.first, now);
+        if (fabs(actual.recent.value(p.first, now) - want) > 1e-9 * want)
+            return false;
+    }
+    return true;
+}
+
+// Number of the newest "usage.journal.N" in dir, 0 if there is none
+static long long newestJournal(const string &dir)
+{
+    long long newest = 0;
+    for (const auto &item : fs::directory_iterator(dir))
+    {
+        string name = item.path().filename().string();
+        if (name.rfind("usage.journal.", 0) == 0)
+            newest = max(newest, atoll(name.c_str() + 14));
+    }
+    return newest;
+}
+
+int main()
+{
+    string dir = scratchDir("journal");
+    string base = dir + "/usage.journal";
+    string fold = dir + "/usage.fold";
+    UsageLedger expected(HALF_LIFE);
+    long long start = (long long)time(nullptr) - 100000;
+    long long now = start + 100000;
+
+    // Long ids make the journal pass the fold threshold after a few thousand
+    // events
+    string padding(300, 'x');
+    auto use = [&](UsageJournal &journal, int i)
+    {
+        string id = "snippet " + to_string(i % 37) + " " + padding;
+        journal.recordUse(id, start + i);
+        expected.recordUse(id, start + i);
+    };
+    auto feedback = [&](UsageJournal &journal, bool clicked)
+    {
+        journal.recordFeedback(clicked);
+        expected.recordFeedback(clicked);
+    };
+
+    fs::path stale = fs::path(dir) / "stale.journal";
+    {
+        UsageJournal journal(base, fold, HALF_LIFE);
+        CHECK(journal.open());
+        CHECK(journal.isOpen());
+        for (int i = 0; i < 100; i++)
+            use(journal, i);
+        feedback(journal, true);
+        feedback(journal, false);
+        journal.sync();
+        fs::copy_file(base + ".1", stale);
+
+        for (int i = 100; i < 6000; i++)
+        {
+            use(journal, i);
+            if (i % 500 == 0)
+                feedback(journal, i % 1000 == 0);
+        }
+        journal.sync();
+        CHECK(fs::exists(fold));
+        CHECK(!fs::exists(base + ".1"));
+        CHECK(sameLedger(journal.ledger(), expected, (double)now));
+
+        // Recorded after the fold, so only in the newest journal
+        for (int i = 6000; i < 6050; i++)
+            use(journal, i);
+        long long last = journal.lastSequence();
+        bool answered = false;
+        journal.whenDurable(last, [&answered] { answered = true; });
+        journal.sync();
+        CHECK(answered);
+    }
+
+    // A crash after the fold was renamed into place but before the journal
+    // it covers was deleted; and a last line torn in the middle
+    fs::copy_file(stale, base + ".1");
+    long long newest = newestJournal(dir);
+    CHECK(newest > 1);
+    {
+        ofstream out(base + "." + to_string(newest), ios::binary | ios::app);
+        out << "U " << now << " torn";
+    }
+
+    {
+        UsageJournal journal(base, fold, HALF_LIFE);
+        CHECK(journal.open());
+        CHECK(sameLedger(journal.ledger(), expected, (double)now));
+        CHECK(journal.ledger().snippets.count("torn") == 0);
+        CHECK(!fs::exists(base + ".1"));
+
+        // Appending after the cut-off line must start a line of its own
+        use(journal, 7000);
+        feedback(journal, true);
+        journal.sync();
+    }
+
+    {
+        UsageJournal journal(base, fold, HALF_LIFE);
+        CHECK(journal.open());
+        CHECK(sameLedger(journal.ledger(), expected, (double)now));
+        CHECK(journal.ledger().snippets.count("torn") == 0);
+    }
+
+    // A journal that cannot be opened keeps events in memory and answers at once
+    {
+        fs::create_directories(dir + "/blocked/usage.journal.1");
+        UsageJournal journal(dir + "/blocked/usage.journal", dir + "/blocked/usage.fold", HALF_LIFE);
+        CHECK(!journal.open());
+        CHECK(!journal.isOpen());
+        long long sequence = journal.recordUse("snippet", now);
+        bool answered = false;
+        journal.whenDurable(sequence, [&answered] { answered = true; });
+        CHECK(answered);
+        CHECK(journal.ledger().snippets.at("snippet").count == 1);
+        journal.sync();
+    }
+
+    fs::remove_all(dir);
+    return finish("journal_test");
+}
@@ -0,0 +1,114 @@
+// fixtures/store.snap was written by the Java data layer from
+// fixtures/store.json (SnapshotFileTest on the Java side keeps it in step
+// with the writer). The reader must map it, return every snippet as the JSON
+// has it, keep both CSR directions consistent, and load the engine to the
+// same state as the JSON path does.
+#include "../json.hpp"
+#include "../recommendations.h"
+#include "../snapshot.h"
+#include "check.h"
+#include <algorithm>
+#include <filesystem>
+#include <fstream>
+#include <map>
+#include <set>
+#ifdef _WIN32
+#include <sys/utime.h>
+#else
+#include <utime.h>
+#endif
+
+namespace fs = std::filesystem;
+using json = nlohmann::json;
+
+static const string FIXTURES = "fixtures";
+
+// Git does not keep modification times: give the JSON the one the snapshot
+// was stamped with (header offset 16, milliseconds, little-endian)
+static void stampJson(const string &snapPath, const string &jsonPath)
+{
+    ifstream in(snapPath, ios::binary);
+    unsigned char field[8] = {};
+    in.seekg(16);
+    in.read(reinterpret_cast<char *>(field), sizeof(field));
+    long long millis = 0;
+    for (int i = 7; i >= 0; i--)
+        millis = (millis << 8) | field[i];
+
+    struct utimbuf times;
+    times.actime = (time_t)(millis / 1000);
+    times.modtime = (time_t)(millis / 1000);
+    CHECK(utime(jsonPath.c_str(), &times) == 0);
+}
+
+int main()
+{
+    string dir = scratchDir("snapshot");
+    string jsonPath = dir + "/store.json";
+    string snapPath = dir + "/store.snap";
+    fs::copy_file(FIXTURES + "/store.json", jsonPath);
+    fs::copy_file(FIXTURES + "/store.snap", snapPath);
+    stampJson(snapPath, jsonPath);
+
+    json source = json::parse(ifstream(jsonPath, ios::binary));
+    CHECK(snapshotPathFor(jsonPath) == snapPath);
+
+    StoreSnapshot snapshot;
+    CHECK(snapshot.open(snapPath, jsonPath));
+    CHECK(snapshot.snippetCount() == source.size());
+
+    map<string, vector<string>> tagsOf;
+    for (uint32_t i = 0; i < snapshot.snippetCount(); i++)
+    {
+        SnapshotRecord record = snapshot.record(i);
+        CHECK(source.contains(record.title));
+        if (source.contains(record.title))
+            CHECK(record.code == source[record.title].get<string>());
+        CHECK(!record.language.empty());
+        CHECK(find(record.tags.begin(), record.tags.end(), "algorithm") != record.tags.end());
+        tagsOf[record.title] = record.tags;
+    }
+    CHECK(tagsOf.size() == source.size());
+
+    // Tag -> snippet rows hold exactly the snippets whose records name the tag
+    for (uint32_t tag = 0; tag < snapshot.tagCount(); tag++)
+    {
+        string name = snapshot.tagName(tag);
+        set<string> fromRows;
+        for (uint32_t snippet : snapshot.snippetsForTag(tag))
+            fromRows.insert(snapshot.record(snippet).title);
+        set<string> fromRecords;
+        for (const auto &p : tagsOf)
+            if (find(p.second.begin(), p.second.end(), name) != p.second.end())
+                fromRecords.insert(p.first);
+        CHECK(!fromRows.empty());
+        CHECK(fromRows == fromRecords);
+    }
+
+    // The engine reads the same store both ways
+    RecommendationEngine fromSnapshot;
+    CHECK(fromSnapshot.loadSnippetsFromFile(jsonPath));
+    fs::remove(snapPath);
+    RecommendationEngine fromJson;
+    CHECK(fromJson.loadSnippetsFromFile(jsonPath));
+    for (auto it = source.begin(); it != source.end(); ++it)
+    {
+        SnippetMetadata a = fromSnapshot.getSnippet(it.key());
+        SnippetMetadata b = fromJson.getSnippet(it.key());
+        CHECK(a.title == it.key());
+        CHECK(a.title == b.title && a.language == b.language && a.code == b.code);
+        CHECK(set<string>(a.tags.begin(), a.tags.end()) == set<string>(b.tags.begin(), b.tags.end()));
+    }
+
+    // A JSON newer than the snapshot makes it stale
+    fs::copy_file(FIXTURES + "/store.snap", snapPath);
+    StoreSnapshot stale;
+    {
+        ofstream out(jsonPath, ios::binary | ios::app);
+        out << "\n";
+    }
+    CHECK(!stale.open(snapPath, jsonPath));
+
+    fs::remove_all(dir);
+    return finish("snapshot_test");
+}
@@ -0,0 +1,80 @@
+#include "trending.h"
+#include <algorithm>
+#include <cmath>
+
+// exp() of this is ~1e260: far from overflow, and still exact enough relative
+// to the counters it scales
+static const double MAX_EXPONENT = 600.0;
+
+DecayedCounters::DecayedCounters(double halfLifeSeconds)
+    : lambda(log(2.0) / halfLifeSeconds), landmark(0)
+{
+}
+
+void DecayedCounters::add(const string &key, double count, double when)
+{
+    if (weights.empty())
+        landmark = when;
+    else if (lambda * (when - landmark) > MAX_EXPONENT)
+        rebase(when);
+
+    weights[key] += count * exp(lambda * (when - landmark));
+}
+
+// Moves the landmark forward and rescales every counter; only needed once per
+// MAX_EXPONENT / lambda seconds (about 16 years with a one-week half-life)
+void DecayedCounters::rebase(double now)
+{
+    double scale = exp(-lambda * (now - landmark));
+    landmark = now;
+    for (auto &entry : weights)
+        entry.second *= scale;
+}
+
+double DecayedCounters::value(const string &key, double now) const
+{
+    auto it = weights.find(key);
+    if (it == weights.end())
+        return 0.0;
+    return it->second * exp(-lambda * (now - landmark));
+}
+
+vector<pair<string, double>> DecayedCounters::top(int n, double now) const
+{
+    typedef const pair<const string, double> *Entry;
+    vector<pair<string, double>> result;
+    if (n <= 0)
+        return result;
+
+    // Heap front is the weakest of the best n seen so far
+    auto better = [](Entry a, Entry b)
+    { return a->second > b->second || (a->second == b->second && a->first > b->first); };
+    vector<Entry> heap;
+    heap.reserve(min((size_t)n, weights.size()));
+    for (const auto &entry : weights)
+    {
+        if ((int)heap.size() < n)
+        {
+            heap.push_back(&entry);
+            push_heap(heap.begin(), heap.end(), better);
+        }
+        else if (better(&entry, heap.front()))
+        {
+            pop_heap(heap.begin(), heap.end(), better);
+            heap.back() = &entry;
+            push_heap(heap.begin(), heap.end(), better);
+        }
+    }
+    sort_heap(heap.begin(), heap.end(), better);
+
+    double norm = exp(-lambda * (now - landmark));
+    for (Entry entry : heap)
+        result.push_back(make_pair(entry->first, entry->second * norm));
+    return result;
+}
+
+void DecayedCounters::clear()
+{
+    weights.clear();
+    landmark = 0;
+}
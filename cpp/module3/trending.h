@@ -0,0 +1,47 @@
+#ifndef TRENDING_H
+#define TRENDING_H
+
+#include <string>
+#include <unordered_map>
+#include <utility>
+#include <vector>
+
+using namespace std;
+
+// Forward-decayed activity counters, one per key (snippet id or tag).
+//
+// An event at time t adds exp(lambda * (t - landmark)) to its key instead of
+// decaying every counter as time passes; the decayed count at `now` is that
+// sum times exp(-lambda * (now - landmark)). The factor is the same for every
+// key, so recording an event is one O(1) hash update and the raw sums rank
+// the keys as the decayed counts would. Events far outnumber trending
+// queries, so no ordered index is kept: top-n scans the sums with a bounded
+// heap, O(keys * log n), and only the n reported values are normalized.
+class DecayedCounters
+{
+private:
+    double lambda;   // ln 2 / half-life, per second
+    double landmark; // seconds since the epoch
+    unordered_map<string, double> weights;
+
+    void rebase(double now);
+
+public:
+    explicit DecayedCounters(double halfLifeSeconds);
+
+    // Adds `count` events that happened at `when` (seconds since the epoch).
+    // A key seen with count 0 is still ranked, at the bottom
+    void add(const string &key, double count, double when);
+
+    // Decayed number of events for key as of `now`; 0 for unknown keys
+    double value(const string &key, double now) const;
+
+    // The n keys with the highest decayed counts as of `now`, highest first;
+    // equal counts in descending key order
+    vector<pair<string, double>> top(int n, double now) const;
+
+    size_t size() const { return weights.size(); }
+    void clear();
+};
+
+#endif
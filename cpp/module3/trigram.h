@@ -0,0 +1,38 @@
+#ifndef TRIGRAM_H
+#define TRIGRAM_H
+
+#include <cstdint>
+#include <string>
+#include <unordered_map>
+#include <vector>
+
+using namespace std;
+
+// Substring search over short strings such as tags. Every distinct one-,
+// two- and three-byte sequence of an indexed string has a posting list of
+// the ids of the strings containing it. A fragment of up to three bytes is
+// answered by its own list; a longer one can only occur in strings holding
+// all of its trigrams, so their lists are intersected, shortest first, and
+// the few candidates left are checked. Either way the cost follows the
+// number of matches, not the number of strings.
+//
+// Strings are compared byte for byte: callers lower-case both sides.
+class TrigramIndex
+{
+private:
+    unordered_map<uint32_t, vector<int>> postings; // ascending ids
+    unordered_map<string, int> idOf;
+    vector<string> texts; // id -> string
+
+    static vector<uint32_t> gramsOf(const string &text);
+
+public:
+    void insert(const string &text);
+
+    // Every indexed string containing the fragment, in insertion order
+    vector<string> find(const string &fragment) const;
+
+    void clear();
+};
+
+#endif
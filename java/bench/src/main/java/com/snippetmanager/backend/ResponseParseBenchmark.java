@@ -0,0 +1,66 @@
+package com.snippetmanager.backend;
+
+import com.snippetmanager.bench.SyntheticStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing module3 replies the way the panels do: BackendResponse.section to
+ * cut out the rows, then {@code line.split("\\|")} per row. Replies list one
+ * row per snippet, so cost grows with the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParseBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int snippets;
+
+    private BackendResponse recommendations;
+    private BackendResponse cooccurrence;
+
+    @Setup
+    public void setUp() {
+        SyntheticStore store = new SyntheticStore(snippets, 42);
+        recommendations = new BackendResponse(0, store.recommendationResponse());
+        cooccurrence = new BackendResponse(0, store.cooccurrenceResponse());
+    }
+
+    /** RecommendationPanelPro.searchTag: six fields, code last. */
+    @Benchmark
+    public void recommendationRows(Blackhole bh) {
+        for (String line : recommendations.section("RECOMMENDATIONS_START", "RECOMMENDATIONS_END")) {
+            String[] parts = line.split("\\|", 6);
+            if (parts.length >= 5) {
+                bh.consume(parts[1]);
+                bh.consume(Double.parseDouble(parts[2]));
+            }
+        }
+    }
+
+    /** TagVisualization.getTagCooccurrence and the analytics tables: tag|count rows. */
+    @Benchmark
+    public void cooccurrenceRows(Blackhole bh) {
+        for (String line : cooccurrence.section("TAG_COOCCUR_START", "TAG_COOCCUR_END")) {
+            String[] parts = line.split("\\|");
+            if (parts.length == 2)
+                bh.consume(Integer.parseInt(parts[1]));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.snippetmanager.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic snippet store shared by the benchmarks: titles built
+ * from common DSA words, tagged the way TagRules / module3 tag them, plus the
+ * backend output formats the panels parse.
+ */
+public final class SyntheticStore {
+    private static final String[] WORDS = { "binary", "search", "quick", "sort", "merge", "heap", "tree",
+            "graph", "bfs", "dfs", "dijkstra", "knapsack", "fibonacci", "trie", "hash", "map", "stack",
+            "queue", "linked", "list", "avl", "segment", "fenwick", "union", "find", "kmp", "lcs" };
+    private static final String CODE = "#include <iostream>\\nusing namespace std;\\n\\nint main() {\\n"
+            + "    int a[] = {5, 3, 1};\\n    cout << \\\"sorted\\\" << endl;\\n    return 0;\\n}";
+
+    private final List<String> titles;
+    private final Random rnd;
+
+    public SyntheticStore(int size, long seed) {
+        rnd = new Random(seed);
+        titles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String a = WORDS[rnd.nextInt(WORDS.length)];
+            String b = WORDS[rnd.nextInt(WORDS.length)];
+            titles.add(Character.toUpperCase(a.charAt(0)) + a.substring(1) + " " + b + " " + i);
+        }
+    }
+
+    public List<String> titles() {
+        return titles;
+    }
+
+    public int size() {
+        return titles.size();
+    }
+
+    /** Every prefix a user would type on the way to random existing titles. */
+    public List<String> keystrokes(int count) {
+        List<String> out = new ArrayList<>(count);
+        while (out.size() < count) {
+            String title = titles.get(rnd.nextInt(titles.size()));
+            for (int len = 1; len <= title.length() && out.size() < count; len++)
+                out.add(title.substring(0, len));
+        }
+        return out;
+    }
+
+    /** Lower-cased titles, i.e. every snippet's primary tag. */
+    public List<String> primaryTags() {
+        List<String> tags = new ArrayList<>(titles.size());
+        for (String t : titles)
+            tags.add(t.toLowerCase());
+        return tags;
+    }
+
+    /** Short search terms, some of them misspelled, as typed into the tag search. */
+    public List<String> tagQueries(int count) {
+        List<String> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[rnd.nextInt(WORDS.length)];
+            if (i % 3 == 0 && word.length() > 3)
+                word = word.substring(0, 1) + word.substring(2); // drop a letter
+            out.add(word);
+        }
+        return out;
+    }
+
+    /** The Data/snippets_large.json layout with one short body per title. */
+    public String json() {
+        StringBuilder sb = new StringBuilder("{\n");
+        for (int i = 0; i < titles.size(); i++) {
+            sb.append("    \"").append(titles.get(i)).append("\": \"").append(CODE).append('"');
+            sb.append(i + 1 < titles.size() ? ",\n" : "\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    /** A module3 {@code rec_tag} reply listing every snippet. */
+    public String recommendationResponse() {
+        StringBuilder sb = new StringBuilder("RECOMMENDATIONS_START\n");
+        for (String t : titles) {
+            sb.append(t).append('|').append(t).append('|').append(50 + rnd.nextInt(5000) / 100.0).append('|')
+                    .append(String.join(";", tags(t))).append("|C++|").append(CODE).append('\n');
+        }
+        return sb.append("RECOMMENDATIONS_END\n").toString();
+    }
+
+    /** A module3 {@code tag_cooccur} reply for {@code algorithm}, which every snippet carries. */
+    public String cooccurrenceResponse() {
+        StringBuilder sb = new StringBuilder("TAG_COOCCUR_START\n");
+        for (Map.Entry<String, Integer> e : tagFrequencies().entrySet())
+            if (!e.getKey().equals("algorithm"))
+                sb.append(e.getKey()).append('|').append(e.getValue()).append('\n');
+        return sb.append("TAG_COOCCUR_END\n").toString();
+    }
+
+    /** Tag -> number of snippets carrying it, most frequent first. */
+    public Map<String, Integer> tagFrequencies() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String t : titles)
+            for (String tag : tags(t))
+                counts.merge(tag, 1, Integer::sum);
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort((x, y) -> Integer.compare(y.getValue(), x.getValue()));
+        Map<String, Integer> ordered = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : sorted)
+            ordered.put(e.getKey(), e.getValue());
+        return ordered;
+    }
+
+    /** Every snippet's tag list, in title order. */
+    public List<List<String>> tagSets() {
+        List<List<String>> sets = new ArrayList<>(titles.size());
+        for (String t : titles)
+            sets.add(tags(t));
+        return sets;
+    }
+
+    // Subset of TagRules: the title plus the category tags the words above trigger
+    static List<String> tags(String title) {
+        String t = title.toLowerCase();
+        List<String> tags = new ArrayList<>(5);
+        tags.add(t);
+        if (t.contains("sort"))
+            tags.add("sorting");
+        if (t.contains("search"))
+            tags.add("search");
+        if (t.contains("tree"))
+            tags.add("tree");
+        if (t.contains("graph") || t.contains("dfs") || t.contains("bfs"))
+            tags.add("graph");
+        if (t.contains("knapsack") || t.contains("fibonacci") || t.contains("lcs"))
+            tags.add("dynamic programming");
+        tags.add("algorithm");
+        tags.add("dsa");
+        return tags;
+    }
+}
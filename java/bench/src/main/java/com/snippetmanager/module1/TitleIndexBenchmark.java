@@ -0,0 +1,78 @@
+package com.snippetmanager.module1;
+
+import com.snippetmanager.bench.SyntheticStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-keystroke autocomplete latency: SnippetTitleIndex against the old
+ * getMatchesFromJson regex-over-JSON scan it replaced (minus the disk read).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleIndexBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int snippets;
+
+    private SnippetTitleIndex index;
+    private String json;
+    private String[] keystrokes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticStore store = new SyntheticStore(snippets, 42);
+        index = SnippetTitleIndex.fromTitles(store.titles());
+        json = store.json();
+        keystrokes = store.keystrokes(2_000).toArray(new String[0]);
+    }
+
+    private String nextKeystroke() {
+        String prefix = keystrokes[next];
+        next = (next + 1) % keystrokes.length;
+        return prefix;
+    }
+
+    @Benchmark
+    public List<String> indexComplete() {
+        return index.complete(nextKeystroke(), 5);
+    }
+
+    @Benchmark
+    public List<String> legacyJsonScan() {
+        return legacyScan(json, nextKeystroke());
+    }
+
+    // The pre-index getMatchesFromJson
+    static List<String> legacyScan(String content, String prefix) {
+        List<String> matches = new ArrayList<>();
+        Pattern pattern = Pattern.compile("\"(.*?)\"\\s*:");
+        Matcher matcher = pattern.matcher(content);
+        while (matcher.find()) {
+            String key = matcher.group(1);
+            if (key.toLowerCase().startsWith(prefix.toLowerCase()))
+                matches.add(key);
+        }
+        return matches;
+    }
+}
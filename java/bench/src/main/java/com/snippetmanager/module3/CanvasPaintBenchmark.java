@@ -0,0 +1,85 @@
+package com.snippetmanager.module3;
+
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.bench.SyntheticStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of the tag network (VisualizationCanvas.paintComponent) rendered
+ * headless into an image, for the co-occurrence network of a tag every
+ * synthetic snippet carries, laid out to convergence up front: a repaint
+ * composited from the cached layers, and one that re-renders them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CanvasPaintBenchmark {
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 650;
+
+    @Param({ "1000", "10000", "100000" })
+    public int snippets;
+
+    private VisualizationCanvas canvas;
+    private BufferedImage frame;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        SyntheticStore store = new SyntheticStore(snippets, 42);
+        List<String[]> connections = new ArrayList<>();
+        BackendResponse reply = new BackendResponse(0, store.cooccurrenceResponse());
+        for (String line : reply.section("TAG_COOCCUR_START", "TAG_COOCCUR_END"))
+            connections.add(line.split("\\|"));
+
+        TagNetwork network = TagNetwork.build("algorithm", connections, store.tagFrequencies(), store.tagSets());
+        ForceLayout layout = new ForceLayout(network);
+        while (!layout.step()) {
+            // run to convergence
+        }
+
+        canvas = new VisualizationCanvas();
+        canvas.setSize(WIDTH, HEIGHT);
+        canvas.showLayout(network, layout.positions());
+        frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        graphics = frame.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintFrame() {
+        canvas.paint(graphics);
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage paintFrameRebuildingLayers() {
+        canvas.invalidateLayers();
+        canvas.paint(graphics);
+        return frame;
+    }
+}
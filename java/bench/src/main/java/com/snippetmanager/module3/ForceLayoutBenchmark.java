@@ -0,0 +1,66 @@
+package com.snippetmanager.module3;
+
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.bench.SyntheticStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tag network layout: one Barnes-Hut iteration, and a full run to
+ * convergence, for the co-occurrence network around {@code algorithm}
+ * (capped at TagNetwork.MAX_NODES neighbours).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForceLayoutBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int snippets;
+
+    private TagNetwork network;
+    private ForceLayout running;
+
+    @Setup
+    public void setUp() {
+        SyntheticStore store = new SyntheticStore(snippets, 42);
+        List<String[]> connections = new ArrayList<>();
+        BackendResponse reply = new BackendResponse(0, store.cooccurrenceResponse());
+        for (String line : reply.section("TAG_COOCCUR_START", "TAG_COOCCUR_END"))
+            connections.add(line.split("\\|"));
+        network = TagNetwork.build("algorithm", connections, store.tagFrequencies(), store.tagSets());
+        running = new ForceLayout(network);
+    }
+
+    @Benchmark
+    public boolean iteration() {
+        if (running.isConverged())
+            running = new ForceLayout(network);
+        return running.step();
+    }
+
+    @Benchmark
+    public float[] converge() {
+        ForceLayout layout = new ForceLayout(network);
+        while (!layout.step()) {
+            // run to convergence
+        }
+        return layout.positions();
+    }
+}
@@ -0,0 +1,97 @@
+package com.snippetmanager.module3;
+
+import com.snippetmanager.bench.SyntheticStore;
+import com.snippetmanager.core.FuzzyTagIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fuzzy tag fallback in RecommendationPanelPro: the resident BK-tree
+ * (FuzzyTagIndex) against the original full scan that ran a fresh int[][]
+ * DP against every snippet's primary tag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FuzzyTagBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int snippets;
+
+    private String[] primaryTags;
+    private FuzzyTagIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticStore store = new SyntheticStore(snippets, 42);
+        primaryTags = store.primaryTags().toArray(new String[0]);
+        queries = store.tagQueries(256).toArray(new String[0]);
+        index = FuzzyTagIndex.of(store.tagFrequencies());
+    }
+
+    private String nextQuery() {
+        String query = queries[next];
+        next = (next + 1) % queries.length;
+        return query;
+    }
+
+    /** A single bit-parallel distance, query against a typical title-length tag. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int distancePair() {
+        return FuzzyTagIndex.distance(nextQuery(), primaryTags[next % primaryTags.length]);
+    }
+
+    /** Every tag within two edits, ranked, from the whole vocabulary. */
+    @Benchmark
+    public List<FuzzyTagIndex.Match> indexSearch() {
+        return index.search(nextQuery(), 2, Integer.MAX_VALUE);
+    }
+
+    /** The original fallback scan, one matrix per comparison. */
+    @Benchmark
+    public int legacyScan() {
+        String query = nextQuery();
+        int matches = 0;
+        for (String primary : primaryTags)
+            if (query.contains(primary) || legacyLevenshtein(query, primary) <= 2)
+                matches++;
+        return matches;
+    }
+
+    // RecommendationPanelPro.levenshteinDistance before the index
+    static int legacyLevenshtein(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++)
+            dp[i][0] = i;
+        for (int j = 0; j <= s2.length(); j++)
+            dp[0][j] = j;
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
+                    dp[i][j] = dp[i - 1][j - 1];
+                } else {
+                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
+                }
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+}
@@ -1,5 +1,7 @@
 package com.snippetmanager;
 
+import com.snippetmanager.backend.Module3Backend;
+import com.snippetmanager.core.SnippetStore;
 import com.snippetmanager.module1.SnippetManagerPanel;
 import com.snippetmanager.module3.*;
 
@@ -62,6 +64,17 @@ public class SmartCodeMain extends JFrame {
     }
 
     private void initializeComponents() {
+        // Parse the snippet store once; every panel shares this snapshot, and
+        // switching cards below never reloads it. Later edits arrive as deltas
+        // from the file watcher.
+        SnippetStore.getInstance().snapshot();
+        SnippetStore.getInstance().startWatching();
+        // The module3 daemon loads the store once; have it re-read every
+        // generation, so edits made in module1 reach its recommendations.
+        // Cached module3 replies are only reused within one loaded generation.
+        SnippetStore.getInstance().addListener(
+                delta -> Module3Backend.reloadStore(delta.getSnapshot().getGeneration()));
+
         snippetManagerPanel = new SnippetManagerPanel();
         recommendationPanel = new RecommendationPanelPro();
         analyticsDashboard = new AnalyticsDashboardPro();
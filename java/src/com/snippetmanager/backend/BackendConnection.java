@@ -0,0 +1,185 @@
+package com.snippetmanager.backend;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Framed request/response channel to a long-lived backend process.
+ *
+ * Messages travel over the process pipes as a header line followed by a raw
+ * payload ({@code "<id> <length>\n"} for requests, {@code "<id> <status> <length>\n"}
+ * for responses). Every request gets its own id, so any number of callers can
+ * share one process: writes are serialized, and a single reader thread hands
+ * each response to the future registered under its id. The process is started
+ * lazily and restarted on the next request if it dies.
+ */
+public class BackendConnection implements Closeable {
+    // How long close() lets the process finish background writes after end of input
+    private static final long CLOSE_GRACE_SECONDS = 5;
+
+    private final List<String> command;
+    private final File workingDirectory;
+    private final String name;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    // The currently running process; replaced as a whole when it dies
+    private Channel channel;
+
+    public BackendConnection(String name, List<String> command, File workingDirectory) {
+        this.name = name;
+        this.command = new ArrayList<>(command);
+        this.workingDirectory = workingDirectory;
+    }
+
+    /** Sends one request; the future completes when the matching response frame arrives. */
+    public CompletableFuture<BackendResponse> send(String payload) {
+        CompletableFuture<BackendResponse> future = new CompletableFuture<>();
+        long id = nextId.getAndIncrement();
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] header = (id + " " + body.length + "\n").getBytes(StandardCharsets.UTF_8);
+
+        synchronized (this) {
+            Channel target = null;
+            try {
+                target = ensureStarted();
+                target.pending.put(id, future);
+                target.requests.write(header);
+                target.requests.write(body);
+                target.requests.flush();
+            } catch (IOException e) {
+                if (target != null)
+                    target.pending.remove(id);
+                future.completeExceptionally(e);
+                destroy();
+            }
+        }
+        return future;
+    }
+
+    public synchronized boolean isRunning() {
+        return channel != null && channel.process.isAlive();
+    }
+
+    /**
+     * Ends the process's input and waits briefly for it to exit on its own, so
+     * work it finishes on shutdown (compacting its log, flushing a journal)
+     * is not cut short; only then is it killed.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.requests.close();
+                channel.process.waitFor(CLOSE_GRACE_SECONDS, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                // Already gone
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        destroy();
+    }
+
+    private Channel ensureStarted() throws IOException {
+        if (channel != null && channel.process.isAlive())
+            return channel;
+        destroy();
+
+        File exe = new File(command.get(0));
+        if (!exe.exists())
+            throw new IOException(exe.getName() + " not found at " + exe.getAbsolutePath());
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workingDirectory);
+        // Diagnostics stay out of the framed stdout channel
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Channel started = new Channel(pb.start());
+        channel = started;
+
+        Thread reader = new Thread(() -> readResponses(started), name + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return started;
+    }
+
+    private void readResponses(Channel source) {
+        try (InputStream in = new BufferedInputStream(source.process.getInputStream())) {
+            String header;
+            while ((header = readLine(in)) != null) {
+                String[] parts = header.trim().split(" ");
+                if (parts.length != 3)
+                    continue; // not a frame header (stray output), skip it
+
+                long id = Long.parseLong(parts[0]);
+                int status = Integer.parseInt(parts[1]);
+                int length = Integer.parseInt(parts[2]);
+                byte[] body = in.readNBytes(length);
+                if (body.length < length)
+                    break;
+
+                CompletableFuture<BackendResponse> future = source.pending.remove(id);
+                if (future != null)
+                    future.complete(new BackendResponse(status, new String(body, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Fall through: the process is gone or the stream is corrupt
+        }
+
+        synchronized (this) {
+            if (channel == source)
+                destroy();
+        }
+        source.failPending(new IOException(name + " backend exited"));
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n')
+                return line.toString(StandardCharsets.UTF_8);
+            line.write(b);
+        }
+        return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+    }
+
+    private void destroy() {
+        if (channel != null) {
+            channel.process.destroy();
+            channel = null;
+        }
+    }
+
+    // One backend process with the requests still waiting on it
+    private static final class Channel {
+        final Process process;
+        final OutputStream requests;
+        final Map<Long, CompletableFuture<BackendResponse>> pending = new ConcurrentHashMap<>();
+
+        Channel(Process process) {
+            this.process = process;
+            this.requests = process.getOutputStream();
+        }
+
+        void failPending(IOException cause) {
+            for (Long id : new ArrayList<>(pending.keySet())) {
+                CompletableFuture<BackendResponse> future = pending.remove(id);
+                if (future != null)
+                    future.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.snippetmanager.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One framed reply from a backend: the command's exit status and its full
+ * text output.
+ */
+public class BackendResponse {
+    private final int status;
+    private final String body;
+
+    public BackendResponse(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == 0;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public List<String> lines() {
+        return Arrays.asList(body.split("\n"));
+    }
+
+    /**
+     * Lines between a START/END marker pair such as {@code TOP_SNIPPETS_START}
+     * and {@code TOP_SNIPPETS_END}, markers excluded.
+     */
+    public List<String> section(String startMarker, String endMarker) {
+        List<String> result = new ArrayList<>();
+        boolean capturing = false;
+        for (String line : lines()) {
+            if (line.equals(startMarker)) {
+                capturing = true;
+            } else if (line.equals(endMarker)) {
+                capturing = false;
+            } else if (capturing) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /** Value of the first {@code key|value} line, or null when absent. */
+    public String value(String key) {
+        String prefix = key + "|";
+        for (String line : lines()) {
+            if (line.startsWith(prefix))
+                return line.substring(prefix.length()).trim();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.snippetmanager.backend;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shared client for the module1 snippet store. Replaces the input.txt/output.txt
+ * handshake: one {@code app.exe serve} process keeps the store in memory and
+ * answers framed requests, so several commands can be in flight at once and
+ * none of them touch shared scratch files.
+ */
+public final class Module1Backend {
+
+    private static final BackendConnection CONNECTION = new BackendConnection("module1",
+            Arrays.asList(ProjectPaths.backendExecutable("module1").getPath(), "serve"),
+            ProjectPaths.dataDirectory());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CONNECTION::close, "module1-shutdown"));
+    }
+
+    private Module1Backend() {
+    }
+
+    /**
+     * Sends one command in the format the backend has always used:
+     * {@code COMMAND|TITLE|LANGUAGE} on the first line, code on the following lines.
+     */
+    public static CompletableFuture<BackendResponse> execute(String command, String titleAndLang, String code) {
+        StringBuilder request = new StringBuilder(command.toUpperCase()).append('|').append(titleAndLang);
+        if (!code.isEmpty())
+            request.append('\n').append(code);
+        return CONNECTION.send(request.toString());
+    }
+
+    /**
+     * Adds or replaces {@code count} snippets in one request; the backend checks
+     * every record, then applies and logs them all together or not at all.
+     * {@code records} is built with {@link #appendImportRecord}.
+     */
+    public static CompletableFuture<BackendResponse> importSnippets(int count, CharSequence records) {
+        StringBuilder request = new StringBuilder(records.length() + 32);
+        request.append("IMPORT|").append(count).append('\n').append(records);
+        return CONNECTION.send(request.toString());
+    }
+
+    /** Appends one record: its field sizes in UTF-8 bytes on a line, then the fields back to back. */
+    public static void appendImportRecord(StringBuilder records, String title, String language, String code) {
+        records.append(utf8Length(title)).append(' ')
+                .append(utf8Length(language)).append(' ')
+                .append(utf8Length(code)).append('\n')
+                .append(title).append(language).append(code);
+    }
+
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++; // unpaired: String.getBytes writes '?'
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.snippetmanager.backend;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared client for the module3 recommendation engine. All panels talk to one
+ * {@code app.exe serve} process, which loads the snippet store once and then
+ * answers every query without a fork or a re-parse.
+ *
+ * Read-only ranking queries are answered through a {@link QueryCache} keyed by
+ * the store generation the engine last loaded through {@link #reloadStore};
+ * {@code reload} empties it, since the engine can change without a new version.
+ */
+public final class Module3Backend {
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final int CACHE_CAPACITY = 256;
+
+    // Pure functions of the loaded store; metrics, reload and the time-decayed
+    // trending scores are never cached
+    private static final Set<String> CACHEABLE = Set.of("rec_tag", "rec_snippet", "tag_cooccur",
+            "top_snippets", "top_snippets_lang", "trending_tags_lang", "lang_dist", "tag_neighborhood");
+
+    private static final QueryCache CACHE = new QueryCache(CACHE_CAPACITY);
+    private static volatile long storeVersion; // 0: whatever the daemon loaded at startup
+
+    private static final BackendConnection CONNECTION = new BackendConnection("module3",
+            Arrays.asList(ProjectPaths.backendExecutable("module3").getPath(), "serve"),
+            ProjectPaths.dataDirectory());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CONNECTION::close, "module3-shutdown"));
+    }
+
+    private Module3Backend() {
+    }
+
+    /**
+     * Has the engine re-read the store for snapshot {@code generation}. Cached
+     * replies are keyed by that generation only once the reload has succeeded,
+     * so no answer computed from the old data is filed under the new version.
+     */
+    public static CompletableFuture<BackendResponse> reloadStore(long generation) {
+        return queryAsync("reload").thenApply(response -> {
+            if (response.isSuccess() && generation > storeVersion)
+                storeVersion = generation; // replies arrive in request order
+            return response;
+        });
+    }
+
+    public static QueryCache cache() {
+        return CACHE;
+    }
+
+    /** Issues a command, e.g. {@code queryAsync("top_snippets", "8")}. */
+    public static CompletableFuture<BackendResponse> queryAsync(String... args) {
+        if (CACHEABLE.contains(args[0]))
+            return CACHE.get(storeVersion, args, () -> send(args));
+        if (args[0].equals("use"))
+            return send(args).whenComplete((response, error) -> CACHE.clear()); // usage counts moved
+        if (!args[0].equals("reload") && !args[0].equals("load"))
+            return send(args);
+
+        // Replies computed while the engine re-reads its data must not survive it
+        CACHE.clear();
+        return send(args).whenComplete((response, error) -> CACHE.clear());
+    }
+
+    /** Blocking variant of {@link #queryAsync}; never call it on the Event Dispatch Thread. */
+    public static BackendResponse query(String... args) throws IOException {
+        try {
+            return queryAsync(args).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (TimeoutException e) {
+            throw new IOException("module3 backend did not answer '" + args[0] + "' in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for module3 backend");
+        }
+    }
+
+    private static CompletableFuture<BackendResponse> send(String... args) {
+        return CONNECTION.send(String.join("\n", args) + "\n");
+    }
+}
@@ -0,0 +1,36 @@
+package com.snippetmanager.backend;
+
+import java.io.File;
+
+/**
+ * Locates the project root and the well-known folders below it. Resolution
+ * walks up from the working directory until it finds the project folder,
+ * falling back to the original development checkout.
+ */
+public final class ProjectPaths {
+    private static final String PROJECT_DIR_NAME = "smart-code-snippet-manager";
+    private static final File FALLBACK_ROOT = new File("e:\\DSA\\smart-code-snippet-manager");
+
+    private ProjectPaths() {
+    }
+
+    public static File projectRoot() {
+        File projectRoot = new File(System.getProperty("user.dir"));
+        while (projectRoot != null && !projectRoot.getName().equals(PROJECT_DIR_NAME)) {
+            projectRoot = projectRoot.getParentFile();
+        }
+        if (projectRoot == null || !projectRoot.exists()) {
+            projectRoot = FALLBACK_ROOT;
+        }
+        return projectRoot;
+    }
+
+    public static File dataDirectory() {
+        return new File(projectRoot(), "Data");
+    }
+
+    /** Backend executable of a C++ module, e.g. {@code backendExecutable("module3")}. */
+    public static File backendExecutable(String module) {
+        return new File(projectRoot(), "cpp/" + module + "/app.exe").getAbsoluteFile();
+    }
+}
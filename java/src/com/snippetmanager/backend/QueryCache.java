@@ -0,0 +1,92 @@
+package com.snippetmanager.backend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of backend replies, keyed by command, arguments and
+ * the version of the data they were computed from.
+ *
+ * The version is part of the key, so a new store generation never sees older
+ * answers; they simply age out. Futures are cached rather than responses, so
+ * identical queries issued while the first is still in flight share its reply.
+ * Failed or non-zero-status replies are dropped as soon as they complete.
+ */
+public class QueryCache {
+    private final int capacity;
+    private final Map<String, CompletableFuture<BackendResponse>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public QueryCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<BackendResponse>> eldest) {
+                if (size() <= QueryCache.this.capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /** Returns the cached reply for {@code args} at {@code version}, or starts one with {@code loader}. */
+    public CompletableFuture<BackendResponse> get(long version, String[] args,
+            Supplier<CompletableFuture<BackendResponse>> loader) {
+        String key = version + "\n" + String.join("\n", args);
+        CompletableFuture<BackendResponse> future;
+        synchronized (this) {
+            future = entries.get(key);
+            if (future != null) {
+                hits++;
+                return future;
+            }
+            misses++;
+            future = loader.get();
+            entries.put(key, future);
+        }
+
+        CompletableFuture<BackendResponse> loaded = future;
+        loaded.whenComplete((response, error) -> {
+            if (error != null || !response.isSuccess())
+                remove(key, loaded);
+        });
+        return loaded;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long total = hits + misses;
+        return String.format("%d/%d entries, %d hits, %d misses (%.0f%% hit rate), %d evictions",
+                entries.size(), capacity, hits, misses, total == 0 ? 0.0 : 100.0 * hits / total, evictions);
+    }
+
+    private synchronized void remove(String key, CompletableFuture<BackendResponse> future) {
+        entries.remove(key, future);
+    }
+}
@@ -0,0 +1,54 @@
+package com.snippetmanager.backend;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for fanning backend queries out from the UI. Worker threads are
+ * virtual when the running JDK supports them (21+) and daemon platform threads
+ * otherwise; either way the pool size caps how many queries run at once.
+ */
+public final class QueryExecutors {
+
+    private QueryExecutors() {
+    }
+
+    public static ExecutorService newBoundedPool(String name, int parallelism) {
+        return Executors.newFixedThreadPool(parallelism, threadFactory(name));
+    }
+
+    /** True when pools created here run on virtual threads. */
+    public static boolean usesVirtualThreads() {
+        return virtualThreadFactory("probe") != null;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        ThreadFactory virtual = virtualThreadFactory(name);
+        if (virtual != null)
+            return virtual;
+
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread t = new Thread(task, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Thread.ofVirtual().name(name + "-", 1).factory(), looked up reflectively so
+    // the sources still compile for Java 17
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // pre-21 JDK, or virtual threads still behind --enable-preview
+        }
+    }
+}
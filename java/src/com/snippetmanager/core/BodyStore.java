@@ -0,0 +1,8 @@
+package com.snippetmanager.core;
+
+import java.io.IOException;
+
+/** Where a snapshot's snippet bodies live; spans come from {@link SnippetJsonReader}. */
+interface BodyStore {
+    String read(long offset, int length) throws IOException;
+}
@@ -0,0 +1,249 @@
+package com.snippetmanager.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resident fuzzy index over a tag vocabulary: a BK-tree keyed by Levenshtein
+ * distance. A search for distance k only descends into children whose edge
+ * lies within k of the node's distance (triangle inequality), so most of the
+ * vocabulary is never compared. Query comparisons use Myers' bit-parallel
+ * algorithm, one 64-bit word per query; longer queries fall back to a
+ * two-row DP. Instances are immutable; {@link SnippetSnapshot#fuzzyTags()}
+ * builds one per snapshot on first use.
+ */
+public final class FuzzyTagIndex {
+    private static final int NONE = -1;
+
+    /** One tag within range of the query. */
+    public static final class Match {
+        private final String tag;
+        private final int distance;
+        private final int frequency;
+
+        Match(String tag, int distance, int frequency) {
+            this.tag = tag;
+            this.distance = distance;
+            this.frequency = frequency;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        /** Number of snippets carrying the tag. */
+        public int getFrequency() {
+            return frequency;
+        }
+
+        @Override
+        public String toString() {
+            return tag + "~" + distance;
+        }
+    }
+
+    // Closest first, then the more widely used tag
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::getDistance)
+            .thenComparing(Comparator.comparingInt(Match::getFrequency).reversed())
+            .thenComparing(Match::getTag);
+
+    private final String[] tags;
+    private final int[] frequency;
+
+    // Tree as child lists: node i hangs off its parent at distance edge[i]
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] edge;
+
+    private FuzzyTagIndex(String[] tags, int[] frequency) {
+        this.tags = tags;
+        this.frequency = frequency;
+        int n = tags.length;
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        edge = new int[n];
+        Arrays.fill(firstChild, NONE);
+        Arrays.fill(nextSibling, NONE);
+
+        for (int i = 1; i < n; i++) {
+            Pattern pattern = new Pattern(tags[i]);
+            int node = 0;
+            while (true) {
+                int d = pattern.distanceTo(tags[node]);
+                if (d == 0)
+                    break; // duplicate, never reached by a search
+                int child = childAt(node, d);
+                if (child == NONE) {
+                    edge[i] = d;
+                    nextSibling[i] = firstChild[node];
+                    firstChild[node] = i;
+                    break;
+                }
+                node = child;
+            }
+        }
+    }
+
+    /** Index over {@code tags}, with {@code frequency[i]} snippets carrying {@code tags[i]}. */
+    static FuzzyTagIndex build(String[] tags, int[] frequency) {
+        return new FuzzyTagIndex(tags, frequency);
+    }
+
+    /** Index over a tag -> snippet count map such as {@link SnippetSnapshot#topTags(int)}. */
+    public static FuzzyTagIndex of(Map<String, Integer> tagFrequencies) {
+        String[] tags = new String[tagFrequencies.size()];
+        int[] frequency = new int[tags.length];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : tagFrequencies.entrySet()) {
+            tags[i] = e.getKey();
+            frequency[i++] = e.getValue();
+        }
+        return new FuzzyTagIndex(tags, frequency);
+    }
+
+    public int size() {
+        return tags.length;
+    }
+
+    /**
+     * Every tag within {@code maxDistance} edits of {@code query}, closest
+     * first and, among equally close tags, most used first; at most
+     * {@code limit} of them.
+     */
+    public List<Match> search(String query, int maxDistance, int limit) {
+        List<Match> matches = new ArrayList<>();
+        if (tags.length == 0 || limit <= 0)
+            return matches;
+
+        Pattern pattern = new Pattern(query);
+        int[] stack = new int[32];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int d = pattern.distanceTo(tags[node]);
+            if (d <= maxDistance)
+                matches.add(new Match(tags[node], d, frequency[node]));
+            for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+                if (Math.abs(edge[c] - d) <= maxDistance) {
+                    if (top == stack.length)
+                        stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = c;
+                }
+            }
+        }
+        matches.sort(RANKING);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /** Levenshtein distance between two strings. */
+    public static int distance(String a, String b) {
+        return new Pattern(a).distanceTo(b);
+    }
+
+    private int childAt(int node, int distance) {
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c])
+            if (edge[c] == distance)
+                return c;
+        return NONE;
+    }
+
+    // Two-row DP; row must hold b.length() + 1 entries
+    private static int levenshtein(String a, String b, int[] row) {
+        int m = b.length();
+        for (int j = 0; j <= m; j++)
+            row[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int above = row[j];
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(Math.min(above + 1, row[j - 1] + 1), diagonal + cost);
+                diagonal = above;
+            }
+        }
+        return row[m];
+    }
+
+    // A query prepared for Myers' bit-vector distance (Hyyrö's formulation):
+    // one bit per query character, one word operation per text character
+    private static final class Pattern {
+        private final String text;
+        private final long[] ascii = new long[128];
+        private final char[] otherChars;
+        private final long[] otherMasks;
+        private int otherCount;
+        private int[] row;
+
+        Pattern(String text) {
+            this.text = text;
+            otherChars = new char[Math.min(text.length(), 64)];
+            otherMasks = new long[otherChars.length];
+            if (text.length() > 64)
+                return;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 128) {
+                    ascii[c] |= 1L << i;
+                    continue;
+                }
+                int k = 0;
+                while (k < otherCount && otherChars[k] != c)
+                    k++;
+                if (k == otherCount)
+                    otherChars[otherCount++] = c;
+                otherMasks[k] |= 1L << i;
+            }
+        }
+
+        private long mask(char c) {
+            if (c < 128)
+                return ascii[c];
+            for (int k = 0; k < otherCount; k++)
+                if (otherChars[k] == c)
+                    return otherMasks[k];
+            return 0;
+        }
+
+        int distanceTo(String other) {
+            int m = text.length();
+            if (m == 0)
+                return other.length();
+            if (m > 64) {
+                if (row == null || row.length <= other.length())
+                    row = new int[other.length() + 1];
+                return levenshtein(text, other, row);
+            }
+
+            long last = 1L << (m - 1);
+            long pv = -1L;
+            long mv = 0;
+            int score = m;
+            for (int j = 0; j < other.length(); j++) {
+                long eq = mask(other.charAt(j));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0)
+                    score++;
+                else if ((mh & last) != 0)
+                    score--;
+                ph = (ph << 1) | 1;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+            return score;
+        }
+    }
+}
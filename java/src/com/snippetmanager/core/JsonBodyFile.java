@@ -0,0 +1,35 @@
+package com.snippetmanager.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads snippet bodies on demand straight out of the JSON store, using the
+ * byte spans reported by {@link SnippetJsonReader}. The channel is opened per
+ * read so the file is never held open while module1 renames it. Spans are only
+ * valid for the file version they were read from; the store watcher publishes
+ * a fresh snapshot after every save.
+ */
+final class JsonBodyFile implements BodyStore {
+    private final Path path;
+
+    JsonBodyFile(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public String read(long offset, int length) throws IOException {
+        byte[] raw = new byte[length];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer dst = ByteBuffer.wrap(raw);
+            while (dst.hasRemaining()) {
+                if (channel.read(dst, offset + dst.position()) < 0)
+                    throw new IOException("Store truncated while reading " + path);
+            }
+        }
+        return SnippetJsonReader.decodeBody(raw, 0, length);
+    }
+}
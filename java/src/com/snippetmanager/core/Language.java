@@ -0,0 +1,58 @@
+package com.snippetmanager.core;
+
+/**
+ * Languages the UI can filter on. The store does not record a language per
+ * snippet, so it is inferred from the code; anything unrecognised is treated
+ * as C++, which is what the backends have always assumed.
+ */
+public enum Language {
+    CPP("C++"),
+    JAVA("Java"),
+    PYTHON("Python"),
+    JAVASCRIPT("JavaScript"),
+    GO("Go"),
+    RUST("Rust");
+
+    private final String displayName;
+
+    Language(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /** Parses a display name such as "C++" or "java"; returns null when unknown. */
+    public static Language fromName(String name) {
+        for (Language l : values())
+            if (l.displayName.equalsIgnoreCase(name) || l.name().equalsIgnoreCase(name))
+                return l;
+        return null;
+    }
+
+    /**
+     * Cheap marker-based guess, good enough for the distribution charts and filters.
+     * module3's JSON loader repeats this rule (detectLanguage); keep the two in step.
+     */
+    public static Language detect(String code) {
+        if (code.contains("#include"))
+            return CPP;
+        if (code.contains("public class") || code.contains("System.out."))
+            return JAVA;
+        if (code.contains("package main") || code.contains("fmt.Print"))
+            return GO;
+        if (code.contains("fn main") || code.contains("let mut "))
+            return RUST;
+        if (code.contains("console.log") || code.contains("function ") || code.contains("=> {"))
+            return JAVASCRIPT;
+        if (code.contains("def ") || code.contains("print("))
+            return PYTHON;
+        return CPP;
+    }
+}
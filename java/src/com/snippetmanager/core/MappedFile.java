@@ -0,0 +1,93 @@
+package com.snippetmanager.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A whole file mapped read-only and little-endian, used for the binary store
+ * snapshot. The index sections are read through the accessors below and
+ * snippet bodies are decoded straight out of the mapping, so they cost page
+ * cache rather than heap. The mapping outlives the file name: a snapshot
+ * keeps working after a newer one is renamed over it.
+ */
+final class MappedFile implements BodyStore {
+    // One mapping is limited to 2 GB; larger files are split into segments
+    private static final long SEGMENT = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long length;
+
+    private MappedFile(MappedByteBuffer[] segments, long length) {
+        this.segments = segments;
+        this.length = length;
+    }
+
+    static MappedFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + SEGMENT - 1) / SEGMENT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT, length - start));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedFile(segments, length);
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    int getInt(long position) {
+        ByteBuffer segment = segments[(int) (position / SEGMENT)];
+        int offset = (int) (position % SEGMENT);
+        if (offset + Integer.BYTES <= segment.limit())
+            return segment.getInt(offset);
+        return ByteBuffer.wrap(bytes(position, Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    long getLong(long position) {
+        ByteBuffer segment = segments[(int) (position / SEGMENT)];
+        int offset = (int) (position % SEGMENT);
+        if (offset + Long.BYTES <= segment.limit())
+            return segment.getLong(offset);
+        return ByteBuffer.wrap(bytes(position, Long.BYTES)).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    byte[] bytes(long position, int count) {
+        if (position < 0 || count < 0 || position + count > length)
+            throw new IndexOutOfBoundsException("Span " + position + "+" + count + " outside " + length);
+        byte[] raw = new byte[count];
+        int done = 0;
+        while (done < count) {
+            ByteBuffer segment = segments[(int) ((position + done) / SEGMENT)];
+            int offset = (int) ((position + done) % SEGMENT);
+            int n = Math.min(count - done, segment.limit() - offset);
+            segment.get(offset, raw, done, n);
+            done += n;
+        }
+        return raw;
+    }
+
+    String string(long position, int count) {
+        if (count == 0)
+            return "";
+        ByteBuffer segment = segments[(int) (position / SEGMENT)];
+        int offset = (int) (position % SEGMENT);
+        if (position + count <= length && offset + count <= segment.limit())
+            return StandardCharsets.UTF_8.decode(segment.slice(offset, count)).toString();
+        return new String(bytes(position, count), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String read(long offset, int length) {
+        return string(offset, length);
+    }
+}
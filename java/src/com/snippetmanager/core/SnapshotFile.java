@@ -0,0 +1,124 @@
+package com.snippetmanager.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the snippet store, kept next to the JSON as
+ * {@code snippets_large.snap} so a cold start maps one file instead of
+ * re-parsing the JSON. The JSON stays the source of truth: the header records
+ * the size and modification time of the JSON it was built from, and a
+ * snapshot that does not match the current JSON is ignored and rebuilt.
+ *
+ * Layout (little-endian; cpp/module3/snapshot.cpp reads the same format):
+ * <pre>
+ *   header      HEADER_SIZE bytes, see the offsets below
+ *   bodies      decoded UTF-8 snippet code, back to back
+ *   strings     UTF-8 titles, tag names and language names
+ *   records     per snippet: u64 code offset, u32 code length, u32 title,
+ *               u32 title length, u32 language, u32 language length,
+ *               u32 usage count, u64 code hash (RECORD_SIZE bytes)
+ *   tags        per tag, most frequent first: u32 name, u32 name length,
+ *               u32 snippet count (TAG_SIZE bytes)
+ *   snippet->tag CSR   u32[snippets + 1] row starts, then u32 tag ids
+ *   tag->snippet CSR   u32[tags + 1] row starts, then u32 snippet ids
+ * </pre>
+ * String references are offsets into the string table; code offsets are
+ * absolute file offsets.
+ */
+final class SnapshotFile {
+    static final int MAGIC = 0x50414E53; // "SNAP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+    static final int RECORD_SIZE = 40;
+    static final int TAG_SIZE = 12;
+
+    // Header field offsets
+    static final int H_MAGIC = 0;
+    static final int H_VERSION = 4;
+    static final int H_SOURCE_SIZE = 8;
+    static final int H_SOURCE_MODIFIED = 16;
+    static final int H_SNIPPET_COUNT = 24;
+    static final int H_TAG_COUNT = 28;
+    static final int H_STRINGS = 32;
+    static final int H_RECORDS = 40;
+    static final int H_TAGS = 48;
+    static final int H_SNIPPET_TAGS = 56;
+    static final int H_TAG_SNIPPETS = 64;
+    static final int H_FILE_LENGTH = 72;
+
+    private SnapshotFile() {
+    }
+
+    /** {@code Data/snippets_large.json} -> {@code Data/snippets_large.snap}. */
+    static Path pathFor(Path json) {
+        String name = json.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return json.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".snap");
+    }
+
+    /**
+     * Maps the snapshot at {@code path} and builds a {@link SnippetSnapshot}
+     * over it. Returns null when the file is missing, from another format
+     * version, damaged, or was built from a different version of the JSON
+     * described by {@code source}.
+     */
+    static SnippetSnapshot load(Path path, BasicFileAttributes source, long generation) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE)
+            return null;
+        MappedFile file = MappedFile.map(path);
+        try {
+            if (file.getInt(H_MAGIC) != MAGIC || file.getInt(H_VERSION) != VERSION
+                    || file.getLong(H_FILE_LENGTH) != file.length()
+                    || file.getLong(H_SOURCE_SIZE) != source.size()
+                    || file.getLong(H_SOURCE_MODIFIED) != source.lastModifiedTime().toMillis())
+                return null;
+            return read(file, generation);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            System.err.println("Ignoring damaged snapshot " + path + ": " + e);
+            return null;
+        }
+    }
+
+    private static SnippetSnapshot read(MappedFile file, long generation) {
+        int snippetCount = file.getInt(H_SNIPPET_COUNT);
+        int tagCount = file.getInt(H_TAG_COUNT);
+        long strings = file.getLong(H_STRINGS);
+        long records = file.getLong(H_RECORDS);
+        long tagTable = file.getLong(H_TAGS);
+        long snippetTags = file.getLong(H_SNIPPET_TAGS);
+
+        String[] tags = new String[tagCount];
+        int[] tagFrequency = new int[tagCount];
+        for (int t = 0; t < tagCount; t++) {
+            long at = tagTable + (long) t * TAG_SIZE;
+            tags[t] = file.string(strings + file.getInt(at), file.getInt(at + 4));
+            tagFrequency[t] = file.getInt(at + 8);
+        }
+
+        Map<String, Language> languages = new HashMap<>();
+        long tagIds = snippetTags + 4L * (snippetCount + 1);
+        Snippet[] snippets = new Snippet[snippetCount];
+        for (int i = 0; i < snippetCount; i++) {
+            long at = records + (long) i * RECORD_SIZE;
+            String title = file.string(strings + file.getInt(at + 12), file.getInt(at + 16));
+            String languageName = file.string(strings + file.getInt(at + 20), file.getInt(at + 24));
+            Language language = languages.computeIfAbsent(languageName,
+                    name -> Language.fromName(name) != null ? Language.fromName(name) : Language.CPP);
+
+            int first = file.getInt(snippetTags + 4L * i);
+            int end = file.getInt(snippetTags + 4L * (i + 1));
+            String[] own = new String[end - first];
+            for (int k = 0; k < own.length; k++)
+                own[k] = tags[file.getInt(tagIds + 4L * (first + k))];
+
+            snippets[i] = new Snippet(title, language, own, file.getInt(at + 28),
+                    file, file.getLong(at), file.getInt(at + 8), file.getLong(at + 32));
+        }
+        return SnippetSnapshot.of(generation, snippets, tags, tagFrequency);
+    }
+}
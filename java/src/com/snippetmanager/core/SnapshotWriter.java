@@ -0,0 +1,248 @@
+package com.snippetmanager.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a {@link SnapshotFile} in one pass over the JSON. The file is built
+ * under a temp name: {@link SnippetJsonReader} streams decoded bodies into it
+ * as the body section, {@link #finish} appends the index sections and fills in
+ * the header, and {@link #commit} renames it over the target so readers (this
+ * JVM or module3) never see a partial snapshot.
+ */
+final class SnapshotWriter implements SnippetJsonReader.BodySink, BodyStore, Closeable {
+    // The decoder writes a byte at a time around escapes, so writes go to a
+    // plain array rather than through a (synchronized) BufferedOutputStream
+    private final byte[] pending = new byte[1 << 16];
+    private int pendingLength;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel out;
+    private long written;
+    private boolean committed;
+
+    SnapshotWriter(Path target) throws IOException {
+        this.target = target;
+        this.temp = createTemp(target);
+        this.out = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        written = SnapshotFile.HEADER_SIZE;
+        out.position(written);
+    }
+
+    // Next to the target so the final rename is atomic; the system temp
+    // directory if the data directory is read-only
+    private static Path createTemp(Path target) throws IOException {
+        try {
+            return Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".tmp");
+        } catch (IOException e) {
+            return Files.createTempFile("snippets-", ".snap");
+        }
+    }
+
+    // --- Body section (SnippetJsonReader.BodySink) ---
+
+    @Override
+    public long position() {
+        return written;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (pendingLength == pending.length)
+            flush();
+        pending[pendingLength++] = (byte) b;
+        written++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > pending.length - pendingLength) {
+            flush();
+            if (len > pending.length) {
+                drain(ByteBuffer.wrap(b, off, len));
+                written += len;
+                return;
+            }
+        }
+        System.arraycopy(b, off, pending, pendingLength, len);
+        pendingLength += len;
+        written += len;
+    }
+
+    /** Reads back a body already written, for snapshots built during the pass. */
+    @Override
+    public String read(long offset, int length) throws IOException {
+        flush();
+        ByteBuffer dst = ByteBuffer.allocate(length);
+        while (dst.hasRemaining()) {
+            if (out.read(dst, offset + dst.position()) < 0)
+                throw new IOException("Snapshot truncated at " + offset);
+        }
+        return new String(dst.array(), StandardCharsets.UTF_8);
+    }
+
+    // --- Index sections and header ---
+
+    /**
+     * Appends strings, records, tag dictionary and both CSR adjacencies for
+     * {@code snapshot}, whose code offsets must come from this writer, then
+     * writes the header stamped with the JSON's size and modification time.
+     */
+    void finish(SnippetSnapshot snapshot, BasicFileAttributes source) throws IOException {
+        Snippet[] snippets = snapshot.snippetArray();
+        String[] tags = snapshot.tagDictionary();
+        int[] tagFrequency = snapshot.tagFrequencies();
+        Map<String, Integer> tagIds = new HashMap<>(tags.length * 2);
+        for (int t = 0; t < tags.length; t++)
+            tagIds.put(tags[t], t);
+
+        // Strings: titles, then tag names, then the language names in use
+        long strings = written;
+        long[] titleRefs = new long[snippets.length];
+        for (int i = 0; i < snippets.length; i++)
+            titleRefs[i] = writeString(strings, snippets[i].getTitle());
+        long[] tagRefs = new long[tags.length];
+        for (int t = 0; t < tags.length; t++)
+            tagRefs[t] = writeString(strings, tags[t]);
+        long[] languageRefs = new long[Language.values().length];
+        for (Language language : Language.values())
+            languageRefs[language.ordinal()] = writeString(strings, language.displayName());
+
+        long records = written;
+        for (int i = 0; i < snippets.length; i++) {
+            Snippet s = snippets[i];
+            long language = languageRefs[s.getLanguage().ordinal()];
+            writeLong(s.codeOffset());
+            writeInt(s.codeLength());
+            writeInt((int) (titleRefs[i] >>> 32));
+            writeInt((int) titleRefs[i]);
+            writeInt((int) (language >>> 32));
+            writeInt((int) language);
+            writeInt(s.getUsageCount());
+            writeLong(s.codeHash());
+        }
+
+        long tagTable = written;
+        for (int t = 0; t < tags.length; t++) {
+            writeInt((int) (tagRefs[t] >>> 32));
+            writeInt((int) tagRefs[t]);
+            writeInt(tagFrequency[t]);
+        }
+
+        // snippet -> tags
+        long snippetTags = written;
+        int[] perTag = new int[tags.length + 1];
+        int edges = 0;
+        writeInt(0);
+        for (Snippet s : snippets) {
+            edges += s.tags().length;
+            writeInt(edges);
+        }
+        for (Snippet s : snippets) {
+            for (String tag : s.tags()) {
+                int t = tagIds.get(tag);
+                writeInt(t);
+                perTag[t + 1]++;
+            }
+        }
+
+        // tag -> snippets, filled row by row from the per-tag counts
+        long tagSnippets = written;
+        for (int t = 0; t < tags.length; t++)
+            perTag[t + 1] += perTag[t];
+        for (int start : perTag)
+            writeInt(start);
+        int[] column = new int[edges];
+        int[] next = perTag.clone();
+        for (int i = 0; i < snippets.length; i++)
+            for (String tag : snippets[i].tags())
+                column[next[tagIds.get(tag)]++] = i;
+        for (int id : column)
+            writeInt(id);
+        flush();
+
+        ByteBuffer header = ByteBuffer.allocate(SnapshotFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(SnapshotFile.H_MAGIC, SnapshotFile.MAGIC);
+        header.putInt(SnapshotFile.H_VERSION, SnapshotFile.VERSION);
+        header.putLong(SnapshotFile.H_SOURCE_SIZE, source.size());
+        header.putLong(SnapshotFile.H_SOURCE_MODIFIED, source.lastModifiedTime().toMillis());
+        header.putInt(SnapshotFile.H_SNIPPET_COUNT, snippets.length);
+        header.putInt(SnapshotFile.H_TAG_COUNT, tags.length);
+        header.putLong(SnapshotFile.H_STRINGS, strings);
+        header.putLong(SnapshotFile.H_RECORDS, records);
+        header.putLong(SnapshotFile.H_TAGS, tagTable);
+        header.putLong(SnapshotFile.H_SNIPPET_TAGS, snippetTags);
+        header.putLong(SnapshotFile.H_TAG_SNIPPETS, tagSnippets);
+        header.putLong(SnapshotFile.H_FILE_LENGTH, written);
+        while (header.hasRemaining())
+            out.write(header, header.position());
+        out.force(false);
+    }
+
+    /**
+     * Moves the finished file over the target and returns the target, or
+     * returns the temp file itself when it cannot be moved there (the target
+     * is mapped by another process on Windows, or the directory is
+     * read-only); the caller then owns that file.
+     */
+    Path commit() throws IOException {
+        out.close();
+        committed = true;
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        } catch (IOException e) {
+            return temp;
+        }
+    }
+
+    /** Closes the file, deleting it unless it was committed. */
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (!committed)
+            Files.deleteIfExists(temp);
+    }
+
+    // Returns (offset in the string table << 32) | byte length
+    private long writeString(long strings, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        long offset = written - strings;
+        write(utf8, 0, utf8.length);
+        return offset << 32 | utf8.length;
+    }
+
+    private void writeInt(int v) throws IOException {
+        write(v);
+        write(v >>> 8);
+        write(v >>> 16);
+        write(v >>> 24);
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt((int) v);
+        writeInt((int) (v >>> 32));
+    }
+
+    private void flush() throws IOException {
+        drain(ByteBuffer.wrap(pending, 0, pendingLength));
+        pendingLength = 0;
+    }
+
+    private void drain(ByteBuffer src) throws IOException {
+        while (src.hasRemaining())
+            out.write(src);
+    }
+}
@@ -0,0 +1,97 @@
+package com.snippetmanager.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One immutable snippet. Tag strings are shared with the owning snapshot's
+ * tag dictionary, so a tag used by a thousand snippets is stored once. The
+ * code body is not kept on the heap: the snippet records where it lives in
+ * the store and {@link #getCode()} reads it when someone opens the snippet.
+ */
+public final class Snippet {
+    private final String title;
+    private final Language language;
+    private final String[] tags;
+    private final int usageCount;
+
+    // Location of the body in its store, plus a hash of the raw JSON to detect edits
+    private final BodyStore bodies;
+    private final long codeOffset;
+    private final int codeLength;
+    private final long codeHash;
+
+    Snippet(String title, Language language, String[] tags, int usageCount,
+            BodyStore bodies, long codeOffset, int codeLength, long codeHash) {
+        this.title = title;
+        this.language = language;
+        this.tags = tags;
+        this.usageCount = usageCount;
+        this.bodies = bodies;
+        this.codeOffset = codeOffset;
+        this.codeLength = codeLength;
+        this.codeHash = codeHash;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /** Reads the body from the store; returns an empty string if it cannot be read. */
+    public String getCode() {
+        try {
+            return bodies.read(codeOffset, codeLength);
+        } catch (IOException e) {
+            System.err.println("Could not read code for '" + title + "': " + e.getMessage());
+            return "";
+        }
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public List<String> getTags() {
+        return Collections.unmodifiableList(Arrays.asList(tags));
+    }
+
+    // Shared array, for the snapshot builder only
+    String[] tags() {
+        return tags;
+    }
+
+    public boolean hasTag(String tag) {
+        for (String t : tags)
+            if (t.equals(tag))
+                return true;
+        return false;
+    }
+
+    public int getUsageCount() {
+        return usageCount;
+    }
+
+    /** True when both have the same title and byte-identical code. */
+    boolean sameContent(Snippet other) {
+        return title.equals(other.title) && codeLength == other.codeLength && codeHash == other.codeHash;
+    }
+
+    long codeOffset() {
+        return codeOffset;
+    }
+
+    long codeHash() {
+        return codeHash;
+    }
+
+    int codeLength() {
+        return codeLength;
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
@@ -0,0 +1,85 @@
+package com.snippetmanager.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What changed between two consecutive snapshots. Listeners get this instead
+ * of a bare snapshot so they can patch their views in place: a code edit does
+ * not touch the autocomplete index, a rename does not touch the tag charts,
+ * and so on.
+ */
+public final class SnippetDelta {
+    private final SnippetSnapshot previous;
+    private final SnippetSnapshot snapshot;
+    private final List<Snippet> added;
+    private final List<Snippet> changed;
+    private final List<Snippet> removed;
+
+    private SnippetDelta(SnippetSnapshot previous, SnippetSnapshot snapshot,
+            List<Snippet> added, List<Snippet> changed, List<Snippet> removed) {
+        this.previous = previous;
+        this.snapshot = snapshot;
+        this.added = Collections.unmodifiableList(added);
+        this.changed = Collections.unmodifiableList(changed);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Diffs two snapshots by title; a snippet counts as changed when its code
+     * bytes differ.
+     */
+    static SnippetDelta between(SnippetSnapshot previous, SnippetSnapshot next) {
+        List<Snippet> added = new ArrayList<>();
+        List<Snippet> changed = new ArrayList<>();
+        List<Snippet> removed = new ArrayList<>();
+
+        for (Snippet s : next.snippets()) {
+            Snippet old = previous.get(s.getTitle());
+            if (old == null)
+                added.add(s);
+            else if (!old.sameContent(s))
+                changed.add(s);
+        }
+        for (Snippet s : previous.snippets())
+            if (next.get(s.getTitle()) == null)
+                removed.add(s);
+        return new SnippetDelta(previous, next, added, changed, removed);
+    }
+
+    public SnippetSnapshot getPrevious() {
+        return previous;
+    }
+
+    /** The snapshot after the change; it is already current when listeners run. */
+    public SnippetSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public List<Snippet> getAdded() {
+        return added;
+    }
+
+    public List<Snippet> getChanged() {
+        return changed;
+    }
+
+    public List<Snippet> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /** True when the set of titles changed (code-only edits leave it alone). */
+    public boolean titlesChanged() {
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "+" + added.size() + " ~" + changed.size() + " -" + removed.size();
+    }
+}
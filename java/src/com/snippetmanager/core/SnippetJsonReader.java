@@ -0,0 +1,338 @@
+package com.snippetmanager.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streaming tokenizer for the flat {"title": "code", ...} store format.
+ *
+ * The file is walked once through a fixed 64 KB buffer. Titles are decoded;
+ * code bodies are not: each is reported as the byte offset and byte length of
+ * its raw (still escaped) contents, together with a hash of those bytes and a
+ * short decoded head for cheap classification. Heap use therefore depends on
+ * the number of snippets, not on the size of their code. Escapes are handled
+ * byte-wise, so titles containing \" or \\ come through intact.
+ *
+ * Given a {@link BodySink}, the reader also writes every body, decoded to
+ * plain UTF-8, into the sink as it streams past; the reported spans then
+ * refer to the sink instead of the JSON file.
+ */
+final class SnippetJsonReader {
+    /** How many leading bytes of each body are decoded for {@link Handler#entry}. */
+    static final int HEAD_BYTES = 2048;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    interface Handler {
+        /**
+         * One member of the store. The code span is in the JSON file, or in the
+         * sink when one was given. {@code codeHash} always covers the raw JSON
+         * bytes. {@code codeHead} is a reused buffer, valid only during the call.
+         */
+        void entry(String title, long codeOffset, int codeLength, long codeHash, CharSequence codeHead);
+    }
+
+    /** Destination for decoded bodies. */
+    interface BodySink {
+        long position();
+
+        void write(int b) throws IOException;
+
+        void write(byte[] b, int off, int len) throws IOException;
+    }
+
+    private final InputStream in;
+    private final BodySink sink;
+    private final BodyDecoder decoder;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long consumed; // bytes of the file before buf[0]
+
+    // Reused scratch space
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final byte[] headBytes = new byte[HEAD_BYTES];
+    private final StringBuilder head = new StringBuilder(HEAD_BYTES);
+
+    private SnippetJsonReader(InputStream in, BodySink sink) {
+        this.in = in;
+        this.sink = sink;
+        this.decoder = sink != null ? new BodyDecoder(sink) : null;
+    }
+
+    /** Streams every member of the store at {@code path} to {@code handler}. */
+    static void read(Path path, Handler handler) throws IOException {
+        read(path, handler, null);
+    }
+
+    /** As {@link #read(Path, Handler)}, also decoding every body into {@code sink} if non-null. */
+    static void read(Path path, Handler handler, BodySink sink) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            new SnippetJsonReader(in, sink).readAll(handler);
+        }
+    }
+
+    private void readAll(Handler handler) throws IOException {
+        int c;
+        while ((c = next()) != -1 && c != '{') {
+            // skip BOM / leading whitespace
+        }
+        if (c == -1)
+            return;
+
+        while (true) {
+            c = skipSeparators();
+            if (c != '"')
+                return; // '}' or anything unexpected ends the store
+            String title = readTitle();
+
+            if (skipSeparators() != ':')
+                return;
+            if (skipSeparators() != '"')
+                return;
+            readBody(title, handler);
+        }
+    }
+
+    private int skipSeparators() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',');
+        return c;
+    }
+
+    // After the opening quote; consumes through the closing quote
+    private String readTitle() throws IOException {
+        scratch.reset();
+        int c;
+        while ((c = next()) != -1 && c != '"') {
+            scratch.write(c);
+            if (c == '\\') {
+                int esc = next();
+                if (esc == -1)
+                    break;
+                scratch.write(esc);
+            }
+        }
+        return unescape(scratch.toString(StandardCharsets.UTF_8), new StringBuilder()).toString();
+    }
+
+    // After the opening quote; reports the raw span and consumes the closing quote.
+    // This is the hot loop for large stores, so it works on the buffer directly.
+    private void readBody(String title, Handler handler) throws IOException {
+        long start = position();
+        long sinkStart = sink != null ? sink.position() : 0;
+        if (decoder != null)
+            decoder.reset();
+        long hash = FNV_OFFSET;
+        int headLength = 0;
+        boolean escaped = false;
+        boolean closed = false;
+
+        outer:
+        while (true) {
+            if (pos == limit && !fill())
+                break;
+            int end = limit;
+            for (int i = pos; i < end; i++) {
+                int c = buf[i] & 0xff;
+                if (c == '"' && !escaped) {
+                    if (decoder != null)
+                        decoder.feed(buf, pos, i);
+                    pos = i + 1;
+                    closed = true;
+                    break outer;
+                }
+                escaped = c == '\\' && !escaped;
+                hash = (hash ^ c) * FNV_PRIME;
+                if (headLength < HEAD_BYTES)
+                    headBytes[headLength++] = (byte) c;
+            }
+            if (decoder != null)
+                decoder.feed(buf, pos, end);
+            pos = end;
+        }
+        long endPosition = closed ? position() - 1 : position();
+
+        head.setLength(0);
+        unescape(new String(headBytes, 0, headLength, StandardCharsets.UTF_8), head);
+        if (decoder != null) {
+            decoder.finish();
+            handler.entry(title, sinkStart, (int) (sink.position() - sinkStart), hash, head);
+        } else {
+            handler.entry(title, start, (int) (endPosition - start), hash, head);
+        }
+    }
+
+    private long position() {
+        return consumed + pos;
+    }
+
+    private int next() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = Math.max(0, in.read(buf, 0, buf.length));
+        return limit > 0;
+    }
+
+    /** Decodes a raw (escaped) body span as written by either backend. */
+    static String decodeBody(byte[] raw, int offset, int length) {
+        String s = new String(raw, offset, length, StandardCharsets.UTF_8);
+        return s.indexOf('\\') < 0 ? s : unescape(s, new StringBuilder(length)).toString();
+    }
+
+    private static StringBuilder unescape(String s, StringBuilder out) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 >= n) {
+                out.append(c);
+                continue;
+            }
+            char esc = s.charAt(++i);
+            switch (esc) {
+                case 'n': out.append('\n'); break;
+                case 't': out.append('\t'); break;
+                case 'r': out.append('\r'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'u':
+                    if (i + 4 < n) {
+                        try {
+                            out.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                            i += 4;
+                        } catch (NumberFormatException e) {
+                            out.append(esc);
+                        }
+                    } else {
+                        out.append(esc);
+                    }
+                    break;
+                default: out.append(esc);
+            }
+        }
+        return out;
+    }
+
+    // Incremental JSON string unescaper: raw body bytes in (in any number of
+    // chunks), plain UTF-8 out. Runs without escapes are copied in bulk.
+    private static final class BodyDecoder {
+        private final BodySink out;
+        private boolean escaped;
+        private int hexRemaining;
+        private int hexValue;
+        private int highSurrogate = -1;
+
+        BodyDecoder(BodySink out) {
+            this.out = out;
+        }
+
+        void reset() {
+            escaped = false;
+            hexRemaining = 0;
+            highSurrogate = -1;
+        }
+
+        void feed(byte[] b, int from, int to) throws IOException {
+            int run = from;
+            for (int i = from; i < to; i++) {
+                int c = b[i] & 0xff;
+                if (hexRemaining > 0) {
+                    hexValue = (hexValue << 4) | Character.digit(c, 16) & 0xf;
+                    if (--hexRemaining == 0)
+                        writeChar(hexValue);
+                    run = i + 1;
+                } else if (escaped) {
+                    escaped = false;
+                    switch (c) {
+                        case 'n': writeByte('\n'); break;
+                        case 't': writeByte('\t'); break;
+                        case 'r': writeByte('\r'); break;
+                        case 'b': writeByte('\b'); break;
+                        case 'f': writeByte('\f'); break;
+                        case 'u':
+                            hexRemaining = 4;
+                            hexValue = 0;
+                            break;
+                        default: writeByte(c);
+                    }
+                    run = i + 1;
+                } else if (c == '\\') {
+                    if (i > run) {
+                        flushSurrogate();
+                        out.write(b, run, i - run);
+                    }
+                    escaped = true;
+                }
+            }
+            if (to > run && !escaped && hexRemaining == 0) {
+                flushSurrogate();
+                out.write(b, run, to - run);
+            }
+        }
+
+        void finish() throws IOException {
+            flushSurrogate();
+        }
+
+        private void writeByte(int c) throws IOException {
+            flushSurrogate();
+            out.write(c);
+        }
+
+        // UTF-16 code unit from a \\uXXXX escape, pairing surrogates
+        private void writeChar(int unit) throws IOException {
+            if (Character.isHighSurrogate((char) unit)) {
+                flushSurrogate();
+                highSurrogate = unit;
+                return;
+            }
+            int cp = unit;
+            if (Character.isLowSurrogate((char) unit)) {
+                if (highSurrogate < 0) {
+                    out.write('?');
+                    return;
+                }
+                cp = Character.toCodePoint((char) highSurrogate, (char) unit);
+                highSurrogate = -1;
+            }
+            flushSurrogate();
+            if (cp < 0x80) {
+                out.write(cp);
+            } else if (cp < 0x800) {
+                out.write(0xc0 | cp >> 6);
+                out.write(0x80 | cp & 0x3f);
+            } else if (cp < 0x10000) {
+                out.write(0xe0 | cp >> 12);
+                out.write(0x80 | cp >> 6 & 0x3f);
+                out.write(0x80 | cp & 0x3f);
+            } else {
+                out.write(0xf0 | cp >> 18);
+                out.write(0x80 | cp >> 12 & 0x3f);
+                out.write(0x80 | cp >> 6 & 0x3f);
+                out.write(0x80 | cp & 0x3f);
+            }
+        }
+
+        // A high surrogate not followed by a low one is not valid UTF-16
+        private void flushSurrogate() throws IOException {
+            if (highSurrogate >= 0) {
+                highSurrogate = -1;
+                out.write('?');
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.snippetmanager.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the whole snippet store at one point in time. Every panel
+ * reads the same instance; a reload builds a new snapshot and swaps it in, so
+ * readers never see a half-updated model and never need to lock.
+ */
+public final class SnippetSnapshot {
+    static final SnippetSnapshot EMPTY = new SnippetSnapshot(0, new Snippet[0], Collections.emptyMap(),
+            new String[0], new int[0], new int[Language.values().length]);
+
+    private final long generation;
+    private final Snippet[] snippets;              // file order
+    private final Map<String, Snippet> byTitle;    // lower-cased title -> snippet
+    private final String[] tags;                   // tag dictionary, most frequent first
+    private final int[] tagFrequency;              // parallel to tags
+    private final int[] languageCounts;            // indexed by Language.ordinal()
+
+    // Built on first use; a race only builds the same thing twice
+    private volatile FuzzyTagIndex fuzzyTags;
+    private volatile Map<String, List<Snippet>> byTag;
+
+    private SnippetSnapshot(long generation, Snippet[] snippets, Map<String, Snippet> byTitle,
+            String[] tags, int[] tagFrequency, int[] languageCounts) {
+        this.generation = generation;
+        this.snippets = snippets;
+        this.byTitle = byTitle;
+        this.tags = tags;
+        this.tagFrequency = tagFrequency;
+        this.languageCounts = languageCounts;
+    }
+
+    /** A snapshot over already tagged snippets, as read back from a {@link SnapshotFile}. */
+    static SnippetSnapshot of(long generation, Snippet[] snippets, String[] tags, int[] tagFrequency) {
+        Map<String, Snippet> byTitle = new HashMap<>(snippets.length * 2);
+        int[] languageCounts = new int[Language.values().length];
+        for (Snippet s : snippets) {
+            byTitle.put(s.getTitle().toLowerCase(), s);
+            languageCounts[s.getLanguage().ordinal()]++;
+        }
+        return new SnippetSnapshot(generation, snippets, byTitle, tags, tagFrequency, languageCounts);
+    }
+
+    /**
+     * Accumulates the records streamed by {@link SnippetJsonReader} into a new
+     * snapshot. Records whose title and code bytes match a snippet in the
+     * previous snapshot keep that snippet's tags and language instead of being
+     * re-tagged and re-classified.
+     */
+    static final class Builder implements SnippetJsonReader.Handler {
+        private final long generation;
+        private final SnippetSnapshot previous;
+        private final BodyStore bodies;
+        private final Map<String, String> dictionary = new HashMap<>();
+        private final Map<String, int[]> frequency = new HashMap<>();
+        private final int[] languageCounts = new int[Language.values().length];
+        private final List<Snippet> snippets = new ArrayList<>();
+        private final Map<String, Snippet> byTitle = new HashMap<>();
+
+        Builder(long generation, SnippetSnapshot previous, BodyStore bodies) {
+            this.generation = generation;
+            this.previous = previous;
+            this.bodies = bodies;
+            // Seed with the old dictionary so carried-over tags stay shared
+            for (String tag : previous.tags)
+                dictionary.put(tag, tag);
+        }
+
+        @Override
+        public void entry(String title, long codeOffset, int codeLength, long codeHash, CharSequence codeHead) {
+            Snippet old = previous.get(title);
+            String[] tags;
+            Language language;
+            if (old != null && old.getTitle().equals(title) && old.codeLength() == codeLength
+                    && old.codeHash() == codeHash) {
+                tags = old.tags();
+                language = old.getLanguage();
+            } else {
+                LinkedHashSet<String> unique = new LinkedHashSet<>(TagRules.autoTags(title));
+                tags = new String[unique.size()];
+                int t = 0;
+                for (String tag : unique)
+                    tags[t++] = dictionary.computeIfAbsent(tag, k -> k);
+                language = Language.detect(codeHead.toString());
+            }
+
+            for (String tag : tags)
+                frequency.computeIfAbsent(tag, k -> new int[1])[0]++;
+            languageCounts[language.ordinal()]++;
+
+            Snippet snippet = new Snippet(title, language, tags, 0, bodies, codeOffset, codeLength, codeHash);
+            snippets.add(snippet);
+            byTitle.put(title.toLowerCase(), snippet);
+        }
+
+        SnippetSnapshot build() {
+            // Only tags still in use make it into the new dictionary
+            String[] tags = frequency.keySet().toArray(new String[0]);
+            Arrays.sort(tags, (a, b) -> {
+                int byCount = Integer.compare(frequency.get(b)[0], frequency.get(a)[0]);
+                return byCount != 0 ? byCount : a.compareTo(b);
+            });
+            int[] tagFrequency = new int[tags.length];
+            for (int i = 0; i < tags.length; i++)
+                tagFrequency[i] = frequency.get(tags[i])[0];
+
+            return new SnippetSnapshot(generation, snippets.toArray(new Snippet[0]), byTitle, tags,
+                    tagFrequency, languageCounts);
+        }
+    }
+
+    /** Increases with every reload; equal generations mean identical content. */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return snippets.length;
+    }
+
+    public List<Snippet> snippets() {
+        return Collections.unmodifiableList(Arrays.asList(snippets));
+    }
+
+    /** Case-insensitive exact title lookup; null when absent. */
+    public Snippet get(String title) {
+        return byTitle.get(title.toLowerCase());
+    }
+
+    public List<String> titles() {
+        List<String> titles = new ArrayList<>(snippets.length);
+        for (Snippet s : snippets)
+            titles.add(s.getTitle());
+        return titles;
+    }
+
+    // Shared arrays, for SnapshotWriter only
+    Snippet[] snippetArray() {
+        return snippets;
+    }
+
+    String[] tagDictionary() {
+        return tags;
+    }
+
+    int[] tagFrequencies() {
+        return tagFrequency;
+    }
+
+    public int tagCount() {
+        return tags.length;
+    }
+
+    /** The n most frequent tags with the number of snippets carrying each. */
+    public Map<String, Integer> topTags(int n) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (int i = 0; i < tags.length && i < n; i++)
+            top.put(tags[i], tagFrequency[i]);
+        return top;
+    }
+
+    /** Fuzzy index over this snapshot's whole tag vocabulary. */
+    public FuzzyTagIndex fuzzyTags() {
+        FuzzyTagIndex index = fuzzyTags;
+        if (index == null)
+            fuzzyTags = index = FuzzyTagIndex.build(tags, tagFrequency);
+        return index;
+    }
+
+    /** Snippets carrying {@code tag}, in file order; empty when none do. */
+    public List<Snippet> snippetsWithTag(String tag) {
+        Map<String, List<Snippet>> index = byTag;
+        if (index == null) {
+            index = new HashMap<>(tags.length * 2);
+            for (Snippet s : snippets)
+                for (String t : s.tags())
+                    index.computeIfAbsent(t, k -> new ArrayList<>(2)).add(s);
+            byTag = index;
+        }
+        List<Snippet> result = index.get(tag);
+        return result != null ? Collections.unmodifiableList(result) : Collections.emptyList();
+    }
+
+    /** Snippet count per language, largest first, languages with no snippets omitted. */
+    public Map<Language, Integer> languageDistribution() {
+        Integer[] order = new Integer[languageCounts.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(languageCounts[b], languageCounts[a]));
+
+        Map<Language, Integer> distribution = new LinkedHashMap<>();
+        for (int i : order)
+            if (languageCounts[i] > 0)
+                distribution.put(Language.values()[i], languageCounts[i]);
+        return distribution;
+    }
+}
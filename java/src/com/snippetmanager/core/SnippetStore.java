@@ -0,0 +1,155 @@
+package com.snippetmanager.core;
+
+import com.snippetmanager.backend.ProjectPaths;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide owner of the parsed snippet store. Data/snippets_large.json is
+ * parsed once into an immutable {@link SnippetSnapshot}; panels read the
+ * current snapshot and subscribe for replacements instead of each re-reading
+ * the file or asking a backend for data the JVM already has.
+ *
+ * Listeners receive a {@link SnippetDelta} per published snapshot; reloads
+ * that change nothing publish nothing. {@link #startWatching()} reloads the
+ * store automatically whenever the file is replaced on disk.
+ *
+ * The parsed store is cached as a binary {@link SnapshotFile} next to the
+ * JSON and memory-mapped, so a cold start whose JSON has not changed maps one
+ * file instead of parsing, and snippet bodies are decoded straight out of the
+ * mapping. Setting the system property {@code snippets.bodies=json} skips the
+ * snapshot file and reads bodies from the JSON on demand instead, which
+ * re-parses escapes on every open and breaks spans of old snapshots once the
+ * file is replaced.
+ */
+public final class SnippetStore {
+    private static final SnippetStore INSTANCE = new SnippetStore(
+            ProjectPaths.dataDirectory().toPath().resolve("snippets_large.json"));
+    private static final boolean MAPPED_BODIES = !"json".equalsIgnoreCase(System.getProperty("snippets.bodies"));
+
+    private final Path source;
+    private final List<Consumer<SnippetDelta>> listeners = new CopyOnWriteArrayList<>();
+    private volatile SnippetSnapshot current;
+    private long nextGeneration = 1;
+    private SnippetStoreWatcher watcher;
+
+    SnippetStore(Path source) {
+        this.source = source;
+    }
+
+    public static SnippetStore getInstance() {
+        return INSTANCE;
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    /** The current snapshot, loading the store on first use. Never null. */
+    public SnippetSnapshot snapshot() {
+        SnippetSnapshot s = current;
+        return s != null ? s : reload();
+    }
+
+    /**
+     * Re-reads the store and, if anything changed, publishes the new snapshot
+     * and its delta to every listener on the calling thread. The file is
+     * streamed, so only titles and body locations end up on the heap; unchanged
+     * snippets keep their tags and language. An unreadable file keeps the last
+     * good snapshot (or an empty one on first load).
+     */
+    public synchronized SnippetSnapshot reload() {
+        SnippetSnapshot previous = current != null ? current : SnippetSnapshot.EMPTY;
+        try {
+            return publish(previous, MAPPED_BODIES ? loadSnapshotFile(previous) : parse(previous));
+        } catch (IOException e) {
+            System.err.println("Could not read " + source + ": " + e.getMessage());
+            if (current == null)
+                current = SnippetSnapshot.EMPTY;
+            return current;
+        }
+    }
+
+    // Maps the snapshot file if it matches the JSON, otherwise streams the
+    // JSON into a new one first
+    private SnippetSnapshot loadSnapshotFile(SnippetSnapshot previous) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        Path target = SnapshotFile.pathFor(source);
+        SnippetSnapshot cached = SnapshotFile.load(target, attributes, nextGeneration);
+        if (cached != null)
+            return cached;
+
+        Path written;
+        try (SnapshotWriter writer = new SnapshotWriter(target)) {
+            SnippetSnapshot.Builder builder = new SnippetSnapshot.Builder(nextGeneration, previous, writer);
+            SnippetJsonReader.read(source, builder, writer);
+            writer.finish(builder.build(), attributes);
+            written = writer.commit();
+        }
+
+        SnippetSnapshot next = SnapshotFile.load(written, attributes, nextGeneration);
+        if (!written.equals(target)) {
+            try {
+                Files.delete(written); // the mapping keeps the data alive
+            } catch (IOException e) {
+                written.toFile().deleteOnExit();
+            }
+        }
+        if (next == null)
+            throw new IOException("Snapshot " + written + " could not be read back");
+        return next;
+    }
+
+    private SnippetSnapshot parse(SnippetSnapshot previous) throws IOException {
+        SnippetSnapshot.Builder builder = new SnippetSnapshot.Builder(nextGeneration, previous,
+                new JsonBodyFile(source));
+        SnippetJsonReader.read(source, builder);
+        return builder.build();
+    }
+
+    private SnippetSnapshot publish(SnippetSnapshot previous, SnippetSnapshot next) {
+        SnippetDelta delta = SnippetDelta.between(previous, next);
+        if (delta.isEmpty() && current != null)
+            return current;
+
+        nextGeneration++;
+        current = next;
+        for (Consumer<SnippetDelta> listener : listeners)
+            listener.accept(delta);
+        return next;
+    }
+
+    public CompletableFuture<SnippetSnapshot> reloadAsync() {
+        return CompletableFuture.supplyAsync(this::reload);
+    }
+
+    /**
+     * Registers a listener for future snapshots. It runs on the thread that
+     * triggered the reload, so Swing listeners must hop to the EDT themselves.
+     */
+    public void addListener(Consumer<SnippetDelta> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<SnippetDelta> listener) {
+        listeners.remove(listener);
+    }
+
+    /** Starts the directory watcher; later calls are no-ops. */
+    public synchronized void startWatching() {
+        if (watcher != null)
+            return;
+        try {
+            watcher = new SnippetStoreWatcher(this);
+        } catch (IOException e) {
+            System.err.println("Could not watch " + source + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.snippetmanager.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the store's directory and reloads the store when its file is
+ * replaced. module1's saveJsonSafe writes a temp file and renames it over the
+ * store, which shows up as a create (or modify) of the store's name; events
+ * for the temp and backup files are ignored.
+ */
+final class SnippetStoreWatcher implements Closeable {
+    // A save is a burst of events (rename old to .bak, rename .tmp to store);
+    // wait for the burst to end before reloading
+    private static final long SETTLE_MILLIS = 150;
+
+    private final SnippetStore store;
+    private final Path directory;
+    private final Path fileName;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    SnippetStoreWatcher(SnippetStore store) throws IOException {
+        this.store = store;
+        Path source = store.getSource().toAbsolutePath();
+        this.directory = source.getParent();
+        this.fileName = source.getFileName();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::run, "snippet-store-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = drain(key);
+
+                // Swallow the rest of the burst
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                    touched |= drain(more);
+
+                if (touched)
+                    store.reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context()))
+                touched = true;
+        }
+        key.reset();
+        return touched;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
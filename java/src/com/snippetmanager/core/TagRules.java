@@ -0,0 +1,44 @@
+package com.snippetmanager.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Title-based auto-tagging, kept in step with
+ * RecommendationEngine::loadSnippetsFromFile in cpp/module3 so the Java model
+ * and the recommendation backend agree on every snippet's tags.
+ */
+final class TagRules {
+
+    private TagRules() {
+    }
+
+    static List<String> autoTags(String title) {
+        String t = title.toLowerCase();
+        List<String> tags = new ArrayList<>(6);
+        tags.add(t);
+
+        if (t.contains("sort"))
+            tags.add("sorting");
+        if (t.contains("search"))
+            tags.add("search");
+        if (t.contains("tree"))
+            tags.add("tree");
+        if (t.contains("graph") || t.contains("dfs") || t.contains("bfs"))
+            tags.add("graph");
+        if (t.contains("knapsack") || t.contains("fibonacci") || t.contains("lcs") || t.contains("edit"))
+            tags.add("dynamic programming");
+        if (t.contains("gcd") || t.contains("lcm") || t.contains("factorial"))
+            tags.add("mathematics");
+        if (t.contains("permutation") || t.contains("combination") || t.contains("queens"))
+            tags.add("backtracking");
+        if (t.contains("traversal") || t.contains("inorder") || t.contains("preorder") || t.contains("postorder"))
+            tags.add("traversal");
+        if (t.contains("sum") || t.contains("two"))
+            tags.add("array");
+
+        tags.add("algorithm");
+        tags.add("dsa");
+        return tags;
+    }
+}
@@ -0,0 +1,416 @@
+package com.snippetmanager.module1;
+
+import com.snippetmanager.backend.Module1Backend;
+import com.snippetmanager.backend.QueryExecutors;
+import com.snippetmanager.core.Language;
+import com.snippetmanager.core.Snippet;
+import com.snippetmanager.core.SnippetSnapshot;
+import com.snippetmanager.core.SnippetStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import into the module1 store from an NDJSON file (one
+ * {@code {"title": ..., "code": ..., "language": ...}} object per line,
+ * language optional) or from a directory tree (one snippet per file, titled
+ * after the file name).
+ *
+ * The source is read in chunks that are parsed and validated on a worker pool
+ * while reading continues. Valid snippets are de-duplicated by lower-cased
+ * title as they come in, the last occurrence winning as it would for a run of
+ * ADD commands, and snippets whose code already matches the store are dropped.
+ * What is left goes to the backend as a single IMPORT request, which applies
+ * and logs it as one transaction.
+ */
+final class SnippetImporter {
+
+    static final int MAX_TITLE_LENGTH = 200;
+    static final int MAX_CODE_LENGTH = 1 << 20;
+    private static final int CHUNK_SIZE = 2048;
+
+    interface Progress {
+        /** Called from worker threads. */
+        void report(String message);
+    }
+
+    /** Counts for the console summary. */
+    static final class Result {
+        final int read;
+        final int invalid;
+        final int duplicates;
+        final int unchanged;
+        final int imported;
+        final String backendMessage;
+
+        Result(int read, int invalid, int duplicates, int unchanged, int imported, String backendMessage) {
+            this.read = read;
+            this.invalid = invalid;
+            this.duplicates = duplicates;
+            this.unchanged = unchanged;
+            this.imported = imported;
+            this.backendMessage = backendMessage;
+        }
+
+        String summary() {
+            return String.format("%,d read, %,d imported, %,d invalid, %,d duplicates, %,d unchanged%n%s",
+                    read, imported, invalid, duplicates, unchanged, backendMessage);
+        }
+    }
+
+    // One validated snippet; sequence is its position in the source
+    private static final class Entry {
+        final long sequence;
+        final String title;
+        final String language;
+        final String code;
+        final boolean unchanged;
+
+        Entry(long sequence, String title, String language, String code, boolean unchanged) {
+            this.sequence = sequence;
+            this.title = title;
+            this.language = language;
+            this.code = code;
+            this.unchanged = unchanged;
+        }
+    }
+
+    private final Path source;
+    private final Progress progress;
+    private final SnippetSnapshot existing = SnippetStore.getInstance().snapshot();
+    private final Map<String, Entry> latest = new ConcurrentHashMap<>();
+    private final AtomicInteger valid = new AtomicInteger();
+    private final AtomicInteger invalid = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+
+    // Set once reading is done
+    private int read;
+    private int duplicates;
+    private int unchanged;
+
+    private SnippetImporter(Path source, Progress progress) {
+        this.source = source;
+        this.progress = progress;
+    }
+
+    /** Imports {@code source}; the future fails if it cannot be read or the backend refuses the batch. */
+    static CompletableFuture<Result> start(Path source, Progress progress) {
+        SnippetImporter importer = new SnippetImporter(source, progress);
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        // One extra thread for the reader, which waits on the chunk tasks
+        ExecutorService pool = QueryExecutors.newBoundedPool("snippet-import", workers + 1);
+        CompletableFuture<Result> result = CompletableFuture
+                .supplyAsync(() -> importer.prepare(pool), pool)
+                .thenCompose(importer::commit);
+        result.whenComplete((r, e) -> pool.shutdown());
+        return result;
+    }
+
+    // ---- Read, validate, de-duplicate ----
+
+    private List<Entry> prepare(ExecutorService pool) {
+        List<Future<?>> chunks = new ArrayList<>();
+        int total;
+        try {
+            total = Files.isDirectory(source) ? submitFiles(pool, chunks) : submitLines(pool, chunks);
+            for (Future<?> chunk : chunks)
+                chunk.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        List<Entry> winners = new ArrayList<>(latest.values());
+        winners.sort(Comparator.comparingLong(e -> e.sequence));
+        List<Entry> changed = winners.stream().filter(e -> !e.unchanged).collect(Collectors.toList());
+        read = total;
+        this.duplicates = valid.get() - winners.size();
+        this.unchanged = winners.size() - changed.size();
+        return changed;
+    }
+
+    private int submitLines(ExecutorService pool, List<Future<?>> chunks) throws IOException {
+        int total = 0;
+        try (BufferedReader in = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    chunks.add(submit(pool, chunk, total, this::fromJsonLine));
+                    total += chunk.size();
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(submit(pool, chunk, total, this::fromJsonLine));
+                total += chunk.size();
+            }
+        }
+        progress.report("Read " + String.format("%,d", total) + " lines from " + source.getFileName());
+        return total;
+    }
+
+    private int submitFiles(ExecutorService pool, List<Future<?>> chunks) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        progress.report("Found " + String.format("%,d", files.size()) + " files under " + source.getFileName());
+        for (int from = 0; from < files.size(); from += CHUNK_SIZE) {
+            List<Path> chunk = files.subList(from, Math.min(files.size(), from + CHUNK_SIZE));
+            chunks.add(submit(pool, chunk, from, this::fromFile));
+        }
+        return files.size();
+    }
+
+    private interface Parser<T> {
+        /** The snippet in {@code item}, or null when it is not a valid one. */
+        Entry parse(T item, long sequence);
+    }
+
+    private <T> Future<?> submit(ExecutorService pool, List<T> items, long firstSequence, Parser<T> parser) {
+        return pool.submit(() -> {
+            for (int i = 0; i < items.size(); i++) {
+                Entry entry = parser.parse(items.get(i), firstSequence + i);
+                if (entry == null) {
+                    invalid.incrementAndGet();
+                    continue;
+                }
+                valid.incrementAndGet();
+                latest.merge(entry.title.toLowerCase(), entry, (a, b) -> a.sequence > b.sequence ? a : b);
+            }
+            reportProgress(processed.addAndGet(items.size()), items.size());
+        });
+    }
+
+    // Roughly every tenth of the way, judged by the chunk that crossed the mark
+    private void reportProgress(int done, int chunk) {
+        int step = CHUNK_SIZE * 10;
+        if (done / step != (done - chunk) / step)
+            progress.report("Validated " + String.format("%,d", done) + " snippets...");
+    }
+
+    private Entry fromJsonLine(String line, long sequence) {
+        Map<String, String> fields = FlatJson.parse(line);
+        if (fields == null)
+            return null;
+        return validate(sequence, fields.get("title"), fields.get("language"), fields.get("code"));
+    }
+
+    private Entry fromFile(Path file, long sequence) {
+        try {
+            if (Files.size(file) > MAX_CODE_LENGTH * 4L)
+                return null;
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            String title = dot > 0 ? name.substring(0, dot) : name;
+            Language language = dot > 0 ? languageForExtension(name.substring(dot + 1)) : null;
+            String code = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return validate(sequence, title, language != null ? language.displayName() : null, code);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Language languageForExtension(String extension) {
+        switch (extension.toLowerCase()) {
+            case "c": case "cc": case "cpp": case "cxx": case "h": case "hpp":
+                return Language.CPP;
+            case "java":
+                return Language.JAVA;
+            case "py":
+                return Language.PYTHON;
+            case "js": case "mjs": case "ts":
+                return Language.JAVASCRIPT;
+            case "go":
+                return Language.GO;
+            case "rs":
+                return Language.RUST;
+            default:
+                return null;
+        }
+    }
+
+    // Same rules as the backend, which rejects the whole batch on a bad record
+    private Entry validate(long sequence, String title, String language, String code) {
+        if (title == null || code == null)
+            return null;
+        title = title.trim();
+        code = code.trim();
+        if (title.isEmpty() || title.length() > MAX_TITLE_LENGTH || code.isEmpty() || code.length() > MAX_CODE_LENGTH)
+            return null;
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (c == '"' || c == '\\' || c == '|' || Character.isISOControl(c))
+                return null;
+        }
+
+        Language known = language != null ? Language.fromName(language.trim()) : null;
+        String languageName = known != null ? known.displayName() : Language.detect(code).displayName();
+        Snippet current = existing.get(title);
+        boolean same = current != null && current.getTitle().equals(title) && current.getCode().trim().equals(code);
+        return new Entry(sequence, title, languageName, code, same);
+    }
+
+    // ---- Commit ----
+
+    private CompletableFuture<Result> commit(List<Entry> entries) {
+        if (entries.isEmpty())
+            return CompletableFuture.completedFuture(result(0, "Nothing to import"));
+
+        progress.report("Committing " + String.format("%,d", entries.size()) + " snippets...");
+        StringBuilder records = new StringBuilder();
+        for (Entry e : entries)
+            Module1Backend.appendImportRecord(records, e.title, e.language, e.code);
+
+        return Module1Backend.importSnippets(entries.size(), records).thenApply(response -> {
+            if (!response.isSuccess())
+                throw new IllegalStateException(response.getBody());
+            return result(entries.size(), response.getBody());
+        });
+    }
+
+    private Result result(int imported, String message) {
+        return new Result(read, invalid.get(), duplicates, unchanged, imported, message);
+    }
+
+    /**
+     * Just enough JSON for one NDJSON line: a flat object whose string members
+     * are decoded; members of any other type are skipped.
+     */
+    static final class FlatJson {
+        private final String s;
+        private int pos;
+
+        private FlatJson(String s) {
+            this.s = s;
+        }
+
+        /** The object's string members, or null when the line is not an object. */
+        static Map<String, String> parse(String line) {
+            try {
+                return new FlatJson(line).object();
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private Map<String, String> object() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            skipSpace();
+            if (peek() == '}') {
+                pos++;
+                return fields;
+            }
+            while (true) {
+                skipSpace();
+                String key = string();
+                skipSpace();
+                expect(':');
+                skipSpace();
+                if (peek() == '"')
+                    fields.put(key, string());
+                else
+                    skipValue();
+                skipSpace();
+                char c = s.charAt(pos++);
+                if (c == '}')
+                    return fields;
+                if (c != ',')
+                    throw new IllegalArgumentException("expected , or }");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                char c = s.charAt(pos++);
+                if (c == '"')
+                    return out.toString();
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'u':
+                        out.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: out.append(e); // \" \\ \/
+                }
+            }
+        }
+
+        // Numbers, literals, arrays and nested objects
+        private void skipValue() {
+            int depth = 0;
+            while (true) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    string();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth == 0)
+                        return;
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private char peek() {
+            return s.charAt(pos);
+        }
+
+        private void expect(char c) {
+            skipSpace();
+            if (s.charAt(pos++) != c)
+                throw new IllegalArgumentException("expected " + c);
+        }
+    }
+}
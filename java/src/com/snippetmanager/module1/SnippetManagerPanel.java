@@ -1,17 +1,13 @@
 package com.snippetmanager.module1;
 
+import com.snippetmanager.backend.Module1Backend;
+import com.snippetmanager.core.SnippetStore;
+
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.File;
 
 public class SnippetManagerPanel extends JPanel {
 
@@ -19,7 +15,6 @@ public class SnippetManagerPanel extends JPanel {
     private JTextField searchField;
     private JList<String> recentSearchesList;
     private DefaultListModel<String> recentModel;
-    private String backendPath;
     private JPanel mainContentPanel;
     private CardLayout cardLayout;
 
@@ -32,6 +27,13 @@ public class SnippetManagerPanel extends JPanel {
     private JTextArea addCodeArea, updateCodeArea, deleteCodeArea;
     private JComboBox<String> languageDropdown, updateLanguageDropdown;
 
+    // Autocomplete: resident title index, rebuilt when titles are added or removed
+    private static final int AUTOCOMPLETE_LIMIT = 5;
+    private volatile SnippetTitleIndex titleIndex;
+
+    // At most one bulk import at a time; only touched on the EDT
+    private boolean importRunning;
+
     // --- Modern Color Palette (Consistent with Main Frame) ---
     public static final Color PRIMARY_ACCENT = new Color(37, 99, 235); // Royal Blue
     public static final Color CARD_BG = Color.WHITE;
@@ -47,11 +49,13 @@ public class SnippetManagerPanel extends JPanel {
     public SnippetManagerPanel() {
         setLayout(new BorderLayout());
         setBackground(CONTENT_BG);
-        loadBackendPath();
 
-        if (!validateBackend()) {
-            // Logic preserved from original
-        }
+        SnippetStore store = SnippetStore.getInstance();
+        titleIndex = SnippetTitleIndex.fromTitles(store.snapshot().titles());
+        store.addListener(delta -> {
+            if (delta.titlesChanged())
+                titleIndex = SnippetTitleIndex.fromTitles(delta.getSnapshot().titles());
+        });
 
         initializeGUI();
         setupRecentSearches();
@@ -64,59 +68,11 @@ public class SnippetManagerPanel extends JPanel {
             setupAutocomplete(deleteTitleField);
     }
 
-    // --- Backend Logic (UNCHANGED) ---
-    private void loadBackendPath() {
-        // Try multiple paths to find app.exe
-        backendPath = Paths.get("cpp", "module1").toAbsolutePath().toString() + File.separator;
-    }
-
-    private boolean validateBackend() {
-        File dir = new File(backendPath);
-        return dir.exists() && new File(dir, "app.exe").exists();
-    }
-
+    // Lookups are debounced and run off the EDT; see TitleAutocomplete
     private void setupAutocomplete(JTextField field) {
         if (field == null)
             return;
-        field.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyReleased(KeyEvent e) {
-                if (Character.isLetterOrDigit(e.getKeyChar()) || e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
-                    String input = field.getText();
-                    if (input.isEmpty())
-                        return;
-                    List<String> matches = getMatchesFromJson(input);
-                    if (!matches.isEmpty()) {
-                        String suggestion = matches.get(0);
-                        if (suggestion.toLowerCase().startsWith(input.toLowerCase())) {
-                            String completion = suggestion.substring(input.length());
-                            field.setText(input + completion);
-                            field.setCaretPosition(input.length());
-                            field.moveCaretPosition(field.getText().length());
-                            field.setSelectionStart(input.length());
-                            field.setSelectionEnd(field.getText().length());
-                        }
-                    }
-                }
-            }
-        });
-    }
-
-    private List<String> getMatchesFromJson(String prefix) {
-        List<String> matches = new ArrayList<>();
-        try {
-            Path jsonPath = Paths.get("Data", "snippets_large.json");
-            String content = Files.readString(jsonPath);
-            Pattern pattern = Pattern.compile("\"(.*?)\"\\s*:");
-            Matcher matcher = pattern.matcher(content);
-            while (matcher.find()) {
-                String key = matcher.group(1);
-                if (key.toLowerCase().startsWith(prefix.toLowerCase()))
-                    matches.add(key);
-            }
-        } catch (Exception e) {
-        }
-        return matches;
+        TitleAutocomplete.install(field, () -> titleIndex, AUTOCOMPLETE_LIMIT);
     }
 
     // --- GUI Initialization (MODERNIZED) ---
@@ -194,11 +150,12 @@ public class SnippetManagerPanel extends JPanel {
         container.add(sub, gbc);
 
         // Quick Actions Grid
-        JPanel actions = new JPanel(new GridLayout(1, 3, 15, 0));
+        JPanel actions = new JPanel(new GridLayout(1, 4, 15, 0));
         actions.setOpaque(false);
         actions.add(new QuickActionCard("Add New", "Create snippet", "➕", e -> switchPage(ADD_PAGE)));
         actions.add(new QuickActionCard("Update", "Edit existing", "✏️", e -> switchPage(UPDATE_PAGE)));
         actions.add(new QuickActionCard("Delete", "Remove code", "🗑️", e -> switchPage(DELETE_PAGE)));
+        actions.add(new QuickActionCard("Import", "NDJSON or folder", "📥", e -> chooseImportSource()));
 
         gbc.gridy = 2;
         container.add(actions, gbc);
@@ -318,55 +275,23 @@ public class SnippetManagerPanel extends JPanel {
     }
 
     // --- Backend Wrapper ---
+    // Requests go to the shared module1 process; results are appended to the console
+    // on the EDT as each one completes, so the UI never waits on the backend.
     private void sendCommand(String command, String titleAndLang, String code) {
-        try {
-            // Find the project root directory
-            File currentDir = new File(System.getProperty("user.dir"));
-            File projectRoot = currentDir;
-            while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-                projectRoot = projectRoot.getParentFile();
-            }
-            if (projectRoot == null || !projectRoot.exists()) {
-                projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-            }
-
-            File dataDir = new File(projectRoot, "Data");
-            if (!dataDir.exists())
-                dataDir.mkdirs();
-
-            Path inputPath = dataDir.toPath().resolve("input.txt");
-            Path outputPath = dataDir.toPath().resolve("output.txt");
-
-            // Fix: Look for app.exe in cpp/module1 directory
-            Path exePath = new File(projectRoot, "cpp/module1/app.exe").toPath().toAbsolutePath();
-
-            // FIXED: Format must be COMMAND|TITLE|LANGUAGE on FIRST line, then CODE on
-            // following lines
-            try (BufferedWriter writer = Files.newBufferedWriter(inputPath)) {
-                // First line: COMMAND|TITLE|LANGUAGE (all on one line with pipes)
-                writer.write(command.toUpperCase() + "|" + titleAndLang);
-                // Code on remaining lines (if present)
-                if (!code.isEmpty()) {
-                    writer.write("\n" + code);
-                }
-            }
-
-            outputArea.setText("> Executing " + command + " on " + titleAndLang + "...");
-
-            if (exePath.toFile().exists()) {
-                Process process = new ProcessBuilder(exePath.toString())
-                        .directory(dataDir).redirectErrorStream(true).start();
-                process.waitFor();
+        String label = command + " on " + titleAndLang;
+        appendConsole("> Executing " + label + "...");
+
+        Module1Backend.execute(command, titleAndLang, code).whenComplete((response, error) -> {
+            String text = error != null
+                    ? "Error: " + (error.getCause() != null ? error.getCause().getMessage() : error.getMessage())
+                    : response.getBody();
+            SwingUtilities.invokeLater(() -> appendConsole("< " + label + "\n" + text));
+        });
+    }
 
-                if (outputPath.toFile().exists()) {
-                    outputArea.setText(Files.readString(outputPath));
-                }
-            } else {
-                outputArea.setText("Error: app.exe not found at " + exePath);
-            }
-        } catch (Exception ex) {
-            outputArea.setText("Error: " + ex.getMessage());
-        }
+    private void appendConsole(String text) {
+        outputArea.append("\n\n" + text);
+        outputArea.setCaretPosition(outputArea.getDocument().getLength());
     }
 
     private void performSearch() {
@@ -378,6 +303,40 @@ public class SnippetManagerPanel extends JPanel {
         }
     }
 
+    private void chooseImportSource() {
+        if (importRunning) {
+            appendConsole("! An import is already running");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import snippets from an NDJSON file or a folder");
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+            importSnippets(chooser.getSelectedFile());
+    }
+
+    // Runs off the EDT; progress lines and the summary land in the console
+    private void importSnippets(File source) {
+        importRunning = true;
+        appendConsole("> Importing " + source.getName() + "...");
+        long started = System.nanoTime();
+
+        SnippetImporter.start(source.toPath(), message -> SwingUtilities.invokeLater(() -> appendConsole("  " + message)))
+                .whenComplete((result, error) -> {
+                    String text;
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        text = "Error: " + cause.getMessage();
+                    } else {
+                        text = result.summary() + String.format("%n(%.1f s)", (System.nanoTime() - started) / 1e9);
+                    }
+                    SwingUtilities.invokeLater(() -> {
+                        importRunning = false;
+                        appendConsole("< Import of " + source.getName() + "\n" + text);
+                    });
+                });
+    }
+
     private void switchPage(String pageName) {
         cardLayout.show(mainContentPanel, pageName);
     }
@@ -0,0 +1,80 @@
+package com.snippetmanager.module1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resident prefix index over snippet titles used by the autocomplete fields.
+ *
+ * Titles are kept as two parallel arrays sorted by their lower-cased form, so a
+ * prefix lookup is one binary search followed by a walk over the matching run:
+ * O(log n + k) per keystroke instead of re-reading and regex-scanning the JSON
+ * file. Instances are immutable; owners build a new one per store snapshot.
+ */
+public class SnippetTitleIndex {
+
+    private final Entries entries;
+
+    private SnippetTitleIndex(Entries entries) {
+        this.entries = entries;
+    }
+
+    public static SnippetTitleIndex fromTitles(Collection<String> titles) {
+        return new SnippetTitleIndex(Entries.build(new ArrayList<>(titles)));
+    }
+
+    /**
+     * Returns up to {@code limit} titles starting with {@code prefix}
+     * (case-insensitive), in lexicographic order of their lower-cased form.
+     */
+    public List<String> complete(String prefix, int limit) {
+        return entries.complete(prefix.toLowerCase(), limit);
+    }
+
+    public int size() {
+        return entries.keys.length;
+    }
+
+    // Immutable sorted arrays
+    private static final class Entries {
+        final String[] keys;   // lower-cased, sorted
+        final String[] titles; // original case, same order
+
+        Entries(String[] keys, String[] titles) {
+            this.keys = keys;
+            this.titles = titles;
+        }
+
+        static Entries build(List<String> raw) {
+            String[][] pairs = new String[raw.size()][];
+            for (int i = 0; i < pairs.length; i++)
+                pairs[i] = new String[] { raw.get(i).toLowerCase(), raw.get(i) };
+            Arrays.sort(pairs, (a, b) -> a[0].compareTo(b[0]));
+
+            String[] keys = new String[pairs.length];
+            String[] titles = new String[pairs.length];
+            for (int i = 0; i < pairs.length; i++) {
+                keys[i] = pairs[i][0];
+                titles[i] = pairs[i][1];
+            }
+            return new Entries(keys, titles);
+        }
+
+        List<String> complete(String prefix, int limit) {
+            List<String> out = new ArrayList<>(Math.min(limit, 16));
+            int lo = 0, hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            for (int i = lo; i < keys.length && out.size() < limit && keys[i].startsWith(prefix); i++)
+                out.add(titles[i]);
+            return out;
+        }
+    }
+}
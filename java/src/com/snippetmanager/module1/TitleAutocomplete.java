@@ -0,0 +1,94 @@
+package com.snippetmanager.module1;
+
+import com.snippetmanager.backend.QueryExecutors;
+
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Inline title completion for one text field, kept off the Event Dispatch
+ * Thread.
+ *
+ * Keystrokes only restart a short debounce timer; when typing pauses, the
+ * current prefix is looked up on a background worker and the suggestion is
+ * applied back on the EDT. Each lookup carries a sequence number, so a reply
+ * for a prefix that has since been superseded (by another keystroke or by a
+ * newer lookup) is dropped instead of overwriting what the user typed.
+ */
+class TitleAutocomplete {
+    private static final int DEBOUNCE_MS = 120;
+
+    // One worker is enough: lookups are short and only the newest one matters
+    private static final ExecutorService LOOKUPS = QueryExecutors.newBoundedPool("autocomplete", 1);
+
+    private final JTextField field;
+    private final Supplier<SnippetTitleIndex> index;
+    private final int limit;
+    private final Timer debounce;
+
+    // EDT-confined
+    private long sequence;
+    private Future<?> pending;
+
+    TitleAutocomplete(JTextField field, Supplier<SnippetTitleIndex> index, int limit) {
+        this.field = field;
+        this.index = index;
+        this.limit = limit;
+        this.debounce = new Timer(DEBOUNCE_MS, e -> lookup());
+        this.debounce.setRepeats(false);
+    }
+
+    static void install(JTextField field, Supplier<SnippetTitleIndex> index, int limit) {
+        TitleAutocomplete autocomplete = new TitleAutocomplete(field, index, limit);
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (Character.isLetterOrDigit(e.getKeyChar()) || e.getKeyCode() == KeyEvent.VK_BACK_SPACE)
+                    autocomplete.keystroke();
+            }
+        });
+    }
+
+    private void keystroke() {
+        // Invalidate whatever is in flight; the timer decides when to ask again
+        sequence++;
+        debounce.restart();
+    }
+
+    private void lookup() {
+        String input = field.getText();
+        if (input.isEmpty())
+            return;
+
+        long ticket = ++sequence;
+        if (pending != null)
+            pending.cancel(false);
+        SnippetTitleIndex titles = index.get();
+        pending = LOOKUPS.submit(() -> {
+            List<String> matches = titles.complete(input, limit);
+            if (!matches.isEmpty())
+                SwingUtilities.invokeLater(() -> apply(ticket, input, matches.get(0)));
+        });
+    }
+
+    private void apply(long ticket, String input, String suggestion) {
+        if (ticket != sequence || !field.getText().equals(input))
+            return; // superseded while the lookup ran
+        if (!suggestion.toLowerCase().startsWith(input.toLowerCase()))
+            return;
+
+        String completion = suggestion.substring(input.length());
+        field.setText(input + completion);
+        field.setCaretPosition(input.length());
+        field.moveCaretPosition(field.getText().length());
+        field.setSelectionStart(input.length());
+        field.setSelectionEnd(field.getText().length());
+    }
+}
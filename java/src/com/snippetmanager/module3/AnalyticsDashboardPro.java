@@ -1,13 +1,25 @@
 package com.snippetmanager.module3;
 
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.backend.Module3Backend;
+import com.snippetmanager.backend.QueryExecutors;
+import com.snippetmanager.core.Language;
+import com.snippetmanager.core.SnippetDelta;
+import com.snippetmanager.core.SnippetSnapshot;
+import com.snippetmanager.core.SnippetStore;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.*;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 public class AnalyticsDashboardPro extends JPanel {
     // --- Modern Color Palette ---
@@ -22,12 +34,23 @@ public class AnalyticsDashboardPro extends JPanel {
     private static final Color BORDER_COLOR = new Color(226, 232, 240);
     private static final Color STATUS_BG = new Color(15, 23, 42);
 
+    // Chart queries fan out over this pool (virtual threads on JDK 21+)
+    private static final int CHART_COUNT = 4;
+    private static final String[] CHART_TITLES = { "Language Distribution", "Top Used Snippets", "Trending Tags",
+            "Trending (Time-Decay)" };
+    private static final Color[] CHART_ACCENTS = { ACCENT_BLUE, ACCENT_GREEN, ACCENT_RED, ACCENT_ORANGE };
+    private static final ExecutorService QUERY_POOL = QueryExecutors.newBoundedPool("analytics-query", CHART_COUNT);
+
     private JLabel totalSnippetsValue;
     private JLabel totalTagsValue;
     private JPanel chartsPanel;
     private JLabel statusLabel;
     private String dataFilePath = "Data/snippets_large.json";
 
+    // EDT-confined: the running refresh, cancelled when a new one starts
+    private final List<Future<?>> inFlight = new ArrayList<>();
+    private int refreshGeneration;
+
     public AnalyticsDashboardPro() {
         setLayout(new BorderLayout(0, 0));
         setBackground(BG_LIGHT);
@@ -49,9 +72,10 @@ public class AnalyticsDashboardPro extends JPanel {
         // Status Bar
         add(createStatusBar(), BorderLayout.SOUTH);
 
-        // Load data on startup
+        // Load data on startup; store edits are patched in by applyDelta
         loadStatistics();
         refreshAllAnalytics();
+        SnippetStore.getInstance().addListener(delta -> SwingUtilities.invokeLater(() -> applyDelta(delta)));
     }
 
     private JPanel createHeader() {
@@ -130,228 +154,208 @@ public class AnalyticsDashboardPro extends JPanel {
         return bar;
     }
 
-    // --- Backend Logic (Preserved exactly as provided) ---
+    // --- Backend Logic (shared module3 backend process) ---
 
-    private String getExecutablePath() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-        return new File(projectRoot, "cpp/module3/app.exe").getAbsolutePath();
+    // Header counters come straight from the shared snapshot
+    private void loadStatistics() {
+        SnippetSnapshot snapshot = SnippetStore.getInstance().snapshot();
+        totalSnippetsValue.setText(String.valueOf(snapshot.size()));
+        totalTagsValue.setText(String.valueOf(snapshot.tagCount()));
     }
 
-    private File getDataDirectory() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-        return new File(projectRoot, "Data");
+    // Store edits only touch the counters and the snapshot-backed charts whose
+    // content actually changed; backend charts are left alone
+    private void applyDelta(SnippetDelta delta) {
+        loadStatistics();
+        SnippetSnapshot before = delta.getPrevious();
+        SnippetSnapshot after = delta.getSnapshot();
+        if (!before.languageDistribution().equals(after.languageDistribution()))
+            replaceChart(0, createLanguageDistributionChart(fetchLanguageDistribution()));
+        setStatus("✓ Store updated (" + delta + ")");
     }
 
-    private void loadStatistics() {
-        new Thread(() -> {
-            try {
-                ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "stats");
-                pb.directory(getDataDirectory());
-                pb.redirectErrorStream(true);
-                Process process = pb.start();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.contains("total_snippets|")) {
-                            String val = line.split("\\|")[1].trim();
-                            SwingUtilities.invokeLater(() -> totalSnippetsValue.setText(val));
-                        } else if (line.contains("total_tags|")) {
-                            String val = line.split("\\|")[1].trim();
-                            SwingUtilities.invokeLater(() -> totalTagsValue.setText(val));
-                        }
-                    }
-                }
-                process.waitFor();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }).start();
+    private void replaceChart(int slot, JPanel chart) {
+        if (chartsPanel.getComponentCount() != CHART_COUNT)
+            return;
+        chartsPanel.remove(slot);
+        chartsPanel.add(chart, slot);
+        chartsPanel.revalidate();
+        chartsPanel.repaint();
     }
 
+    // Runs the four chart queries concurrently; each chart replaces its
+    // placeholder as soon as its own data arrives. Must be called on the EDT.
     private void refreshAllAnalytics() {
-        new Thread(() -> {
+        cancelInFlight();
+        int generation = ++refreshGeneration;
+        long startedAt = System.nanoTime();
+        Map<String, Long> timings = new LinkedHashMap<>();
+
+        chartsPanel.removeAll();
+        for (int slot = 0; slot < CHART_COUNT; slot++)
+            chartsPanel.add(createLoadingCard(slot));
+        chartsPanel.revalidate();
+        chartsPanel.repaint();
+        setStatus("🔄 Loading " + CHART_COUNT + " analytics queries...");
+
+        submitChart(generation, 0, "lang", this::fetchLanguageDistribution,
+                this::createLanguageDistributionChart, startedAt, timings);
+        submitChart(generation, 1, "top", this::fetchTopSnippets,
+                this::createTopSnippetsChart, startedAt, timings);
+        submitChart(generation, 2, "tags", this::fetchTrendingTags,
+                this::createTrendingTagsChart, startedAt, timings);
+        submitChart(generation, 3, "trending", this::fetchTrendingSnippets,
+                this::createTrendingSnippetsChart, startedAt, timings);
+    }
+
+    private <T> void submitChart(int generation, int slot, String name, Callable<T> fetch,
+            Function<T, JPanel> render, long startedAt, Map<String, Long> timings) {
+        inFlight.add(QUERY_POOL.submit(() -> {
+            long t0 = System.nanoTime();
+            T data = null;
+            Exception failure = null;
             try {
-                SwingUtilities.invokeLater(() -> {
-                    chartsPanel.removeAll();
-                    chartsPanel.repaint();
-                });
-
-                setStatus("🔄 Computing language distribution...");
-                JPanel langChart = createLanguageDistributionChart();
-
-                setStatus("🔄 Analyzing snippet usage...");
-                JPanel topChart = createTopSnippetsChart();
-
-                setStatus("🔄 Identifying trending tags...");
-                JPanel tagsChart = createTrendingTagsChart();
-
-                setStatus("🔄 calculating time-decay trends...");
-                JPanel trendingChart = createTrendingSnippetsChart();
-
-                SwingUtilities.invokeLater(() -> {
-                    chartsPanel.add(langChart);
-                    chartsPanel.add(topChart);
-                    chartsPanel.add(tagsChart);
-                    chartsPanel.add(trendingChart);
-                    chartsPanel.revalidate();
-                    chartsPanel.repaint();
-                });
-                setStatus("✓ Analytics Updated");
+                data = fetch.call();
             } catch (Exception e) {
-                setStatus("✗ Error: " + e.getMessage());
+                failure = e;
             }
-        }).start();
+            if (Thread.currentThread().isInterrupted())
+                return;
+            long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+            T result = data;
+            Exception error = failure;
+
+            SwingUtilities.invokeLater(() -> {
+                if (generation != refreshGeneration)
+                    return; // superseded by a newer refresh
+                replaceChart(slot, error == null ? render.apply(result) : createErrorCard(slot, error));
+
+                timings.put(name, elapsedMs);
+                showTimings(timings, startedAt);
+            });
+        }));
+    }
+
+    private void showTimings(Map<String, Long> timings, long startedAt) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> t : timings.entrySet())
+            sb.append(sb.length() == 0 ? "" : " · ").append(t.getKey()).append(' ').append(t.getValue()).append(" ms");
+
+        if (timings.size() < CHART_COUNT) {
+            setStatus("🔄 " + timings.size() + "/" + CHART_COUNT + " loaded — " + sb);
+        } else {
+            long wallMs = (System.nanoTime() - startedAt) / 1_000_000;
+            setStatus("✓ Analytics Updated in " + wallMs + " ms — " + sb);
+        }
+    }
+
+    private void cancelInFlight() {
+        for (Future<?> f : inFlight)
+            f.cancel(true);
+        inFlight.clear();
     }
 
     private void setStatus(String msg) {
         SwingUtilities.invokeLater(() -> statusLabel.setText(msg));
     }
 
-    // --- Chart Creators (Preserving Logic, Updating UI) ---
-
-    private JPanel createLanguageDistributionChart() {
-        JPanel card = createChartCard("Language Distribution", ACCENT_BLUE);
-        try {
-            ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "lang_dist");
-            pb.directory(getDataDirectory());
-            Process process = pb.start();
-            Map<String, Integer> langDist = new LinkedHashMap<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                boolean capturing = false;
-                while ((line = reader.readLine()) != null) {
-                    if (line.equals("LANG_DIST_START"))
-                        capturing = true;
-                    else if (line.equals("LANG_DIST_END"))
-                        capturing = false;
-                    else if (capturing) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length == 2)
-                            langDist.put(parts[0], Integer.parseInt(parts[1]));
-                    }
-                }
-            }
-            process.waitFor();
+    // --- Chart Queries (worker threads) ---
 
-            JPanel list = createChartListContainer();
-            int max = langDist.values().stream().max(Integer::compare).orElse(1);
-            for (Map.Entry<String, Integer> entry : langDist.entrySet()) {
-                list.add(createModernBar(entry.getKey(), entry.getValue(), max, ACCENT_BLUE));
-            }
-            card.add(wrapInScroll(list), BorderLayout.CENTER);
-        } catch (Exception e) {
-            card.add(new JLabel("Error loading data"));
+    private Map<String, Integer> fetchLanguageDistribution() {
+        Map<String, Integer> langDist = new LinkedHashMap<>();
+        for (Map.Entry<Language, Integer> e : SnippetStore.getInstance().snapshot().languageDistribution().entrySet())
+            langDist.put(e.getKey().displayName(), e.getValue());
+        return langDist;
+    }
+
+    private List<SnippetItem> fetchTopSnippets() throws IOException {
+        BackendResponse response = Module3Backend.query("top_snippets", "8");
+        List<SnippetItem> items = new ArrayList<>();
+        for (String line : response.section("TOP_SNIPPETS_START", "TOP_SNIPPETS_END")) {
+            String[] p = line.split("\\|");
+            if (p.length >= 3)
+                items.add(new SnippetItem(p[1], Integer.parseInt(p[2])));
         }
-        return card;
+        return items;
     }
 
-    private JPanel createTopSnippetsChart() {
-        JPanel card = createChartCard("Top Used Snippets", ACCENT_GREEN);
-        try {
-            ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "top_snippets", "8");
-            pb.directory(getDataDirectory());
-            Process process = pb.start();
-            List<SnippetItem> items = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                boolean cap = false;
-                while ((line = reader.readLine()) != null) {
-                    if (line.equals("TOP_SNIPPETS_START"))
-                        cap = true;
-                    else if (line.equals("TOP_SNIPPETS_END"))
-                        cap = false;
-                    else if (cap) {
-                        String[] p = line.split("\\|");
-                        if (p.length >= 3)
-                            items.add(new SnippetItem(p[1], Integer.parseInt(p[2])));
-                    }
-                }
-            }
-            JPanel list = createChartListContainer();
-            int r = 1;
-            for (SnippetItem i : items)
-                list.add(createModernListItem(r++, i.name, i.count + " uses", ACCENT_GREEN));
-            card.add(wrapInScroll(list), BorderLayout.CENTER);
-        } catch (Exception e) {
+    private List<TrendingItem> fetchTrendingTags() throws IOException {
+        BackendResponse response = Module3Backend.query("trending_tags", "10");
+        List<TrendingItem> items = new ArrayList<>();
+        for (String line : response.section("TRENDING_TAGS_START", "TRENDING_TAGS_END")) {
+            String[] p = line.split("\\|");
+            if (p.length >= 2)
+                items.add(new TrendingItem(p[0], Double.parseDouble(p[1])));
         }
-        return card;
+        return items;
     }
 
-    private JPanel createTrendingTagsChart() {
-        JPanel card = createChartCard("Trending Tags", ACCENT_RED);
-        try {
-            ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "trending_tags", "10");
-            pb.directory(getDataDirectory());
-            Process process = pb.start();
-            Map<String, Integer> tags = new LinkedHashMap<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                boolean cap = false;
-                while ((line = reader.readLine()) != null) {
-                    if (line.equals("TRENDING_TAGS_START"))
-                        cap = true;
-                    else if (line.equals("TRENDING_TAGS_END"))
-                        cap = false;
-                    else if (cap) {
-                        String[] p = line.split("\\|");
-                        if (p.length == 2)
-                            tags.put(p[0], Integer.parseInt(p[1]));
-                    }
-                }
-            }
-            JPanel list = createChartListContainer();
-            int max = tags.values().stream().max(Integer::compare).orElse(1);
-            for (Map.Entry<String, Integer> entry : tags.entrySet())
-                list.add(createModernBar(entry.getKey(), entry.getValue(), max, ACCENT_RED));
-            card.add(wrapInScroll(list), BorderLayout.CENTER);
-        } catch (Exception e) {
+    private List<TrendingItem> fetchTrendingSnippets() throws IOException {
+        BackendResponse response = Module3Backend.query("trending_snippets", "8");
+        List<TrendingItem> items = new ArrayList<>();
+        for (String line : response.section("TRENDING_SNIPPETS_START", "TRENDING_SNIPPETS_END")) {
+            String[] p = line.split("\\|");
+            if (p.length >= 3)
+                items.add(new TrendingItem(p[1], Double.parseDouble(p[2])));
         }
-        return card;
+        return items;
     }
 
-    private JPanel createTrendingSnippetsChart() {
-        JPanel card = createChartCard("Trending (Time-Decay)", ACCENT_ORANGE);
-        try {
-            ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "trending_snippets", "8");
-            pb.directory(getDataDirectory());
-            Process process = pb.start();
-            List<TrendingItem> items = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                boolean cap = false;
-                while ((line = reader.readLine()) != null) {
-                    if (line.equals("TRENDING_SNIPPETS_START"))
-                        cap = true;
-                    else if (line.equals("TRENDING_SNIPPETS_END"))
-                        cap = false;
-                    else if (cap) {
-                        String[] p = line.split("\\|");
-                        if (p.length >= 3)
-                            items.add(new TrendingItem(p[1], Double.parseDouble(p[2])));
-                    }
-                }
-            }
-            JPanel list = createChartListContainer();
-            int r = 1;
-            for (TrendingItem i : items)
-                list.add(createModernListItem(r++, i.name, String.format("%.2f", i.score), ACCENT_ORANGE));
-            card.add(wrapInScroll(list), BorderLayout.CENTER);
-        } catch (Exception e) {
+    // --- Chart Creators (EDT) ---
+
+    private JPanel createLanguageDistributionChart(Map<String, Integer> langDist) {
+        JPanel card = createChartCard(CHART_TITLES[0], CHART_ACCENTS[0]);
+        JPanel list = createChartListContainer();
+        int max = langDist.values().stream().max(Integer::compare).orElse(1);
+        for (Map.Entry<String, Integer> entry : langDist.entrySet()) {
+            list.add(createModernBar(entry.getKey(), entry.getValue(), max, ACCENT_BLUE));
         }
+        card.add(wrapInScroll(list), BorderLayout.CENTER);
+        return card;
+    }
+
+    private JPanel createTopSnippetsChart(List<SnippetItem> items) {
+        JPanel card = createChartCard(CHART_TITLES[1], CHART_ACCENTS[1]);
+        JPanel list = createChartListContainer();
+        int r = 1;
+        for (SnippetItem i : items)
+            list.add(createModernListItem(r++, i.name, i.count + " uses", ACCENT_GREEN));
+        card.add(wrapInScroll(list), BorderLayout.CENTER);
+        return card;
+    }
+
+    private JPanel createTrendingTagsChart(List<TrendingItem> tags) {
+        JPanel card = createChartCard(CHART_TITLES[2], CHART_ACCENTS[2]);
+        JPanel list = createChartListContainer();
+        double max = tags.isEmpty() ? 1 : tags.get(0).score; // best first
+        for (TrendingItem i : tags)
+            list.add(createModernBar(i.name, i.score, max, String.format("%.1f", i.score), ACCENT_RED));
+        card.add(wrapInScroll(list), BorderLayout.CENTER);
+        return card;
+    }
+
+    private JPanel createTrendingSnippetsChart(List<TrendingItem> items) {
+        JPanel card = createChartCard(CHART_TITLES[3], CHART_ACCENTS[3]);
+        JPanel list = createChartListContainer();
+        int r = 1;
+        for (TrendingItem i : items)
+            list.add(createModernListItem(r++, i.name, String.format("%.2f", i.score), ACCENT_ORANGE));
+        card.add(wrapInScroll(list), BorderLayout.CENTER);
+        return card;
+    }
+
+    private JPanel createLoadingCard(int slot) {
+        JPanel card = createChartCard(CHART_TITLES[slot], CHART_ACCENTS[slot]);
+        JLabel loading = new JLabel("Loading...", SwingConstants.CENTER);
+        loading.setFont(new Font("Inter", Font.PLAIN, 12));
+        loading.setForeground(TEXT_SECONDARY);
+        card.add(loading, BorderLayout.CENTER);
+        return card;
+    }
+
+    private JPanel createErrorCard(int slot, Exception error) {
+        JPanel card = createChartCard(CHART_TITLES[slot], CHART_ACCENTS[slot]);
+        card.add(new JLabel("Error loading data: " + error.getMessage()), BorderLayout.CENTER);
         return card;
     }
 
@@ -406,6 +410,10 @@ public class AnalyticsDashboardPro extends JPanel {
     }
 
     private JPanel createModernBar(String label, int val, int max, Color color) {
+        return createModernBar(label, val, max, String.valueOf(val), color);
+    }
+
+    private JPanel createModernBar(String label, double val, double max, String shown, Color color) {
         JPanel p = new JPanel(new BorderLayout(10, 5));
         p.setOpaque(false);
         p.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
@@ -423,7 +431,7 @@ public class AnalyticsDashboardPro extends JPanel {
                 g2.setColor(new Color(241, 245, 249));
                 g2.fillRoundRect(0, 5, getWidth(), 10, 10, 10);
 
-                int fillWidth = (int) (getWidth() * ((double) val / max));
+                int fillWidth = max > 0 ? (int) (getWidth() * (val / max)) : 0;
                 g2.setColor(color);
                 g2.fillRoundRect(0, 5, fillWidth, 10, 10, 10);
                 g2.dispose();
@@ -431,7 +439,7 @@ public class AnalyticsDashboardPro extends JPanel {
         };
         track.setOpaque(false);
 
-        JLabel v = new JLabel(String.valueOf(val));
+        JLabel v = new JLabel(shown);
         v.setFont(new Font("Inter", Font.BOLD, 11));
         v.setForeground(TEXT_SECONDARY);
         v.setPreferredSize(new Dimension(30, 20));
@@ -0,0 +1,328 @@
+package com.snippetmanager.module3;
+
+import java.util.Arrays;
+
+/**
+ * Force-directed layout for a {@link TagNetwork} (Fruchterman-Reingold with
+ * a Barnes-Hut quadtree for the repulsive forces).
+ *
+ * Every node pushes every other away with force k²/d, edges pull their ends
+ * together with d²/k, and a weak gravity keeps disconnected tags on screen.
+ * Repulsion is approximated by treating any quadtree cell that looks smaller
+ * than {@link #THETA} from a node as one body at its centre of mass, so an
+ * iteration costs O(n log n) instead of O(n²). The center tag stays pinned at
+ * the origin; coordinates are in abstract units the canvas scales to fit.
+ *
+ * Not thread-safe: one worker steps a layout while others read copies from
+ * {@link #positions()}.
+ */
+final class ForceLayout {
+    private static final double THETA = 0.8;
+    private static final double GRAVITY = 0.05;
+    private static final double COOLING = 0.97;
+    private static final double MIN_TEMPERATURE = 0.002;
+    private static final int MAX_ITERATIONS = 400;
+
+    private final TagNetwork network;
+    private final int n;
+    private final double k;
+    private final double[] x, y, dx, dy;
+    private final double[] edgeStrength;
+    private final QuadTree tree;
+
+    private double temperature;
+    private int iterations;
+
+    ForceLayout(TagNetwork network) {
+        this(network, null);
+    }
+
+    /**
+     * Warm start: the first {@code seed.length / 2} nodes start where an
+     * earlier layout left them and the rest start next to a placed neighbour,
+     * with a lower temperature so the settled part of the picture only shifts
+     * to make room. Used when deeper hops are merged into a network on screen.
+     */
+    ForceLayout(TagNetwork network, float[] seed) {
+        this.network = network;
+        this.n = network.nodeCount();
+        this.k = 1.0;
+        this.x = new double[n];
+        this.y = new double[n];
+        this.dx = new double[n];
+        this.dy = new double[n];
+        this.tree = new QuadTree(n);
+        this.temperature = Math.sqrt(n) * k * 0.5;
+
+        // Heavier co-occurrence pulls harder, but only logarithmically
+        edgeStrength = new double[network.edgeCount()];
+        for (int e = 0; e < edgeStrength.length; e++)
+            edgeStrength[e] = 1.0 + Math.log1p(network.edgeWeight(e)) * 0.25;
+
+        // Deterministic start on a sunflower spiral, most frequent tags innermost,
+        // so revisiting the same network converges to the same picture
+        double golden = Math.PI * (3 - Math.sqrt(5));
+        int seeded = seed == null ? 1 : Math.min(n, seed.length / 2);
+        for (int i = 1; i < seeded; i++) {
+            x[i] = seed[2 * i];
+            y[i] = seed[2 * i + 1];
+        }
+        for (int i = seeded; i < n; i++) {
+            double r = k * Math.sqrt(i) * 1.5;
+            x[i] = r * Math.cos(i * golden);
+            y[i] = r * Math.sin(i * golden);
+        }
+        if (seeded > 1) {
+            placeNearNeighbours(seeded, golden);
+            temperature *= 0.2;
+        }
+    }
+
+    // New nodes start just outside the first already-placed node they link to
+    private void placeNearNeighbours(int seeded, double golden) {
+        boolean[] placed = new boolean[n];
+        Arrays.fill(placed, 0, seeded, true);
+        for (int pass = 0; pass < 4; pass++) {
+            boolean progress = false;
+            for (int e = 0; e < network.edgeCount(); e++) {
+                int a = network.edgeFrom(e), b = network.edgeTo(e);
+                if (placed[a] == placed[b])
+                    continue;
+                int from = placed[a] ? a : b, to = placed[a] ? b : a;
+                double ox = x[from], oy = y[from];
+                double norm = Math.sqrt(ox * ox + oy * oy) + 1e-9;
+                double angle = to * golden;
+                x[to] = ox + (ox / norm + Math.cos(angle) * 0.5) * k;
+                y[to] = oy + (oy / norm + Math.sin(angle) * 0.5) * k;
+                placed[to] = true;
+                progress = true;
+            }
+            if (!progress)
+                break;
+        }
+    }
+
+    TagNetwork network() {
+        return network;
+    }
+
+    int iterations() {
+        return iterations;
+    }
+
+    boolean isConverged() {
+        return iterations >= MAX_ITERATIONS || temperature < MIN_TEMPERATURE;
+    }
+
+    /** Runs one iteration; returns true once the layout has converged. */
+    boolean step() {
+        if (isConverged())
+            return true;
+
+        Arrays.fill(dx, 0);
+        Arrays.fill(dy, 0);
+
+        // Repulsion through the quadtree
+        tree.build(x, y);
+        double k2 = k * k;
+        for (int i = 0; i < n; i++)
+            tree.accumulate(i, x[i], y[i], k2, dx, dy);
+
+        // Attraction along edges
+        for (int e = 0; e < edgeStrength.length; e++) {
+            int a = network.edgeFrom(e), b = network.edgeTo(e);
+            double ex = x[a] - x[b], ey = y[a] - y[b];
+            double d = Math.sqrt(ex * ex + ey * ey) + 1e-9;
+            double f = d * edgeStrength[e] / k;
+            dx[a] -= ex * f;
+            dy[a] -= ey * f;
+            dx[b] += ex * f;
+            dy[b] += ey * f;
+        }
+
+        // Gravity towards the pinned center, then move capped by the temperature
+        double moved = 0;
+        for (int i = 1; i < n; i++) {
+            double d = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+            dx[i] -= x[i] * GRAVITY * d / k;
+            dy[i] -= y[i] * GRAVITY * d / k;
+
+            double len = Math.sqrt(dx[i] * dx[i] + dy[i] * dy[i]);
+            if (len > 0) {
+                double step = Math.min(len, temperature);
+                x[i] += dx[i] / len * step;
+                y[i] += dy[i] / len * step;
+                moved = Math.max(moved, step);
+            }
+        }
+
+        temperature *= COOLING;
+        iterations++;
+        if (moved < MIN_TEMPERATURE)
+            temperature = 0;
+        return isConverged();
+    }
+
+    /** Copy of the current positions as {@code x0, y0, x1, y1, ...}. */
+    float[] positions() {
+        float[] xy = new float[n * 2];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = (float) x[i];
+            xy[2 * i + 1] = (float) y[i];
+        }
+        return xy;
+    }
+
+    // Point-region quadtree over flat arrays, rebuilt every iteration
+    private static final class QuadTree {
+        private static final int MAX_DEPTH = 32;
+
+        private double[] cx, cy, half;   // cell square
+        private double[] mx, my, mass;   // centre of mass (weighted sum until finished)
+        private int[] child;             // 4 per cell, 0 = none
+        private int[] body;              // leaf body, -1 = none / internal
+        private int cells;
+
+        QuadTree(int n) {
+            allocate(Math.max(16, n * 4));
+        }
+
+        private void allocate(int capacity) {
+            cx = grow(cx, capacity);
+            cy = grow(cy, capacity);
+            half = grow(half, capacity);
+            mx = grow(mx, capacity);
+            my = grow(my, capacity);
+            mass = grow(mass, capacity);
+            child = child == null ? new int[capacity * 4] : Arrays.copyOf(child, capacity * 4);
+            body = body == null ? new int[capacity] : Arrays.copyOf(body, capacity);
+        }
+
+        private static double[] grow(double[] a, int capacity) {
+            return a == null ? new double[capacity] : Arrays.copyOf(a, capacity);
+        }
+
+        void build(double[] x, double[] y) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < x.length; i++) {
+                minX = Math.min(minX, x[i]);
+                maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+            cells = 0;
+            int root = newCell((minX + maxX) / 2, (minY + maxY) / 2,
+                    Math.max(maxX - minX, maxY - minY) / 2 + 1e-6);
+            for (int i = 0; i < x.length; i++)
+                insert(root, i, x, y);
+            finish(root);
+        }
+
+        private int newCell(double x, double y, double h) {
+            if (cells == body.length)
+                allocate(cells * 2);
+            int c = cells++;
+            cx[c] = x;
+            cy[c] = y;
+            half[c] = h;
+            mx[c] = my[c] = mass[c] = 0;
+            body[c] = -1;
+            Arrays.fill(child, c * 4, c * 4 + 4, 0);
+            return c;
+        }
+
+        private void insert(int cell, int i, double[] x, double[] y) {
+            for (int depth = 0;; depth++) {
+                mx[cell] += x[i];
+                my[cell] += y[i];
+                mass[cell]++;
+
+                if (mass[cell] == 1) {
+                    body[cell] = i; // empty leaf takes the body
+                    return;
+                }
+                if (depth >= MAX_DEPTH)
+                    return; // coincident points: keep them lumped in this cell
+
+                // Internal cell: push an existing leaf body down first
+                int resident = body[cell];
+                if (resident >= 0) {
+                    body[cell] = -1;
+                    int q = quadrant(cell, x[resident], y[resident]);
+                    int c = childCell(cell, q);
+                    mx[c] += x[resident];
+                    my[c] += y[resident];
+                    mass[c]++;
+                    body[c] = resident;
+                }
+                cell = childCell(cell, quadrant(cell, x[i], y[i]));
+            }
+        }
+
+        private int quadrant(int cell, double px, double py) {
+            return (px >= cx[cell] ? 1 : 0) | (py >= cy[cell] ? 2 : 0);
+        }
+
+        private int childCell(int cell, int q) {
+            int c = child[cell * 4 + q];
+            if (c == 0) {
+                double h = half[cell] / 2;
+                c = newCell(cx[cell] + ((q & 1) != 0 ? h : -h), cy[cell] + ((q & 2) != 0 ? h : -h), h);
+                child[cell * 4 + q] = c;
+            }
+            return c;
+        }
+
+        private void finish(int root) {
+            for (int c = root; c < cells; c++) {
+                if (mass[c] > 0) {
+                    mx[c] /= mass[c];
+                    my[c] /= mass[c];
+                }
+            }
+        }
+
+        // Adds the repulsion felt by body i to dx/dy, walking the tree iteratively
+        private int[] stack = new int[64];
+
+        void accumulate(int i, double px, double py, double k2, double[] dx, double[] dy) {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                if (mass[c] == 0 || body[c] == i)
+                    continue;
+                double ex = px - mx[c], ey = py - my[c];
+                double d2 = ex * ex + ey * ey;
+                double size = half[c] * 2;
+                boolean leaf = body[c] >= 0 || isLeafLump(c);
+
+                if (leaf || size * size < THETA * THETA * d2) {
+                    if (d2 < 1e-12) {
+                        // Overlapping bodies: nudge apart deterministically
+                        ex = ((i * 31) % 7 - 3) * 1e-3;
+                        ey = ((i * 17) % 7 - 3) * 1e-3;
+                        d2 = ex * ex + ey * ey;
+                    }
+                    double f = k2 * mass[c] / d2;
+                    dx[i] += ex * f;
+                    dy[i] += ey * f;
+                    continue;
+                }
+                if (top + 4 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                for (int q = 0; q < 4; q++) {
+                    int ch = child[c * 4 + q];
+                    if (ch != 0)
+                        stack[top++] = ch;
+                }
+            }
+        }
+
+        private boolean isLeafLump(int c) {
+            int base = c * 4;
+            return child[base] == 0 && child[base + 1] == 0 && child[base + 2] == 0 && child[base + 3] == 0;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.snippetmanager.module3;
 
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.backend.Module3Backend;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.*;
 
 public class MetricsDashboard extends JPanel {
     // --- Modern Color Palette (Synced with Module 1) ---
@@ -131,31 +133,7 @@ public class MetricsDashboard extends JPanel {
         return bar;
     }
 
-    // --- Backend Integration (Unchanged Logic) ---
-
-    private String getExecutablePath() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-        return new File(projectRoot, "cpp/module3/app.exe").getAbsolutePath();
-    }
-
-    private File getDataDirectory() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-        return new File(projectRoot, "Data");
-    }
+    // --- Backend Integration (shared module3 backend process) ---
 
     private void loadMetrics() {
         statusLabel.setText("🔄 Synchronizing metrics with backend...");
@@ -164,27 +142,20 @@ public class MetricsDashboard extends JPanel {
 
         new Thread(() -> {
             try {
-                ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "metrics");
-                pb.directory(getDataDirectory());
-                pb.redirectErrorStream(true);
-                Process process = pb.start();
-
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.contains("total_recommendations|"))
-                            updateCard(0, line.split("\\|")[1], false);
-                        else if (line.contains("clicked_count|"))
-                            updateCard(1, line.split("\\|")[1], false);
-                        else if (line.contains("accuracy|"))
-                            updateCard(2, line.split("\\|")[1], true);
-                        else if (line.contains("coverage|"))
-                            updateCard(3, line.split("\\|")[1], true);
-                    }
+                BackendResponse response = Module3Backend.query("metrics");
+                for (String line : response.lines()) {
+                    if (line.contains("total_recommendations|"))
+                        updateCard(0, line.split("\\|")[1], false);
+                    else if (line.contains("clicked_count|"))
+                        updateCard(1, line.split("\\|")[1], false);
+                    else if (line.contains("accuracy|"))
+                        updateCard(2, line.split("\\|")[1], true);
+                    else if (line.contains("coverage|"))
+                        updateCard(3, line.split("\\|")[1], true);
                 }
-                process.waitFor();
                 SwingUtilities.invokeLater(
-                        () -> statusLabel.setText("✓ Data synchronized at " + new java.util.Date().toString()));
+                        () -> statusLabel.setText("✓ Data synchronized at " + new java.util.Date().toString()
+                                + "  ·  Query cache: " + Module3Backend.cache()));
             } catch (Exception e) {
                 SwingUtilities.invokeLater(() -> statusLabel.setText("✗ Backend Error: " + e.getMessage()));
             }
@@ -1,5 +1,10 @@
 package com.snippetmanager.module3;
 
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.backend.Module3Backend;
+import com.snippetmanager.core.SnippetSnapshot;
+import com.snippetmanager.core.SnippetStore;
+
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
@@ -52,6 +57,12 @@ public class Module3MainWindow extends JFrame {
         // Modern Header
         add(createHeader(), BorderLayout.NORTH);
 
+        // Shared snippet model, kept current by the file watcher
+        SnippetStore.getInstance().snapshot();
+        SnippetStore.getInstance().startWatching();
+        SnippetStore.getInstance().addListener(
+                delta -> Module3Backend.reloadStore(delta.getSnapshot().getGeneration()));
+
         // Create panels
         recommendationPanel = new RecommendationPanelPro();
         analyticsDashboard = new AnalyticsDashboardPro();
@@ -307,21 +318,32 @@ public class Module3MainWindow extends JFrame {
 
         progressDialog.add(contentPanel);
 
-        // Simulate refresh in background
+        // Re-read the shared store (listeners get the delta) and the module3 engine
         new Thread(() -> {
+            SnippetStore store = SnippetStore.getInstance();
+            long before = store.snapshot().getGeneration();
+            SnippetSnapshot snapshot = store.reload();
+            String message;
+            int type = JOptionPane.INFORMATION_MESSAGE;
             try {
-                Thread.sleep(1500);
-                SwingUtilities.invokeLater(() -> {
-                    progressDialog.dispose();
-                    JOptionPane.showMessageDialog(this,
-                            "✓ Data refreshed successfully!",
-                            "Refresh Complete",
-                            JOptionPane.INFORMATION_MESSAGE);
-                });
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                BackendResponse backend = Module3Backend.query("reload");
+                message = (snapshot.getGeneration() == before
+                        ? "✓ Snippet store already up to date"
+                        : "✓ Snippet store reloaded")
+                        + " (" + snapshot.size() + " snippets)\n" + backend.getBody().trim();
+            } catch (IOException e) {
+                message = "Snippet store: " + snapshot.size() + " snippets\n✗ Recommendation engine: "
+                        + e.getMessage();
+                type = JOptionPane.WARNING_MESSAGE;
             }
-        }).start();
+
+            String text = message;
+            int messageType = type;
+            SwingUtilities.invokeLater(() -> {
+                progressDialog.dispose();
+                JOptionPane.showMessageDialog(this, text, "Refresh Complete", messageType);
+            });
+        }, "module3-refresh").start();
 
         progressDialog.setVisible(true);
     }
@@ -1,18 +1,31 @@
 package com.snippetmanager.module3;
 
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.backend.Module3Backend;
+import com.snippetmanager.core.FuzzyTagIndex;
+import com.snippetmanager.core.Language;
+import com.snippetmanager.core.Snippet;
+import com.snippetmanager.core.SnippetSnapshot;
+import com.snippetmanager.core.SnippetStore;
+
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
-import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class RecommendationPanelPro extends JPanel {
     private JTextField tagInputField;
     private JComboBox<String> languageFilterCombo;
     private JSpinner resultLimitSpinner;
+    private JSpinner minUsageSpinner;
     private JButton recommendBtn;
-    private JPanel resultsPanel;
+    private JScrollPane resultsScroll;
+    private JList<RecommendationItem> resultsList;
+    private RecommendationListModel resultsModel;
+    private JPanel noResultsPanel;
+    private JLabel noResultsLabel;
     private JLabel statusLabel;
 
     // Code view panel components
@@ -22,6 +35,10 @@ public class RecommendationPanelPro extends JPanel {
     private JButton copyBtn;
     private RecommendationItem currentSelectedItem;
 
+    // Whether the page on screen still owes the engine its feedback event: a
+    // copy from it counts as taken, replacing it without one as not taken
+    private boolean feedbackPending;
+
     // Modern Color Scheme
     private static final Color PRIMARY_BLUE = new Color(66, 133, 244);
     private static final Color CARD_BG = Color.WHITE;
@@ -33,42 +50,12 @@ public class RecommendationPanelPro extends JPanel {
     private static final Color CONSOLE_TEXT = new Color(171, 178, 191);
     private static final Color BUTTON_GREEN = new Color(40, 167, 69);
     private static final Color BUTTON_ORANGE = new Color(255, 152, 0);
+    // The result list is virtualized, so large pages cost no more to show than small ones
+    private static final int MAX_RESULTS = 5000;
     private static final Color ACCENT_BLUE = new Color(52, 152, 219);
     private static final Color BORDER_LIGHT = new Color(222, 226, 230);
     private static final Color HOVER_BG = new Color(232, 240, 254);
 
-    // Helper method to get the executable path
-    private String getExecutablePath() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-
-        File exe = new File(projectRoot, "cpp/module3/app.exe");
-        return exe.getAbsolutePath();
-    }
-
-    private File getDataDirectory() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-
-        return new File(projectRoot, "Data");
-    }
-
     public RecommendationPanelPro() {
         setLayout(new BorderLayout(0, 0));
         setBackground(CONTENT_BG);
@@ -105,17 +92,20 @@ public class RecommendationPanelPro extends JPanel {
     JPanel controlCard = createControlPanel();
     panel.add(controlCard, BorderLayout.NORTH);
 
-    // Results area
-    resultsPanel = new JPanel();
-    resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
-    resultsPanel.setBackground(CONTENT_BG);
+    // Results area: a virtualized list, so only visible rows are ever painted
+    // and one shared renderer stamps every card
+    resultsModel = new RecommendationListModel();
+    resultsList = createResultsList(resultsModel);
 
-    // Wrap resultsPanel in a container that forces it to start from the top
-    JPanel scrollContainer = new JPanel(new BorderLayout());
-    scrollContainer.setBackground(CONTENT_BG);
-    scrollContainer.add(resultsPanel, BorderLayout.NORTH);
+    noResultsLabel = new JLabel();
+    noResultsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+    noResultsLabel.setForeground(TEXT_MUTED);
+    noResultsPanel = new JPanel(new GridBagLayout());
+    noResultsPanel.setBackground(CONTENT_BG);
+    noResultsPanel.add(noResultsLabel);
 
-    JScrollPane scrollPane = new JScrollPane(scrollContainer);
+    JScrollPane scrollPane = new JScrollPane(resultsList);
+    resultsScroll = scrollPane;
     scrollPane.setBorder(BorderFactory.createCompoundBorder(
             BorderFactory.createTitledBorder(
                     BorderFactory.createLineBorder(BORDER_LIGHT, 1),
@@ -197,7 +187,10 @@ public class RecommendationPanelPro extends JPanel {
 
     gbc.gridx = 1;
     gbc.weightx = 1.0;
-    languageFilterCombo = new JComboBox<>(new String[]{"All", "C++", "Java", "Python", "JavaScript", "Go", "Rust"});
+    languageFilterCombo = new JComboBox<>();
+    languageFilterCombo.addItem("All");
+    for (Language l : Language.values())
+        languageFilterCombo.addItem(l.displayName());
     languageFilterCombo.setPreferredSize(new Dimension(0, 25)); // Reduced height
     languageFilterCombo.setFont(new Font("Segoe UI", Font.PLAIN, 10)); // Reduced font size
     languageFilterCombo.setBackground(CARD_BG);
@@ -213,7 +206,7 @@ public class RecommendationPanelPro extends JPanel {
 
     gbc.gridx = 1;
     gbc.weightx = 1.0;
-    SpinnerNumberModel spinnerModel = new SpinnerNumberModel(10, 1, 50, 1);
+    SpinnerNumberModel spinnerModel = new SpinnerNumberModel(10, 1, MAX_RESULTS, 1);
     resultLimitSpinner = new JSpinner(spinnerModel);
     resultLimitSpinner.setPreferredSize(new Dimension(0, 25)); // Reduced height
     resultLimitSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 10)); // Reduced font size
@@ -221,6 +214,22 @@ public class RecommendationPanelPro extends JPanel {
     resultLimitSpinner.setEditor(editor);
     formPanel.add(resultLimitSpinner, gbc);
 
+    // Minimum Usage
+    gbc.gridx = 0;
+    gbc.gridy = 3;
+    gbc.weightx = 0;
+    JLabel usageLabel = new JLabel("🔥 Min. Uses");
+    usageLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+    formPanel.add(usageLabel, gbc);
+
+    gbc.gridx = 1;
+    gbc.weightx = 1.0;
+    minUsageSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 10000, 1));
+    minUsageSpinner.setPreferredSize(new Dimension(0, 25));
+    minUsageSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+    minUsageSpinner.setEditor(new JSpinner.NumberEditor(minUsageSpinner, "#"));
+    formPanel.add(minUsageSpinner, gbc);
+
     // Button Panel
     JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 5)); // Reduced gap between buttons
     buttonPanel.setBackground(CARD_BG);
@@ -234,10 +243,10 @@ public class RecommendationPanelPro extends JPanel {
     clearBtn.setPreferredSize(new Dimension(90, 40)); // Reduced button size
     clearBtn.setFont(new Font("Segoe UI", Font.BOLD, 12)); // Reduced font size
     clearBtn.addActionListener(e -> {
+        settleFeedback();
         tagInputField.setText("");
-        resultsPanel.removeAll();
-        resultsPanel.revalidate();
-        resultsPanel.repaint();
+        resultsModel.setItems(Collections.emptyList());
+        resultsScroll.setViewportView(resultsList);
         codeArea.setText("// Select a recommendation to view code here");
         codeInfoLabel.setText("Select a recommendation to view code");
         copyBtn.setEnabled(false);
@@ -307,8 +316,14 @@ public class RecommendationPanelPro extends JPanel {
         copyBtn.addActionListener(e -> {
             if (currentSelectedItem != null) {
                 java.awt.datatransfer.StringSelection selection = new java.awt.datatransfer.StringSelection(
-                        currentSelectedItem.code);
+                        currentSelectedItem.code());
                 java.awt.Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, null);
+                // A copy is a use: it feeds the usage counts and trending scores
+                Module3Backend.queryAsync("use", currentSelectedItem.id);
+                if (feedbackPending) {
+                    feedbackPending = false;
+                    Module3Backend.queryAsync("feedback", "1");
+                }
                 JOptionPane.showMessageDialog(panel, "Code copied to clipboard!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
             }
@@ -336,12 +351,11 @@ public class RecommendationPanelPro extends JPanel {
 
         // Update info label
         codeInfoLabel.setText(String.format(
-                "<html><b>Algorithm:</b> %s | <b>Tags:</b> %s | <b>Language:</b> %s | <b>Score:</b> %.2f</html>",
-                item.title, item.tags.replace(";", ", "), item.language, item.score));
+                "<html><b>Algorithm:</b> %s | <b>Tags:</b> %s | <b>Language:</b> %s | <b>Score:</b> %s</html>",
+                item.title, item.tags.replace(";", ", "), item.language, item.scoreText()));
 
         // Update code area
-        String formattedCode = item.code.replace("\\n", "\n").replace("\\t", "\t");
-        codeArea.setText(formattedCode);
+        codeArea.setText(item.code());
         codeArea.setCaretPosition(0);
 
         // Enable copy button
@@ -370,6 +384,7 @@ public class RecommendationPanelPro extends JPanel {
         }
 
         int limit = (Integer) resultLimitSpinner.getValue();
+        int minUsage = (Integer) minUsageSpinner.getValue();
         String language = (String) languageFilterCombo.getSelectedItem();
 
         recommendBtn.setEnabled(false);
@@ -377,7 +392,7 @@ public class RecommendationPanelPro extends JPanel {
 
         new Thread(() -> {
             try {
-                List<RecommendationItem> recommendations = searchTag(tag, limit, language);
+                List<RecommendationItem> recommendations = searchTag(tag, limit, language, minUsage);
 
                 if (recommendations.isEmpty()) {
                     statusLabel.setText("🔍 No exact match found. Searching for related tags...");
@@ -396,224 +411,250 @@ public class RecommendationPanelPro extends JPanel {
         }).start();
     }
 
-    private List<RecommendationItem> searchTag(String tag, int limit, String language) throws Exception {
+    // Language and usage filters are applied by the engine while it ranks, so
+    // the reply is already the exact page
+    private List<RecommendationItem> searchTag(String tag, int limit, String language, int minUsage)
+            throws Exception {
         List<RecommendationItem> recommendations = new ArrayList<>();
-        ProcessBuilder pb = new ProcessBuilder(getExecutablePath(),
-                "rec_tag", tag, String.valueOf(limit));
-
-        pb.directory(getDataDirectory());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            boolean capturing = false;
-            while ((line = reader.readLine()) != null) {
-                if (line.equals("RECOMMENDATIONS_START")) {
-                    capturing = true;
-                } else if (line.equals("RECOMMENDATIONS_END")) {
-                    capturing = false;
-                } else if (capturing) {
-                    String[] parts = line.split("\\|", 6);
-                    if (parts.length >= 5) {
-                        RecommendationItem item = new RecommendationItem(
-                                parts[0], parts[1], Double.parseDouble(parts[2]),
-                                parts[3], parts[4], parts.length > 5 ? parts[5] : "");
-
-                        if ("All".equals(language) || language.equals(item.language)) {
-                            recommendations.add(item);
-                        }
-                    }
-                }
+        BackendResponse response = Module3Backend.query("rec_tag", tag, String.valueOf(limit), language,
+                String.valueOf(minUsage));
+
+        for (String line : response.section("RECOMMENDATIONS_START", "RECOMMENDATIONS_END")) {
+            String[] parts = line.split("\\|", 6);
+            if (parts.length >= 5) {
+                recommendations.add(new RecommendationItem(
+                        parts[0], parts[1], Double.parseDouble(parts[2]),
+                        parts[3], parts[4], lazyCode(parts[1], parts.length > 5 ? parts[5] : "")));
             }
         }
-        process.waitFor();
         return recommendations;
     }
 
-    private List<RecommendationItem> fuzzySearchTags(String searchTag, int limit, String language) throws Exception {
+    // Typo fallback, answered from the shared in-JVM model: the tags within
+    // two edits of the query, closest and most used first (the backend has
+    // already tried exact and substring matches). Like rec_tag, only the best
+    // limit*2 tags are expanded, so a short query cannot fan out over the
+    // whole vocabulary. Usage counts live in the engine, not in the model, so
+    // these rows are neither scored nor filtered by usage.
+    private List<RecommendationItem> fuzzySearchTags(String searchTag, int limit, String language) {
         List<RecommendationItem> recommendations = new ArrayList<>();
-
-        ProcessBuilder pb = new ProcessBuilder(getExecutablePath(),
-                "top_snippets", String.valueOf(limit * 3));
-        pb.directory(getDataDirectory());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            boolean capturing = false;
-            while ((line = reader.readLine()) != null) {
-                if (line.equals("TOP_SNIPPETS_START")) {
-                    capturing = true;
-                } else if (line.equals("TOP_SNIPPETS_END")) {
-                    capturing = false;
-                } else if (capturing) {
-                    String[] parts = line.split("\\|", 6);
-                    if (parts.length >= 4) {
-                        String tags = parts[3].toLowerCase();
-                        if (tags.contains(searchTag) ||
-                                searchTag.contains(tags.split(";")[0]) ||
-                                levenshteinDistance(searchTag, tags.split(";")[0]) <= 2) {
-                            RecommendationItem item = new RecommendationItem(
-                                    parts[0], parts[1], Double.parseDouble(parts[2]),
-                                    parts[3], parts.length > 4 ? parts[4] : "Unknown",
-                                    parts.length > 5 ? parts[5] : "");
-                            if ("All".equals(language) || language.equals(item.language)) {
-                                recommendations.add(item);
-                                if (recommendations.size() >= limit)
-                                    break;
-                            }
-                        }
-                    }
-                }
+        SnippetSnapshot snapshot = SnippetStore.getInstance().snapshot();
+        Set<Snippet> seen = new HashSet<>();
+
+        for (FuzzyTagIndex.Match match : snapshot.fuzzyTags().search(searchTag, 2, limit * 2)) {
+            for (Snippet snippet : snapshot.snippetsWithTag(match.getTag())) {
+                String lang = snippet.getLanguage().displayName();
+                if (!seen.add(snippet) || !("All".equals(language) || language.equals(lang)))
+                    continue;
+                recommendations.add(new RecommendationItem(snippet.getTitle(), snippet.getTitle(),
+                        RecommendationItem.UNSCORED, String.join(";", snippet.getTags()), lang, snippet::getCode));
+                if (recommendations.size() >= limit)
+                    return recommendations;
             }
         }
-        process.waitFor();
         return recommendations;
     }
 
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        for (int i = 0; i <= s1.length(); i++)
-            dp[i][0] = i;
-        for (int j = 0; j <= s2.length(); j++)
-            dp[0][j] = j;
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
-                }
-            }
-        }
-        return dp[s1.length()][s2.length()];
+    // Code is only decoded when a row is opened in the code view, so large
+    // result sets never pull every body off disk
+    private Supplier<String> lazyCode(String title, String escapedCode) {
+        return () -> codeFor(title, escapedCode);
+    }
+
+    // Backend rows carry JSON-escaped code; prefer the decoded copy from the shared model
+    private static String codeFor(String title, String escapedCode) {
+        SnippetSnapshot snapshot = SnippetStore.getInstance().snapshot();
+        Snippet snippet = snapshot.get(title);
+        if (snippet != null)
+            return snippet.getCode();
+        return escapedCode.replace("\\n", "\n").replace("\\t", "\t");
     }
 
     private void displayRecommendations(List<RecommendationItem> items, String tag, String language) {
-        resultsPanel.removeAll();
+        settleFeedback();
+        feedbackPending = !items.isEmpty();
+        resultsModel.setItems(items);
 
         if (items.isEmpty()) {
-            JPanel noResultPanel = new JPanel(new GridBagLayout());
-            noResultPanel.setBackground(CONTENT_BG);
-            JLabel noResults = new JLabel("<html><center>❌ No recommendations found for tag: <b>" + tag
+            noResultsLabel.setText("<html><center>❌ No recommendations found for tag: <b>" + tag
                     + "</b><br><br>Try different tags or check spelling</center></html>");
-            noResults.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-            noResults.setForeground(TEXT_MUTED);
-            noResultPanel.add(noResults);
-            resultsPanel.add(noResultPanel);
+            resultsScroll.setViewportView(noResultsPanel);
         } else {
-            int rank = 1;
-            for (RecommendationItem item : items) {
-                resultsPanel.add(createRecommendationCard(item, rank++));
-                resultsPanel.add(Box.createVerticalStrut(10));
-            }
-            if (!items.isEmpty()) {
-                displayCodeView(items.get(0));
-            }
+            resultsScroll.setViewportView(resultsList);
+            resultsList.setSelectedIndex(0);
+            resultsList.ensureIndexIsVisible(0);
         }
 
-        resultsPanel.revalidate();
-        resultsPanel.repaint();
-
         statusLabel.setText(String.format("✓ Found %d recommendation(s) for '%s'", items.size(), tag));
         recommendBtn.setEnabled(true);
     }
 
-    private JPanel createRecommendationCard(RecommendationItem item, int rank) {
-        JPanel card = new JPanel(new BorderLayout(10, 8));
-        card.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(BORDER_LIGHT, 1),
-                BorderFactory.createEmptyBorder(12, 15, 12, 15)));
-        card.setBackground(CARD_BG);
-
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 130));
-        card.setPreferredSize(new Dimension(680, 130));
-        card.setMinimumSize(new Dimension(500, 130));
+    // The page being replaced was not taken from
+    private void settleFeedback() {
+        if (feedbackPending) {
+            feedbackPending = false;
+            Module3Backend.queryAsync("feedback", "0");
+        }
+    }
 
-        card.setCursor(new Cursor(Cursor.HAND_CURSOR));
+    private JList<RecommendationItem> createResultsList(RecommendationListModel model) {
+        JList<RecommendationItem> list = new JList<>(model);
+        RecommendationCardRenderer renderer = new RecommendationCardRenderer();
+        list.setCellRenderer(renderer);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setBackground(CONTENT_BG);
+        list.setCursor(new Cursor(Cursor.HAND_CURSOR));
+
+        // Fixed cell metrics: the list never has to render every row to size itself
+        list.setFixedCellHeight(RecommendationCardRenderer.CARD_HEIGHT + RecommendationCardRenderer.CARD_GAP);
+        list.setFixedCellWidth(500);
+
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && list.getSelectedValue() != null)
+                displayCodeView(list.getSelectedValue());
+        });
 
-        card.addMouseListener(new java.awt.event.MouseAdapter() {
+        // Hover highlight: one listener for the whole list, repainting only the
+        // rows that change
+        java.awt.event.MouseAdapter hover = new java.awt.event.MouseAdapter() {
             @Override
-            public void mouseClicked(java.awt.event.MouseEvent e) {
-                displayCodeView(item);
+            public void mouseMoved(java.awt.event.MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                Rectangle bounds = index >= 0 ? list.getCellBounds(index, index) : null;
+                setHover(bounds != null && bounds.contains(e.getPoint()) ? index : -1);
             }
 
             @Override
-            public void mouseEntered(java.awt.event.MouseEvent e) {
-                card.setBackground(HOVER_BG);
-                card.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(PRIMARY_BLUE, 2),
-                        BorderFactory.createEmptyBorder(12, 15, 12, 15)));
+            public void mouseExited(java.awt.event.MouseEvent e) {
+                setHover(-1);
             }
 
-            @Override
-            public void mouseExited(java.awt.event.MouseEvent e) {
-                card.setBackground(CARD_BG);
-                card.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(BORDER_LIGHT, 1),
-                        BorderFactory.createEmptyBorder(12, 15, 12, 15)));
+            private void setHover(int index) {
+                int previous = renderer.hoverIndex;
+                if (previous == index)
+                    return;
+                renderer.hoverIndex = index;
+                repaintRow(list, previous);
+                repaintRow(list, index);
             }
-        });
+        };
+        list.addMouseListener(hover);
+        list.addMouseMotionListener(hover);
+        return list;
+    }
+
+    private static void repaintRow(JList<?> list, int index) {
+        Rectangle bounds = index >= 0 ? list.getCellBounds(index, index) : null;
+        if (bounds != null)
+            list.repaint(bounds);
+    }
+
+    // Shared card renderer: one set of components reused for every visible row
+    private static class RecommendationCardRenderer extends JPanel implements ListCellRenderer<RecommendationItem> {
+        static final int CARD_HEIGHT = 130;
+        static final int CARD_GAP = 10;
+
+        private static final Border NORMAL_BORDER = BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(BORDER_LIGHT, 1),
+                BorderFactory.createEmptyBorder(12, 15, 12, 15));
+        private static final Border HOVER_BORDER = BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(PRIMARY_BLUE, 2),
+                BorderFactory.createEmptyBorder(12, 15, 12, 15));
+
+        int hoverIndex = -1;
+
+        private final JPanel card = new JPanel(new BorderLayout(10, 8));
+        private final JLabel rankLabel = new JLabel();
+        private final JLabel titleLabel = new JLabel();
+        private final JLabel scoreLabel = new JLabel();
+        private final JLabel tagsLabel = new JLabel();
+        private final JLabel langLabel = new JLabel();
+
+        RecommendationCardRenderer() {
+            super(new BorderLayout());
+            setOpaque(true);
+            setBackground(CONTENT_BG);
+            setBorder(BorderFactory.createEmptyBorder(0, 0, CARD_GAP, 0));
+
+            rankLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+            rankLabel.setForeground(PRIMARY_BLUE);
+            rankLabel.setPreferredSize(new Dimension(35, 20));
+
+            titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+            titleLabel.setForeground(TEXT_DARK);
+
+            scoreLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+            scoreLabel.setForeground(BUTTON_GREEN);
+            scoreLabel.setBackground(new Color(220, 248, 228));
+            scoreLabel.setOpaque(true);
+            scoreLabel.setBorder(BorderFactory.createEmptyBorder(3, 10, 3, 10));
+
+            JPanel titlePanel = new JPanel(new BorderLayout(10, 0));
+            titlePanel.setOpaque(false);
+            titlePanel.add(rankLabel, BorderLayout.WEST);
+            titlePanel.add(titleLabel, BorderLayout.CENTER);
+            titlePanel.add(scoreLabel, BorderLayout.EAST);
+
+            tagsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+            tagsLabel.setForeground(TEXT_MUTED);
+            tagsLabel.setVerticalAlignment(SwingConstants.TOP);
+            tagsLabel.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
+
+            langLabel.setFont(new Font("Segoe UI", Font.BOLD, 11));
+            langLabel.setForeground(TEXT_LIGHT);
+            langLabel.setBackground(BUTTON_ORANGE);
+            langLabel.setOpaque(true);
+            langLabel.setBorder(BorderFactory.createEmptyBorder(3, 8, 3, 8));
+
+            JPanel detailsPanel = new JPanel(new BorderLayout(10, 0));
+            detailsPanel.setOpaque(false);
+            detailsPanel.add(tagsLabel, BorderLayout.CENTER);
+            detailsPanel.add(langLabel, BorderLayout.EAST);
+
+            card.add(titlePanel, BorderLayout.NORTH);
+            card.add(detailsPanel, BorderLayout.CENTER);
+            add(card, BorderLayout.CENTER);
+        }
 
-        // Title section
-        JPanel titlePanel = new JPanel(new BorderLayout(10, 0));
-        titlePanel.setOpaque(false);
-
-        JLabel rankLabel = new JLabel(String.format("#%d", rank));
-        rankLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        rankLabel.setForeground(PRIMARY_BLUE);
-        rankLabel.setPreferredSize(new Dimension(35, 20));
-
-        JLabel titleLabel = new JLabel(item.title);
-        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        titleLabel.setForeground(TEXT_DARK);
-
-        JLabel scoreLabel = new JLabel(String.format("%.2f", item.score));
-        scoreLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        scoreLabel.setForeground(BUTTON_GREEN);
-        scoreLabel.setBackground(new Color(220, 248, 228));
-        scoreLabel.setOpaque(true);
-        scoreLabel.setBorder(BorderFactory.createEmptyBorder(3, 10, 3, 10));
-
-        titlePanel.add(rankLabel, BorderLayout.WEST);
-        titlePanel.add(titleLabel, BorderLayout.CENTER);
-        titlePanel.add(scoreLabel, BorderLayout.EAST);
-
-        // Details section
-        JPanel detailsPanel = new JPanel(new BorderLayout(10, 0));
-        detailsPanel.setOpaque(false);
-
-        // Create scrollable tags area
-        JTextArea tagsArea = new JTextArea("🏷️ " + item.tags.replace(";", "\n🏷️ "));
-        tagsArea.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-        tagsArea.setForeground(TEXT_MUTED);
-        tagsArea.setBackground(CONTENT_BG);
-        tagsArea.setEditable(false);
-        tagsArea.setLineWrap(true);
-        tagsArea.setWrapStyleWord(true);
-        tagsArea.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
-
-        JScrollPane tagsScrollPane = new JScrollPane(tagsArea);
-        tagsScrollPane.setBorder(BorderFactory.createEmptyBorder());
-        tagsScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        tagsScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-
-        JLabel langLabel = new JLabel(item.language);
-        langLabel.setFont(new Font("Segoe UI", Font.BOLD, 11));
-        langLabel.setForeground(TEXT_LIGHT);
-        langLabel.setBackground(BUTTON_ORANGE);
-        langLabel.setOpaque(true);
-        langLabel.setBorder(BorderFactory.createEmptyBorder(3, 8, 3, 8));
-
-        detailsPanel.add(tagsScrollPane, BorderLayout.CENTER);
-        detailsPanel.add(langLabel, BorderLayout.EAST);
-
-        card.add(titlePanel, BorderLayout.NORTH);
-        card.add(detailsPanel, BorderLayout.CENTER);
-
-        return card;
+        @Override
+        public Component getListCellRendererComponent(JList<? extends RecommendationItem> list,
+                RecommendationItem item, int index, boolean selected, boolean focused) {
+            boolean highlighted = selected || index == hoverIndex;
+            card.setBackground(highlighted ? HOVER_BG : CARD_BG);
+            card.setBorder(highlighted ? HOVER_BORDER : NORMAL_BORDER);
+
+            rankLabel.setText("#" + (index + 1));
+            titleLabel.setText(item.title);
+            scoreLabel.setText(item.scoreText());
+            tagsLabel.setText("🏷️ " + item.tags.replace(";", "   🏷️ "));
+            langLabel.setText(item.language);
+            return this;
+        }
+    }
+
+    // Replaces the whole result set with one change event instead of one per row
+    private static class RecommendationListModel extends AbstractListModel<RecommendationItem> {
+        private List<RecommendationItem> items = Collections.emptyList();
+
+        void setItems(List<RecommendationItem> next) {
+            int oldSize = items.size();
+            items = Collections.emptyList();
+            if (oldSize > 0)
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            items = next;
+            if (!next.isEmpty())
+                fireIntervalAdded(this, 0, next.size() - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return items.size();
+        }
+
+        @Override
+        public RecommendationItem getElementAt(int index) {
+            return items.get(index);
+        }
     }
 
     // Custom rounded button
@@ -654,16 +695,35 @@ public class RecommendationPanelPro extends JPanel {
 
     // Helper class for recommendation items
     private static class RecommendationItem {
-        String id, title, tags, language, code;
+        // Score of rows the engine did not rank
+        static final double UNSCORED = Double.NaN;
+
+        String id, title, tags, language;
         double score;
+        private Supplier<String> codeSource;
+        private String code;
 
-        RecommendationItem(String id, String title, double score, String tags, String language, String code) {
+        RecommendationItem(String id, String title, double score, String tags, String language,
+                Supplier<String> codeSource) {
             this.id = id;
             this.title = title;
             this.score = score;
             this.tags = tags;
             this.language = language;
-            this.code = code;
+            this.codeSource = codeSource;
+        }
+
+        String scoreText() {
+            return Double.isNaN(score) ? "unscored" : String.format("%.2f", score);
+        }
+
+        // Loaded on first use (EDT only) and kept for the copy button
+        String code() {
+            if (code == null) {
+                code = codeSource.get();
+                codeSource = null;
+            }
+            return code;
         }
     }
 
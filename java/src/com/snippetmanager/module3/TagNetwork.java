@@ -0,0 +1,257 @@
+package com.snippetmanager.module3;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable tag graph drawn by {@link VisualizationCanvas}: node 0 is the
+ * center tag, the others are its most associated tags, strongest first.
+ *
+ * Besides the center's own edges, two neighbours are linked when they appear
+ * together on a snippet that also carries the center tag, which is what gives
+ * the force layout real structure to work with. Edges are stored as parallel
+ * int arrays so the layout can walk them without boxing.
+ *
+ * Deeper hops are added with {@link #extend}, which appends nodes and edges
+ * and never reorders existing ones, so a layout of this network can seed the
+ * layout of the extended one.
+ */
+final class TagNetwork {
+    /** Neighbours kept around one center; the least frequent ones are dropped. */
+    static final int MAX_NODES = 2500;
+
+    /** Upper bound once deeper hops and expanded nodes have been merged in. */
+    static final int MAX_EXPANDED_NODES = 4000;
+
+    private final String[] tags;
+    private final int[] frequency;
+    private final int[] hop;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeWeight;
+    private final Map<String, Integer> index;
+
+    private TagNetwork(String[] tags, int[] frequency, int[] hop, int[] edgeFrom, int[] edgeTo, int[] edgeWeight) {
+        this.tags = tags;
+        this.frequency = frequency;
+        this.hop = hop;
+        this.index = new HashMap<>(tags.length * 2);
+        for (int i = 0; i < tags.length; i++)
+            index.put(tags[i], i);
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeight = edgeWeight;
+    }
+
+    /**
+     * Builds the network around {@code center} from {@code tag_cooccur} rows
+     * ({@code tag|frequency|co-occurrences|pmi}) and the tag lists of the
+     * snippets carrying the center tag. {@code frequencies} sizes nodes the
+     * reply does not cover; a spoke is as heavy as its co-occurrence count.
+     */
+    static TagNetwork build(String center, List<String[]> cooccurrence, Map<String, Integer> frequencies,
+            Iterable<? extends Collection<String>> centerTagSets) {
+        int n = Math.min(cooccurrence.size(), MAX_NODES) + 1;
+        String[] tags = new String[n];
+        int[] frequency = new int[n];
+        Map<String, Integer> index = new HashMap<>(n * 2);
+
+        tags[0] = center;
+        frequency[0] = frequencies.getOrDefault(center, 1);
+        index.put(center, 0);
+        int[] spoke = new int[n];
+        int count = 1;
+        for (String[] row : cooccurrence) {
+            if (count == n)
+                break;
+            if (index.containsKey(row[0]))
+                continue;
+            tags[count] = row[0];
+            frequency[count] = parseFrequency(row, frequencies);
+            spoke[count] = parseInt(row, 2, frequency[count]);
+            index.put(row[0], count++);
+        }
+        if (count < n) {
+            tags = Arrays.copyOf(tags, count);
+            frequency = Arrays.copyOf(frequency, count);
+        }
+
+        // Spokes first, then neighbour pairs counted over the center's snippets
+        Map<Long, int[]> pairs = new HashMap<>();
+        for (int i = 1; i < count; i++)
+            pairs.put(pairKey(0, i), new int[] { spoke[i] });
+
+        int[] members = new int[16];
+        for (Collection<String> tagSet : centerTagSets) {
+            int m = 0;
+            for (String tag : tagSet) {
+                Integer id = index.get(tag);
+                if (id == null || id == 0)
+                    continue;
+                if (m == members.length)
+                    members = Arrays.copyOf(members, m * 2);
+                members[m++] = id;
+            }
+            for (int a = 0; a < m; a++)
+                for (int b = a + 1; b < m; b++)
+                    if (members[a] != members[b])
+                        pairs.computeIfAbsent(pairKey(members[a], members[b]), k -> new int[1])[0]++;
+        }
+
+        int[] from = new int[pairs.size()];
+        int[] to = new int[pairs.size()];
+        int[] weight = new int[pairs.size()];
+        int e = 0;
+        for (Map.Entry<Long, int[]> pair : pairs.entrySet()) {
+            long key = pair.getKey();
+            from[e] = (int) (key >>> 32);
+            to[e] = (int) key;
+            weight[e++] = pair.getValue()[0];
+        }
+        int[] hop = new int[count];
+        Arrays.fill(hop, 1, count, 1);
+        return new TagNetwork(tags, frequency, hop, from, to, weight);
+    }
+
+    /**
+     * Merges a {@code tag_neighborhood} reply walked from {@code anchor} into
+     * this network. {@code nodes} rows are {@code tag|depth|frequency} and
+     * {@code edges} rows are {@code from, to, co-occurrences} indexing into
+     * them; new tags are appended at the anchor's hop plus their depth, links
+     * already present are kept once. Returns this network when the reply adds
+     * nothing.
+     */
+    TagNetwork extend(String anchor, List<String[]> nodes, List<int[]> edges) {
+        Integer anchorIndex = index.get(anchor);
+        int anchorHop = anchorIndex != null ? hop[anchorIndex] : 0;
+
+        int n = tags.length;
+        String[] newTags = Arrays.copyOf(tags, Math.min(n + nodes.size(), MAX_EXPANDED_NODES));
+        int[] newFrequency = Arrays.copyOf(frequency, newTags.length);
+        int[] newHop = Arrays.copyOf(hop, newTags.length);
+        Map<String, Integer> merged = new HashMap<>(index);
+
+        // Reply position -> node id here, -1 for tags dropped by the cap
+        int[] mapped = new int[nodes.size()];
+        int count = n;
+        for (int r = 0; r < nodes.size(); r++) {
+            String[] row = nodes.get(r);
+            int depth = parseInt(row, 1, 1);
+            Integer existing = merged.get(row[0]);
+            if (existing != null) {
+                mapped[r] = existing;
+            } else if (count < newTags.length) {
+                newTags[count] = row[0];
+                newHop[count] = anchorHop + depth;
+                newFrequency[count] = parseInt(row, 2, 1);
+                merged.put(row[0], count);
+                mapped[r] = count++;
+            } else {
+                mapped[r] = -1;
+            }
+        }
+
+        Map<Long, Boolean> present = new HashMap<>(edgeFrom.length * 2);
+        for (int e = 0; e < edgeFrom.length; e++)
+            present.put(pairKey(edgeFrom[e], edgeTo[e]), Boolean.TRUE);
+        int[] from = Arrays.copyOf(edgeFrom, edgeFrom.length + edges.size());
+        int[] to = Arrays.copyOf(edgeTo, from.length);
+        int[] weight = Arrays.copyOf(edgeWeight, from.length);
+        int e = edgeFrom.length;
+        for (int[] edge : edges) {
+            if (edge[0] >= mapped.length || edge[1] >= mapped.length)
+                continue;
+            int a = mapped[edge[0]], b = mapped[edge[1]];
+            if (a < 0 || b < 0 || a == b || present.put(pairKey(a, b), Boolean.TRUE) != null)
+                continue;
+            from[e] = Math.min(a, b);
+            to[e] = Math.max(a, b);
+            weight[e++] = edge.length > 2 ? Math.max(1, edge[2]) : 1;
+        }
+
+        if (count == n && e == edgeFrom.length)
+            return this;
+        return new TagNetwork(Arrays.copyOf(newTags, count), Arrays.copyOf(newFrequency, count),
+                Arrays.copyOf(newHop, count), Arrays.copyOf(from, e), Arrays.copyOf(to, e), Arrays.copyOf(weight, e));
+    }
+
+    private static int parseInt(String[] row, int column, int fallback) {
+        try {
+            return row.length > column ? Integer.parseInt(row[column].trim()) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static int parseFrequency(String[] row, Map<String, Integer> frequencies) {
+        if (row.length > 1) {
+            try {
+                return Integer.parseInt(row[1].trim());
+            } catch (NumberFormatException ignored) {
+                // fall back to the shared model's count
+            }
+        }
+        return frequencies.getOrDefault(row[0], 1);
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    String center() {
+        return tags[0];
+    }
+
+    int nodeCount() {
+        return tags.length;
+    }
+
+    String tag(int node) {
+        return tags[node];
+    }
+
+    /** Hops from the center: 0 for the center, 1 for its co-occurring tags. */
+    int hop(int node) {
+        return hop[node];
+    }
+
+    /** Node id of {@code tag}, or -1 when it is not in the network. */
+    int indexOf(String tag) {
+        Integer i = index.get(tag);
+        return i != null ? i : -1;
+    }
+
+    int frequency(int node) {
+        return frequency[node];
+    }
+
+    int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    int edgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    int edgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    int edgeWeight(int edge) {
+        return edgeWeight[edge];
+    }
+
+    /** True when both networks have the same nodes in the same order. */
+    boolean sameNodes(TagNetwork other) {
+        return Arrays.equals(tags, other.tags);
+    }
+
+    /** True when this network starts with exactly {@code other}'s nodes. */
+    boolean extendsNodes(TagNetwork other) {
+        return other.tags.length <= tags.length
+                && Arrays.equals(tags, 0, other.tags.length, other.tags, 0, other.tags.length);
+    }
+}
@@ -1,12 +1,24 @@
 package com.snippetmanager.module3;
 
+import com.snippetmanager.backend.BackendResponse;
+import com.snippetmanager.backend.Module3Backend;
+import com.snippetmanager.backend.QueryExecutors;
+import com.snippetmanager.core.Snippet;
+import com.snippetmanager.core.SnippetSnapshot;
+import com.snippetmanager.core.SnippetStore;
+
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class TagVisualization extends JPanel {
     private JTextField tagInputField;
@@ -18,6 +30,17 @@ public class TagVisualization extends JPanel {
     private JCheckBox showLabelsCheck;
     private JCheckBox animateCheck;
 
+    // Deeper hops stream in after the first one is drawn. Every request is
+    // bounded by depth, fan-out and node count so a hub cannot start an
+    // unbounded traversal
+    private static final int EXPLORE_DEPTH = 3;
+    private static final int FANOUT = 12;
+    private static final int MAX_HOP_NODES = 300;
+
+    // EDT-confined; replies for an earlier center are dropped
+    private long exploreGeneration;
+    private final Set<String> expanded = new HashSet<>();
+
     // Modern Color Scheme
     private static final Color PRIMARY_BLUE = new Color(66, 133, 244);
     private static final Color CARD_BG = Color.WHITE;
@@ -31,37 +54,6 @@ public class TagVisualization extends JPanel {
     private static final Color BORDER_LIGHT = new Color(222, 226, 230);
     private static final Color CANVAS_BG = new Color(250, 251, 252);
 
-    private String getExecutablePath() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-
-        File exe = new File(projectRoot, "cpp/module3/app.exe");
-        return exe.getAbsolutePath();
-    }
-
-    private File getDataDirectory() {
-        File currentDir = new File(System.getProperty("user.dir"));
-        File projectRoot = currentDir;
-
-        while (projectRoot != null && !projectRoot.getName().equals("smart-code-snippet-manager")) {
-            projectRoot = projectRoot.getParentFile();
-        }
-
-        if (projectRoot == null || !projectRoot.exists()) {
-            projectRoot = new File("e:\\DSA\\smart-code-snippet-manager");
-        }
-
-        return new File(projectRoot, "Data");
-    }
-
     public TagVisualization() {
         setLayout(new BorderLayout(0, 0));
         setBackground(CONTENT_BG);
@@ -81,6 +73,7 @@ public class TagVisualization extends JPanel {
 
         // Visualization canvas (center)
         canvas = new VisualizationCanvas();
+        canvas.setExpandListener(this::expandNode);
         mainPanel.add(canvas, BorderLayout.CENTER);
 
         // Info panel (right)
@@ -131,6 +124,7 @@ public class TagVisualization extends JPanel {
 
         panel.add(createLegendItem("●", PRIMARY_BLUE, "Center Tag"));
         panel.add(createLegendItem("●", BUTTON_GREEN, "Connected Tags"));
+        panel.add(createLegendItem("●", BUTTON_ORANGE, "Deeper Hops"));
 
         return panel;
     }
@@ -217,6 +211,7 @@ public class TagVisualization extends JPanel {
         clearBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
         clearBtn.setAlignmentX(Component.LEFT_ALIGNMENT);
         clearBtn.addActionListener(e -> {
+            exploreGeneration++;
             canvas.clear();
             tagInputField.setText("");
             infoArea.setText("Canvas cleared. Enter a tag to visualize its network.");
@@ -318,7 +313,8 @@ public class TagVisualization extends JPanel {
     }
 
     private void visualizeTagNetwork() {
-        String tag = tagInputField.getText().trim();
+        // Tags are stored lower-cased, by the engine and the shared model alike
+        String tag = tagInputField.getText().trim().toLowerCase(Locale.ROOT);
 
         if (tag.isEmpty()) {
             showError("Please enter a tag to visualize");
@@ -331,13 +327,18 @@ public class TagVisualization extends JPanel {
         new Thread(() -> {
             try {
                 List<String[]> cooccurrence = getTagCooccurrence(tag);
-                Map<String, Integer> tagInfo = getTrendingTags(20);
+                TagNetwork network = buildNetwork(tag, cooccurrence);
 
                 SwingUtilities.invokeLater(() -> {
-                    canvas.visualizeNetwork(tag, cooccurrence, tagInfo);
+                    canvas.visualizeNetwork(network);
                     displayTagInfo(tag, cooccurrence);
-                    setStatus("✓ Successfully visualized network for: " + tag);
+                    setStatus("✓ Successfully visualized network for: " + tag + " — loading deeper hops...");
                     visualizeBtn.setEnabled(true);
+
+                    long ticket = ++exploreGeneration;
+                    expanded.clear();
+                    expanded.add(tag);
+                    exploreDeeper(tag, ticket, 2);
                 });
 
             } catch (Exception e) {
@@ -349,70 +350,92 @@ public class TagVisualization extends JPanel {
         }).start();
     }
 
-    private List<String[]> getTagCooccurrence(String tag) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "tag_cooccur", tag);
-        pb.directory(getDataDirectory());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        List<String[]> results = new ArrayList<>();
-        boolean capturing = false;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.equals("TAG_COOCCUR_START")) {
-                    capturing = true;
-                } else if (line.equals("TAG_COOCCUR_END")) {
-                    capturing = false;
-                } else if (capturing) {
-                    String[] parts = line.split("\\|");
-                    if (parts.length == 2) {
-                        results.add(parts);
-                    }
-                }
-            }
+    // One request per depth, each a superset of the last, so the network
+    // grows a ring at a time while the layout keeps settling
+    private void exploreDeeper(String tag, long ticket, int depth) {
+        if (depth > EXPLORE_DEPTH) {
+            setStatus("✓ Network for " + tag + ": " + canvas.network().nodeCount()
+                    + " tags within " + EXPLORE_DEPTH + " hops — click a tag to expand it");
+            return;
         }
+        requestNeighborhood(tag, depth, ticket, () -> exploreDeeper(tag, ticket, depth + 1));
+    }
 
-        process.waitFor();
-        return results;
+    private void expandNode(String tag) {
+        if (!expanded.add(tag))
+            return;
+        setStatus("🔄 Expanding " + tag + "...");
+        requestNeighborhood(tag, 1, exploreGeneration,
+                () -> setStatus("✓ Expanded " + tag + ": " + canvas.network().nodeCount() + " tags"));
     }
 
-    private Map<String, Integer> getTrendingTags(int n) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder(getExecutablePath(), "trending_tags", String.valueOf(n));
-        pb.directory(getDataDirectory());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        Map<String, Integer> results = new HashMap<>();
-        boolean capturing = false;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.equals("TRENDING_TAGS_START")) {
-                    capturing = true;
-                } else if (line.equals("TRENDING_TAGS_END")) {
-                    capturing = false;
-                } else if (capturing) {
-                    String[] parts = line.split("\\|");
-                    if (parts.length == 2) {
-                        results.put(parts[0], Integer.parseInt(parts[1]));
+    // Merges a bounded neighbourhood walked from anchor into the canvas, then
+    // runs next on the EDT unless the user has moved on to another center
+    private void requestNeighborhood(String anchor, int depth, long ticket, Runnable next) {
+        Module3Backend.queryAsync("tag_neighborhood", anchor, String.valueOf(depth), String.valueOf(FANOUT),
+                String.valueOf(MAX_HOP_NODES)).whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                    if (ticket != exploreGeneration || canvas.network() == null)
+                        return;
+                    if (error != null || !response.isSuccess()) {
+                        setStatus("⚠ Could not load neighbours of " + anchor);
+                        return;
                     }
-                }
+                    List<String[]> nodes = new ArrayList<>();
+                    List<int[]> edges = new ArrayList<>();
+                    parseNeighborhood(response, nodes, edges);
+                    TagNetwork current = canvas.network();
+                    TagNetwork merged = current.extend(anchor, nodes, edges);
+                    if (merged != current)
+                        canvas.visualizeNetwork(merged);
+                    next.run();
+                }));
+    }
+
+    private static void parseNeighborhood(BackendResponse response, List<String[]> nodes, List<int[]> edges) {
+        for (String line : response.section("NEIGHBORHOOD_START", "NEIGHBORHOOD_END")) {
+            String[] parts = line.split("\\|");
+            try {
+                if (parts.length == 4 && parts[0].equals("NODE"))
+                    nodes.add(new String[] { parts[1], parts[2], parts[3] });
+                else if (parts.length == 4 && parts[0].equals("EDGE"))
+                    edges.add(new int[] { Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                            Integer.parseInt(parts[3]) });
+            } catch (NumberFormatException ignored) {
+                // skip malformed edge lines
             }
         }
+    }
 
-        process.waitFor();
+    private List<String[]> getTagCooccurrence(String tag) throws Exception {
+        BackendResponse response = Module3Backend.query("tag_cooccur", tag);
+
+        List<String[]> results = new ArrayList<>();
+        for (String line : response.section("TAG_COOCCUR_START", "TAG_COOCCUR_END")) {
+            String[] parts = line.split("\\|");
+            if (parts.length == 4) {
+                results.add(parts);
+            }
+        }
         return results;
     }
 
+    // Links between neighbours come from the shared in-JVM model: the tag sets
+    // of every snippet that carries the center tag
+    private TagNetwork buildNetwork(String tag, List<String[]> cooccurrence) {
+        SnippetSnapshot snapshot = SnippetStore.getInstance().snapshot();
+        List<List<String>> tagSets = new ArrayList<>();
+        for (Snippet snippet : snapshot.snippetsWithTag(tag))
+            tagSets.add(snippet.getTags());
+        return TagNetwork.build(tag, cooccurrence, Collections.singletonMap(tag, Math.max(1, tagSets.size())),
+                tagSets);
+    }
+
     private void displayTagInfo(String tag, List<String[]> cooccurrence) {
         StringBuilder sb = new StringBuilder();
         sb.append("═══════════════════════════════\n");
         sb.append("  TAG: ").append(tag.toUpperCase()).append("\n");
         sb.append("═══════════════════════════════\n\n");
-        sb.append("Connected Tags:\n");
+        sb.append("Most Associated Tags:\n");
         sb.append("───────────────────────────────\n\n");
 
         if (cooccurrence.isEmpty()) {
@@ -426,13 +449,13 @@ public class TagVisualization extends JPanel {
             for (int i = 0; i < displayCount; i++) {
                 String[] data = cooccurrence.get(i);
                 String emoji = i < 3 ? "🔥" : "●";
-                sb.append(String.format("%s %2d. %-20s (%3s)\n",
-                        emoji, i + 1, data[0], data[1]));
+                sb.append(String.format("%s %2d. %-20s (%3s× PMI %s)\n",
+                        emoji, i + 1, data[0], data[2], data[3]));
             }
 
             sb.append("\n");
             sb.append("───────────────────────────────\n");
-            sb.append(String.format("Total Connections: %d\n", cooccurrence.size()));
+            sb.append(String.format("Strongest Connections: %d\n", cooccurrence.size()));
             sb.append(String.format("Displayed: %d\n", displayCount));
         }
 
@@ -536,12 +559,43 @@ public class TagVisualization extends JPanel {
 }
 
 class VisualizationCanvas extends JPanel {
-    private String centerTag;
-    private List<String[]> connections;
-    private Map<String, Integer> tagFrequencies;
+    // Layouts run one at a time; a new request cancels the one in progress
+    private static final ExecutorService LAYOUT_POOL = QueryExecutors.newBoundedPool("tag-layout", 1);
+    private static final long FRAME_NANOS = 33_000_000; // stream ~30 intermediate frames/s
+    private static final int LAYOUT_CACHE_SIZE = 32;
+    private static final int LABEL_LIMIT = 15;
+
+    // Converged layouts per center tag and size; reused while the node set is unchanged
+    private static final Map<String, Layout> LAYOUT_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, Layout>(LAYOUT_CACHE_SIZE * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+                    return size() > LAYOUT_CACHE_SIZE;
+                }
+            });
+
+    private TagNetwork network;
+    private float[] positions;
+    private Consumer<String> expandListener;
+    private boolean converged;
+    private int iterations;
     private boolean showLabels = true;
     private boolean animate = false;
-    private Map<String, Point> nodePositions = new HashMap<>();
+
+    // View: wheel zoom around the cursor, drag to pan, double-click to reset
+    private static final double MIN_ZOOM = 0.5, MAX_ZOOM = 12;
+    private double zoom = 1, panX, panY;
+    private Point dragStart;
+    private int dragX, dragY;
+
+    // Static layers, rebuilt only when the graph, the view or the size changes
+    private Layers layers;
+    private int hover = -1;
+
+    // EDT-confined; frames from an older layout are dropped
+    private long layoutGeneration;
+    private Future<?> layoutTask;
+    private final AtomicReference<Frame> pendingFrame = new AtomicReference<>();
 
     // Modern Colors
     private static final Color PRIMARY_BLUE = new Color(66, 133, 244);
@@ -550,49 +604,220 @@ class VisualizationCanvas extends JPanel {
     private static final Color TEXT_MUTED = new Color(108, 117, 125);
     private static final Color CANVAS_BG = new Color(250, 251, 252);
     private static final Color EDGE_COLOR = new Color(200, 210, 220);
+    private static final Color DEEP_HOP = new Color(255, 152, 0);
 
     public VisualizationCanvas() {
         setBackground(CANVAS_BG);
         setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createLineBorder(new Color(222, 226, 230), 1),
                 BorderFactory.createEmptyBorder(20, 20, 20, 20)));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHover(layers != null ? layers.nodeAt(e.getX(), e.getY()) : -1);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHover(-1);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart == null || layers == null)
+                    return;
+                // Slide the cached layers; they are re-rendered once the drag ends
+                setHover(-1);
+                dragX = e.getX() - dragStart.x;
+                dragY = e.getY() - dragStart.y;
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (dragStart != null && (dragX != 0 || dragY != 0)) {
+                    panX += dragX;
+                    panY += dragY;
+                    invalidateLayers();
+                }
+                dragStart = null;
+                dragX = dragY = 0;
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    zoom = 1;
+                    panX = panY = 0;
+                    invalidateLayers();
+                } else if (e.getClickCount() == 1 && expandListener != null && layers != null) {
+                    int node = layers.nodeAt(e.getX(), e.getY());
+                    if (node >= 0)
+                        expandListener.accept(network.tag(node));
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double next = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * Math.pow(1.15, -e.getPreciseWheelRotation())));
+                if (next == zoom || network == null)
+                    return;
+                // Keep the point under the cursor where it is
+                double cx = getWidth() / 2.0, cy = getHeight() / 2.0;
+                panX = e.getX() - cx - (e.getX() - cx - panX) * next / zoom;
+                panY = e.getY() - cy - (e.getY() - cy - panY) * next / zoom;
+                zoom = next;
+                invalidateLayers();
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
     }
 
     public void visualizeNetwork(String tag, List<String[]> cooccurrence, Map<String, Integer> frequencies) {
-        this.centerTag = tag;
-        this.connections = cooccurrence;
-        this.tagFrequencies = frequencies;
-        calculateNodePositions();
-        repaint();
+        visualizeNetwork(TagNetwork.build(tag, cooccurrence, frequencies, Collections.emptyList()));
     }
 
-    private void calculateNodePositions() {
-        nodePositions.clear();
-
-        if (centerTag == null || connections == null)
+    /**
+     * Shows {@code next}, laying it out on a background thread. Intermediate
+     * positions are streamed to the canvas as the layout settles; a converged
+     * layout of the same nodes is reused straight from the cache. When
+     * {@code next} only adds nodes to the network on screen, the layout starts
+     * from the current picture and the view is kept.
+     */
+    public void visualizeNetwork(TagNetwork next) {
+        cancelLayout();
+        long ticket = ++layoutGeneration;
+        boolean extending = network != null && positions != null && next.extendsNodes(network);
+
+        Layout cached = LAYOUT_CACHE.get(cacheKey(next));
+        if (cached != null && cached.network.sameNodes(next)) {
+            if (extending) {
+                network = next;
+                positions = cached.positions;
+                converged = true;
+                invalidateLayers();
+            } else {
+                showLayout(next, cached.positions);
+            }
             return;
+        }
 
-        int width = getWidth() - 40;
-        int height = getHeight() - 40;
-        int centerX = width / 2 + 20;
-        int centerY = height / 2 + 20;
+        ForceLayout layout;
+        if (extending) {
+            // Seeded on the EDT so the new nodes appear next to their neighbours at once
+            layout = new ForceLayout(next, positions);
+            positions = layout.positions();
+            invalidateLayers();
+        } else {
+            layout = new ForceLayout(next);
+            positions = null;
+            resetView();
+        }
+        network = next;
+        converged = false;
+        iterations = 0;
+        layoutTask = LAYOUT_POOL.submit(() -> runLayout(layout, ticket));
+    }
 
-        // Center node
-        nodePositions.put(centerTag, new Point(centerX, centerY));
+    /** The network on screen, or null. */
+    TagNetwork network() {
+        return network;
+    }
 
-        // Arrange connected nodes in a circle
-        int radius = Math.min(width, height) / 3;
-        int numNodes = Math.min(connections.size(), 15);
+    /** Called with the tag of a node the user clicks on. */
+    void setExpandListener(Consumer<String> listener) {
+        this.expandListener = listener;
+    }
+
+    private static String cacheKey(TagNetwork network) {
+        return network.center() + "\n" + network.nodeCount();
+    }
+
+    /** Shows an already computed layout as-is. */
+    void showLayout(TagNetwork next, float[] xy) {
+        network = next;
+        positions = xy;
+        converged = true;
+        iterations = 0;
+        resetView();
+    }
 
-        for (int i = 0; i < numNodes; i++) {
-            String tag = connections.get(i)[0];
-            double angle = 2 * Math.PI * i / numNodes - Math.PI / 2; // Start from top
-            int x = centerX + (int) (radius * Math.cos(angle));
-            int y = centerY + (int) (radius * Math.sin(angle));
-            nodePositions.put(tag, new Point(x, y));
+    private void runLayout(ForceLayout layout, long ticket) {
+        TagNetwork target = layout.network();
+        long lastFrame = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean done = layout.step();
+            long now = System.nanoTime();
+            if (done || now - lastFrame >= FRAME_NANOS) {
+                float[] xy = layout.positions();
+                if (done)
+                    LAYOUT_CACHE.put(cacheKey(target), new Layout(target, xy));
+                publish(new Frame(ticket, xy, done, layout.iterations()));
+                lastFrame = now;
+            }
+            if (done)
+                return;
+        }
+    }
+
+    // Coalesces frames: at most one hand-off to the EDT is queued at a time
+    private void publish(Frame frame) {
+        if (pendingFrame.getAndSet(frame) != null)
+            return;
+        SwingUtilities.invokeLater(() -> {
+            Frame latest = pendingFrame.getAndSet(null);
+            if (latest == null || latest.ticket != layoutGeneration)
+                return;
+            positions = latest.positions;
+            converged = latest.done;
+            iterations = latest.iterations;
+            invalidateLayers();
+        });
+    }
+
+    private void cancelLayout() {
+        if (layoutTask != null) {
+            layoutTask.cancel(true);
+            layoutTask = null;
         }
     }
 
+    private void resetView() {
+        zoom = 1;
+        panX = panY = 0;
+        invalidateLayers();
+    }
+
+    /** Drops the cached layers; the next paint renders them again. */
+    void invalidateLayers() {
+        layers = null;
+        hover = -1;
+        repaint();
+    }
+
+    private void setHover(int node) {
+        if (node == hover)
+            return;
+        // Only the old and new highlight regions are repainted
+        Rectangle dirty = layers != null ? layers.hoverBounds(hover) : null;
+        hover = node;
+        Rectangle next = layers != null ? layers.hoverBounds(node) : null;
+        if (dirty == null)
+            dirty = next;
+        else if (next != null)
+            dirty = dirty.union(next);
+        if (dirty != null)
+            repaint(dirty);
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -600,85 +825,47 @@ class VisualizationCanvas extends JPanel {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-        if (centerTag == null || connections == null) {
+        if (network == null) {
             drawEmptyState(g2d);
             g2d.dispose();
             return;
         }
-
-        // Draw edges with gradient
-        Point center = nodePositions.get(centerTag);
-        if (center != null) {
-            g2d.setStroke(new BasicStroke(2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            for (int i = 0; i < Math.min(connections.size(), 15); i++) {
-                String tag = connections.get(i)[0];
-                Point p = nodePositions.get(tag);
-                if (p != null) {
-                    // Gradient color based on connection strength
-                    int freq = Integer.parseInt(connections.get(i)[1]);
-                    int alpha = Math.min(100 + freq * 10, 200);
-                    g2d.setColor(new Color(EDGE_COLOR.getRed(), EDGE_COLOR.getGreen(),
-                            EDGE_COLOR.getBlue(), alpha));
-                    g2d.drawLine(center.x, center.y, p.x, p.y);
-                }
-            }
+        if (positions == null) {
+            drawLayoutProgress(g2d);
+            g2d.dispose();
+            return;
         }
 
-        // Draw nodes
-        for (Map.Entry<String, Point> entry : nodePositions.entrySet()) {
-            String tag = entry.getKey();
-            Point p = entry.getValue();
-
-            // Node size based on frequency
-            int freq = tagFrequencies.getOrDefault(tag, 1);
-            int nodeSize = Math.min(35 + freq * 2, 65);
-
-            // Shadow
-            g2d.setColor(new Color(0, 0, 0, 30));
-            g2d.fillOval(p.x - nodeSize / 2 + 2, p.y - nodeSize / 2 + 2, nodeSize, nodeSize);
-
-            // Color based on whether it's center or connected
-            if (tag.equals(centerTag)) {
-                g2d.setColor(PRIMARY_BLUE);
-            } else {
-                g2d.setColor(BUTTON_GREEN);
-            }
-
-            g2d.fillOval(p.x - nodeSize / 2, p.y - nodeSize / 2, nodeSize, nodeSize);
-
-            // Border
-            g2d.setColor(Color.WHITE);
-            g2d.setStroke(new BasicStroke(3));
-            g2d.drawOval(p.x - nodeSize / 2, p.y - nodeSize / 2, nodeSize, nodeSize);
+        if (layers == null || layers.width != getWidth() || layers.height != getHeight())
+            layers = new Layers(network, positions, getWidth(), getHeight(), getInsets(), zoom, panX, panY);
 
-            // Label
-            if (showLabels) {
-                g2d.setColor(TEXT_DARK);
-                g2d.setFont(new Font("Segoe UI", Font.BOLD, 11));
-                FontMetrics fm = g2d.getFontMetrics();
-                int labelWidth = fm.stringWidth(tag);
+        // Composite the cached layers, then the hover overlay on top
+        g2d.drawImage(layers.edges, dragX, dragY, null);
+        g2d.drawImage(layers.nodes, dragX, dragY, null);
+        if (showLabels)
+            g2d.drawImage(layers.labels(), dragX, dragY, null);
+        if (hover >= 0)
+            layers.drawHover(g2d, hover);
 
-                // Label background
-                g2d.setColor(new Color(255, 255, 255, 220));
-                g2d.fillRoundRect(p.x - labelWidth / 2 - 6, p.y + nodeSize / 2 + 8,
-                        labelWidth + 12, fm.getHeight() + 4, 8, 8);
-
-                // Label text
-                g2d.setColor(TEXT_DARK);
-                g2d.drawString(tag, p.x - labelWidth / 2, p.y + nodeSize / 2 + 22);
-            }
+        if (!converged)
+            drawLayoutProgress(g2d);
+        g2d.dispose();
+    }
 
-            // Frequency badge for center node
-            if (tag.equals(centerTag)) {
-                g2d.setColor(new Color(255, 193, 7));
-                g2d.fillOval(p.x + nodeSize / 3, p.y - nodeSize / 3, 20, 20);
-                g2d.setColor(Color.WHITE);
-                g2d.setFont(new Font("Segoe UI", Font.BOLD, 10));
-                g2d.drawString("★", p.x + nodeSize / 3 + 5, p.y - nodeSize / 3 + 15);
-            }
-        }
+    // What a translucent colour looks like over the canvas background, as an opaque colour
+    private static Color onCanvas(Color c, int alpha) {
+        return new Color(
+                (c.getRed() * alpha + CANVAS_BG.getRed() * (255 - alpha)) / 255,
+                (c.getGreen() * alpha + CANVAS_BG.getGreen() * (255 - alpha)) / 255,
+                (c.getBlue() * alpha + CANVAS_BG.getBlue() * (255 - alpha)) / 255);
+    }
 
-        g2d.dispose();
+    private void drawLayoutProgress(Graphics2D g2d) {
+        g2d.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        g2d.setColor(TEXT_MUTED);
+        String msg = String.format("Laying out %,d tags… iteration %d", network.nodeCount(), iterations);
+        Insets in = getInsets();
+        g2d.drawString(msg, in.left, getHeight() - in.bottom);
     }
 
     private void drawEmptyState(Graphics2D g2d) {
@@ -707,12 +894,14 @@ class VisualizationCanvas extends JPanel {
     }
 
     public void clear() {
-        centerTag = null;
-        connections = null;
-        nodePositions.clear();
-        repaint();
+        cancelLayout();
+        layoutGeneration++;
+        network = null;
+        positions = null;
+        invalidateLayers();
     }
 
+    // The label layer is composited or skipped; nothing is re-rendered
     public void setShowLabels(boolean show) {
         this.showLabels = show;
         repaint();
@@ -737,4 +926,309 @@ class VisualizationCanvas extends JPanel {
         // Save to file
         javax.imageio.ImageIO.write(image, "PNG", file);
     }
-}
\ No newline at end of file
+
+    // Edges, nodes and labels pre-rendered for one graph, view and size, plus
+    // the screen geometry the hover overlay needs
+    private static final class Layers {
+        private static final int GRID = 32;
+        private static final Font LABEL_FONT = new Font("Segoe UI", Font.BOLD, 11);
+
+        final int width, height;
+        final BufferedImage edges, nodes;
+        private BufferedImage labels;
+
+        private final TagNetwork network;
+        private final double zoom;
+        private final int[] px, py, size;
+        private final int[] adjStart, adj;        // incident edges per node, for the overlay
+        private final int columns, rows;
+        private final int[] cellStart, cellNodes; // screen grid for hit testing
+        private final FontMetrics metrics;
+
+        Layers(TagNetwork network, float[] positions, int width, int height, Insets insets,
+                double zoom, double panX, double panY) {
+            this.network = network;
+            this.width = width;
+            this.height = height;
+            this.zoom = zoom;
+            int n = network.nodeCount();
+            px = new int[n];
+            py = new int[n];
+            size = new int[n];
+            project(positions, insets, panX, panY);
+
+            // Node size shrinks as the network grows so thousands of tags stay legible
+            double sizeScale = Math.max(0.15, Math.min(1.0, Math.sqrt(30.0 / n))) * Math.sqrt(zoom);
+            for (int i = 0; i < n; i++) {
+                int base = Math.min(35 + network.frequency(i) * 2, 65);
+                size[i] = i == 0 ? base : Math.max(6, (int) Math.min(base, base * sizeScale));
+            }
+
+            int[] degree = new int[n + 1];
+            for (int e = 0; e < network.edgeCount(); e++) {
+                degree[network.edgeFrom(e) + 1]++;
+                degree[network.edgeTo(e) + 1]++;
+            }
+            for (int i = 0; i < n; i++)
+                degree[i + 1] += degree[i];
+            adjStart = degree.clone();
+            adj = new int[network.edgeCount() * 2];
+            int[] fill = degree.clone();
+            for (int e = 0; e < network.edgeCount(); e++) {
+                adj[fill[network.edgeFrom(e)]++] = e;
+                adj[fill[network.edgeTo(e)]++] = e;
+            }
+
+            columns = width / GRID + 1;
+            rows = height / GRID + 1;
+            cellStart = new int[columns * rows + 1];
+            for (int i = 0; i < n; i++)
+                if (onScreen(i))
+                    cellStart[cell(px[i], py[i]) + 1]++;
+            for (int c = 0; c < columns * rows; c++)
+                cellStart[c + 1] += cellStart[c];
+            cellNodes = new int[cellStart[columns * rows]];
+            int[] next = Arrays.copyOf(cellStart, cellStart.length);
+            for (int i = 0; i < n; i++)
+                if (onScreen(i))
+                    cellNodes[next[cell(px[i], py[i])]++] = i;
+
+            edges = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+            nodes = newLayer();
+            renderEdges();
+            Graphics2D g = renderNodes();
+            metrics = g.getFontMetrics(LABEL_FONT);
+            g.dispose();
+        }
+
+        // Fits the layout's bounding box into the canvas, then applies zoom and pan
+        private void project(float[] positions, Insets in, double panX, double panY) {
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+            for (int i = 0; i < px.length; i++) {
+                minX = Math.min(minX, positions[2 * i]);
+                maxX = Math.max(maxX, positions[2 * i]);
+                minY = Math.min(minY, positions[2 * i + 1]);
+                maxY = Math.max(maxY, positions[2 * i + 1]);
+            }
+
+            int margin = 40;
+            double w = Math.max(1, width - in.left - in.right - 2 * margin);
+            double h = Math.max(1, height - in.top - in.bottom - 2 * margin);
+            double spanX = Math.max(maxX - minX, 1e-3), spanY = Math.max(maxY - minY, 1e-3);
+            double scale = Math.min(w / spanX, h / spanY);
+            if (px.length <= 2)
+                scale = Math.min(scale, Math.min(w, h) / 3 / Math.max(spanX, spanY));
+
+            double offsetX = in.left + margin + w / 2 - (minX + maxX) / 2 * scale;
+            double offsetY = in.top + margin + h / 2 - (minY + maxY) / 2 * scale;
+            double cx = width / 2.0, cy = height / 2.0;
+            for (int i = 0; i < px.length; i++) {
+                double x = offsetX + positions[2 * i] * scale;
+                double y = offsetY + positions[2 * i + 1] * scale;
+                px[i] = (int) Math.round((x - cx) * zoom + cx + panX);
+                py[i] = (int) Math.round((y - cy) * zoom + cy + panY);
+            }
+        }
+
+        private BufferedImage newLayer() {
+            return new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        private boolean onScreen(int i) {
+            return px[i] >= 0 && py[i] >= 0 && px[i] < width && py[i] < height;
+        }
+
+        private int cell(int x, int y) {
+            return (y / GRID) * columns + x / GRID;
+        }
+
+        // Spokes from the center by strength, neighbour links fainter. Colours are
+        // pre-mixed with the background (translucent lines are blended per pixel
+        // in software) and big networks skip antialiasing
+        private void renderEdges() {
+            Graphics2D g = edges.createGraphics();
+            g.setColor(CANVAS_BG); // bottom layer is opaque, so compositing it is a plain copy
+            g.fillRect(0, 0, width, height);
+            boolean dense = network.edgeCount() > 1000;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    dense ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setStroke(px.length <= 50 ? new BasicStroke(2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND)
+                    : new BasicStroke(1));
+            Color linkColor = onCanvas(EDGE_COLOR, 70);
+            for (int e = 0; e < network.edgeCount(); e++) {
+                int a = network.edgeFrom(e), b = network.edgeTo(e);
+                g.setColor(a == 0 ? onCanvas(EDGE_COLOR, Math.min(100 + network.edgeWeight(e) * 10, 200))
+                        : linkColor);
+                g.drawLine(px[a], py[a], px[b], py[b]);
+            }
+            g.dispose();
+        }
+
+        // Least frequent first so the important ones end up on top
+        private Graphics2D renderNodes() {
+            Graphics2D g = nodes.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            Color shadow = new Color(0, 0, 0, 30);
+            BasicStroke ring = new BasicStroke(3);
+            for (int i = px.length - 1; i >= 0; i--) {
+                int x = px[i], y = py[i], d = size[i];
+                if (x + d < 0 || y + d < 0 || x - d > width || y - d > height)
+                    continue;
+                boolean detailed = d >= 14;
+
+                if (detailed) {
+                    g.setColor(shadow);
+                    g.fillOval(x - d / 2 + 2, y - d / 2 + 2, d, d);
+                }
+                g.setColor(i == 0 ? PRIMARY_BLUE : network.hop(i) >= 2 ? DEEP_HOP : BUTTON_GREEN);
+                g.fillOval(x - d / 2, y - d / 2, d, d);
+                if (detailed) {
+                    g.setColor(Color.WHITE);
+                    g.setStroke(ring);
+                    g.drawOval(x - d / 2, y - d / 2, d, d);
+                }
+
+                // Badge for the center node
+                if (i == 0) {
+                    g.setColor(new Color(255, 193, 7));
+                    g.fillOval(x + d / 3, y - d / 3, 20, 20);
+                    g.setColor(Color.WHITE);
+                    g.setFont(new Font("Segoe UI", Font.BOLD, 10));
+                    g.drawString("★", x + d / 3 + 5, y - d / 3 + 15);
+                }
+            }
+            return g;
+        }
+
+        // Labels for the center and the most frequent tags; zooming in reveals more
+        BufferedImage labels() {
+            if (labels != null)
+                return labels;
+            labels = newLayer();
+            Graphics2D g = labels.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(LABEL_FONT);
+            Color background = new Color(255, 255, 255, 220);
+            int limit = (int) Math.min(px.length - 1L, Math.round(LABEL_LIMIT * zoom * zoom));
+            for (int i = limit; i >= 0; i--) {
+                if (!onScreen(i))
+                    continue;
+                String tag = network.tag(i);
+                int labelWidth = metrics.stringWidth(tag);
+                g.setColor(background);
+                g.fillRoundRect(px[i] - labelWidth / 2 - 6, py[i] + size[i] / 2 + 8,
+                        labelWidth + 12, metrics.getHeight() + 4, 8, 8);
+                g.setColor(TEXT_DARK);
+                g.drawString(tag, px[i] - labelWidth / 2, py[i] + size[i] / 2 + 22);
+            }
+            g.dispose();
+            return labels;
+        }
+
+        /** The node drawn under (x, y), or -1. */
+        int nodeAt(int x, int y) {
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                return -1;
+            int best = -1;
+            long bestDistance = Long.MAX_VALUE;
+            int cx = x / GRID, cy = y / GRID;
+            // Nodes are at most 65 px across, so three cells either way cover any hit
+            for (int row = Math.max(0, cy - 3); row <= Math.min(rows - 1, cy + 3); row++) {
+                for (int col = Math.max(0, cx - 3); col <= Math.min(columns - 1, cx + 3); col++) {
+                    int c = row * columns + col;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int i = cellNodes[k];
+                        long dx = px[i] - x, dy = py[i] - y;
+                        long distance = dx * dx + dy * dy;
+                        long reach = size[i] / 2 + 3;
+                        if (distance <= reach * reach && distance < bestDistance) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        // Incident edges, a ring and a caption for the hovered node
+        void drawHover(Graphics2D g, int node) {
+            g.setColor(PRIMARY_BLUE);
+            // Hubs can have thousands of edges: those get plain one-pixel lines
+            boolean hub = adjStart[node + 1] - adjStart[node] > 100;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    hub ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setStroke(hub ? new BasicStroke(1) : new BasicStroke(2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int k = adjStart[node]; k < adjStart[node + 1]; k++) {
+                int e = adj[k];
+                int other = network.edgeFrom(e) == node ? network.edgeTo(e) : network.edgeFrom(e);
+                g.drawLine(px[node], py[node], px[other], py[other]);
+            }
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setStroke(new BasicStroke(2));
+            int d = size[node] + 8;
+            g.drawOval(px[node] - d / 2, py[node] - d / 2, d, d);
+
+            Rectangle box = captionBox(node);
+            g.setColor(new Color(33, 37, 41, 230));
+            g.fillRoundRect(box.x, box.y, box.width, box.height, 8, 8);
+            g.setColor(Color.WHITE);
+            g.setFont(LABEL_FONT);
+            g.drawString(caption(node), box.x + 6, box.y + 2 + metrics.getAscent());
+        }
+
+        /** Screen area the overlay of {@code node} touches; null for no node. */
+        Rectangle hoverBounds(int node) {
+            if (node < 0)
+                return null;
+            int d = size[node] + 12;
+            Rectangle bounds = new Rectangle(px[node] - d / 2, py[node] - d / 2, d, d);
+            for (int k = adjStart[node]; k < adjStart[node + 1]; k++) {
+                int e = adj[k];
+                int other = network.edgeFrom(e) == node ? network.edgeTo(e) : network.edgeFrom(e);
+                bounds.add(px[other], py[other]);
+            }
+            bounds.add(captionBox(node));
+            bounds.grow(3, 3);
+            return bounds;
+        }
+
+        private String caption(int node) {
+            return network.tag(node) + " · " + network.frequency(node);
+        }
+
+        private Rectangle captionBox(int node) {
+            int w = metrics.stringWidth(caption(node)) + 12;
+            int h = metrics.getHeight() + 4;
+            return new Rectangle(px[node] - w / 2, py[node] - size[node] / 2 - h - 6, w, h);
+        }
+    }
+
+    // A converged layout and the network it belongs to
+    private static final class Layout {
+        final TagNetwork network;
+        final float[] positions;
+
+        Layout(TagNetwork network, float[] positions) {
+            this.network = network;
+            this.positions = positions;
+        }
+    }
+
+    // Positions handed from the layout thread to the EDT
+    private static final class Frame {
+        final long ticket;
+        final float[] positions;
+        final boolean done;
+        final int iterations;
+
+        Frame(long ticket, float[] positions, boolean done, int iterations) {
+            this.ticket = ticket;
+            this.positions = positions;
+            this.done = done;
+            this.iterations = iterations;
+        }
+    }
+}
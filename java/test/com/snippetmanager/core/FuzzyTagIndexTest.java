@@ -0,0 +1,104 @@
+package com.snippetmanager.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** The BK-tree search against a distance computed to every tag. */
+class FuzzyTagIndexTest {
+
+    // Textbook full-matrix Levenshtein, independent of the index's own code
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++)
+            d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++)
+            d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++)
+            for (int j = 1; j <= b.length(); j++)
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+                        d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomTag(Random random, int maxLength) {
+        // Few letters, so many tags fall within a couple of edits of each other
+        int length = 1 + random.nextInt(maxLength);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append("abcde-".charAt(random.nextInt(6)));
+        return sb.toString();
+    }
+
+    private static List<String> scan(Map<String, Integer> tags, String query, int maxDistance) {
+        List<String[]> hits = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : tags.entrySet()) {
+            int d = levenshtein(query, e.getKey());
+            if (d <= maxDistance)
+                hits.add(new String[] { e.getKey(), String.valueOf(d), String.valueOf(e.getValue()) });
+        }
+        hits.sort(Comparator.<String[]>comparingInt(h -> Integer.parseInt(h[1]))
+                .thenComparing(h -> -Integer.parseInt(h[2]))
+                .thenComparing(h -> h[0]));
+        List<String> ranked = new ArrayList<>();
+        for (String[] hit : hits)
+            ranked.add(hit[0] + "~" + hit[1]);
+        return ranked;
+    }
+
+    private static List<String> search(FuzzyTagIndex index, String query, int maxDistance) {
+        List<String> ranked = new ArrayList<>();
+        for (FuzzyTagIndex.Match match : index.search(query, maxDistance, Integer.MAX_VALUE))
+            ranked.add(match.toString());
+        return ranked;
+    }
+
+    @Test
+    void searchFindsExactlyTheTagsWithinRange() {
+        Random random = new Random(42);
+        Map<String, Integer> tags = new LinkedHashMap<>();
+        while (tags.size() < 3000)
+            tags.put(randomTag(random, 10), 1 + random.nextInt(50));
+        FuzzyTagIndex index = FuzzyTagIndex.of(tags);
+        assertEquals(tags.size(), index.size());
+
+        for (int q = 0; q < 200; q++) {
+            String query = randomTag(random, 11);
+            int maxDistance = q % 4;
+            assertEquals(scan(tags, query, maxDistance), search(index, query, maxDistance), query);
+        }
+    }
+
+    @Test
+    void limitKeepsTheBestRanked() {
+        Random random = new Random(7);
+        Map<String, Integer> tags = new LinkedHashMap<>();
+        while (tags.size() < 500)
+            tags.put(randomTag(random, 6), 1 + random.nextInt(9));
+        FuzzyTagIndex index = FuzzyTagIndex.of(tags);
+
+        List<String> all = scan(tags, "abcd", 2);
+        List<String> limited = new ArrayList<>();
+        for (FuzzyTagIndex.Match match : index.search("abcd", 2, 5))
+            limited.add(match.toString());
+        assertEquals(all.subList(0, Math.min(5, all.size())), limited);
+    }
+
+    @Test
+    void longTagsUseTheFallbackDistance() {
+        // Past 64 characters a query no longer fits one bit-parallel word
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            String a = randomTag(random, 140);
+            String b = randomTag(random, 140);
+            assertEquals(levenshtein(a, b), FuzzyTagIndex.distance(a, b), a + " / " + b);
+        }
+    }
+}
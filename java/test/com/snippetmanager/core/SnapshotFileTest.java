@@ -0,0 +1,72 @@
+package com.snippetmanager.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The snapshot writer against the fixture that cpp/module3/tests/snapshot_test
+ * reads: as long as the writer produces these bytes, the C++ reader is tested
+ * on exactly what the Java side writes.
+ */
+class SnapshotFileTest {
+    private static final Path FIXTURES = Paths.get("..", "cpp", "module3", "tests", "fixtures");
+
+    @TempDir
+    Path dir;
+
+    private SnippetSnapshot load() throws IOException {
+        Path json = dir.resolve("store.json");
+        Files.copy(FIXTURES.resolve("store.json"), json);
+        return new SnippetStore(json).reload();
+    }
+
+    @Test
+    void writerMatchesTheFixtureTheCppReaderChecks() throws IOException {
+        load();
+        byte[] written = Files.readAllBytes(dir.resolve("store.snap"));
+        byte[] fixture = Files.readAllBytes(FIXTURES.resolve("store.snap"));
+        assertEquals(fixture.length, written.length);
+
+        // Only the stamped modification time of the JSON may differ; after a
+        // format change, regenerate the fixture from store.json
+        int from = SnapshotFile.H_SOURCE_MODIFIED;
+        Arrays.fill(written, from, from + 8, (byte) 0);
+        Arrays.fill(fixture, from, from + 8, (byte) 0);
+        assertArrayEquals(fixture, written);
+    }
+
+    @Test
+    void snapshotReadsBackWhatTheJsonHolds() throws IOException {
+        SnippetSnapshot snapshot = load();
+        assertEquals(10, snapshot.size());
+
+        Snippet quoted = snapshot.get("Two Sum \"hash\" map");
+        assertNotNull(quoted);
+        assertEquals("function twoSum(nums, target) {\n  const seen = new Map();\n"
+                + "  // \\ backslash and \"quotes\"\n  return [];\n}", quoted.getCode());
+        assertTrue(quoted.hasTag("array"));
+
+        Snippet unicode = snapshot.get("Café Sort 😀");
+        assertNotNull(unicode);
+        assertTrue(unicode.hasTag("sorting"));
+        assertTrue(snapshot.get("N Queens").getCode().contains("café — 😀"));
+        assertEquals("", snapshot.get("Empty").getCode());
+
+        // A second load maps the file just written instead of parsing again
+        SnippetSnapshot again = new SnippetStore(dir.resolve("store.json")).reload();
+        assertEquals(snapshot.titles(), again.titles());
+        for (Snippet s : snapshot.snippets())
+            assertEquals(s.getCode(), again.get(s.getTitle()).getCode());
+    }
+}